@@ -0,0 +1,264 @@
+package org.hsweb.web.bean.accessor;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 属性访问器,用于代替commons-beanutils的PropertyUtilsBean.
+ * 首次使用时通过{@link LambdaMetafactory}为类的每个属性生成getter和setter,并按类缓存,
+ * 之后获取,设置,复制属性时不再进行属性描述查找和反射调用.
+ * 无法生成时(如类加载器不可见)使用反射调用.
+ * <pre>
+ *     BeanAccessor&lt;User&gt; accessor = BeanAccessor.of(User.class);
+ *     Object username = accessor.getProperty(user, "username");
+ *     accessor.copy(user, newUser);
+ * </pre>
+ *
+ * @param <T> 类型
+ * @author zhouhao
+ * @since 2.2
+ */
+public final class BeanAccessor<T> {
+
+    private static final ClassValue<BeanAccessor<?>> accessors = new ClassValue<BeanAccessor<?>>() {
+        @Override
+        protected BeanAccessor<?> computeValue(Class<?> type) {
+            return new BeanAccessor<>(type);
+        }
+    };
+
+    private final Class<T> type;
+
+    private final Map<String, Function<Object, Object>> getters;
+
+    private final Map<String, BiConsumer<Object, Object>> setters;
+
+    //可读写的属性,用于复制属性
+    private final Function<Object, Object>[] copyGetters;
+
+    private final BiConsumer<Object, Object>[] copySetters;
+
+    /**
+     * 获取类的属性访问器
+     *
+     * @param type 类型
+     * @param <T>  类型
+     * @return 属性访问器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanAccessor<T> of(Class<T> type) {
+        return (BeanAccessor<T>) accessors.get(type);
+    }
+
+    /**
+     * 获取对象的属性值,对象为Map时获取对应key的值
+     *
+     * @param bean     对象
+     * @param property 属性名
+     * @return 属性值, 对象为null或者属性不存在时返回null
+     */
+    public static Object getValue(Object bean, String property) {
+        if (bean == null) return null;
+        if (bean instanceof Map) return ((Map) bean).get(property);
+        Function<Object, Object> getter = accessors.get(bean.getClass()).getters.get(property);
+        return getter == null ? null : getter.apply(bean);
+    }
+
+    @SuppressWarnings("unchecked")
+    private BeanAccessor(Class<T> type) {
+        this.type = type;
+        Map<String, Function<Object, Object>> getters = new HashMap<>();
+        Map<String, BiConsumer<Object, Object>> setters = new HashMap<>();
+        List<Function<Object, Object>> copyGetters = new ArrayList<>();
+        List<BiConsumer<Object, Object>> copySetters = new ArrayList<>();
+        BeanInfo beanInfo;
+        try {
+            beanInfo = Introspector.getBeanInfo(type);
+        } catch (IntrospectionException e) {
+            throw new IllegalArgumentException("无法获取类[" + type.getName() + "]的属性信息", e);
+        }
+        for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+            if ("class".equals(descriptor.getName())) continue;
+            Method read = descriptor.getReadMethod(), write = descriptor.getWriteMethod();
+            Function<Object, Object> getter = null;
+            BiConsumer<Object, Object> setter = null;
+            if (read != null && isPublic(read)) {
+                getter = createGetter(read);
+                getters.put(descriptor.getName(), getter);
+            }
+            if (write != null && isPublic(write)) {
+                setter = createSetter(write);
+                setters.put(descriptor.getName(), setter);
+            }
+            if (getter != null && setter != null) {
+                copyGetters.add(getter);
+                copySetters.add(setter);
+            }
+        }
+        this.getters = Collections.unmodifiableMap(getters);
+        this.setters = Collections.unmodifiableMap(setters);
+        this.copyGetters = copyGetters.toArray(new Function[copyGetters.size()]);
+        this.copySetters = copySetters.toArray(new BiConsumer[copySetters.size()]);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * @return 所有可读的属性名
+     */
+    public Set<String> getPropertyNames() {
+        return getters.keySet();
+    }
+
+    /**
+     * 获取属性的getter
+     *
+     * @param property 属性名
+     * @return getter, 属性不存在或者不可读时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public Function<T, Object> getter(String property) {
+        return (Function<T, Object>) (Function) getters.get(property);
+    }
+
+    /**
+     * 获取属性的setter
+     *
+     * @param property 属性名
+     * @return setter, 属性不存在或者不可写时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public BiConsumer<T, Object> setter(String property) {
+        return (BiConsumer<T, Object>) (BiConsumer) setters.get(property);
+    }
+
+    /**
+     * 获取属性值
+     *
+     * @param bean     对象
+     * @param property 属性名
+     * @return 属性值, 属性不存在时返回null
+     */
+    public Object getProperty(T bean, String property) {
+        Function<Object, Object> getter = getters.get(property);
+        return getter == null ? null : getter.apply(bean);
+    }
+
+    /**
+     * 设置属性值
+     *
+     * @param bean     对象
+     * @param property 属性名
+     * @param value    属性值
+     * @throws IllegalArgumentException 属性不存在或者不可写
+     */
+    public void setProperty(T bean, String property, Object value) {
+        BiConsumer<Object, Object> setter = setters.get(property);
+        if (setter == null)
+            throw new IllegalArgumentException("类[" + type.getName() + "]的属性[" + property + "]不存在或者不可写");
+        setter.accept(bean, value);
+    }
+
+    /**
+     * 复制所有可读写的属性,与PropertyUtilsBean.copyProperties一致,为浅复制
+     *
+     * @param source 源对象
+     * @param target 目标对象
+     * @return 目标对象
+     */
+    public T copy(T source, T target) {
+        for (int i = 0; i < copyGetters.length; i++) {
+            copySetters[i].accept(target, copyGetters[i].apply(source));
+        }
+        return target;
+    }
+
+    private static boolean isPublic(Method method) {
+        return Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers());
+    }
+
+    /**
+     * 生成的lambda类由当前类的类加载器加载,需要能访问到属性相关的类
+     */
+    private static boolean isVisible(Class<?> type) {
+        if (type.isPrimitive()) return true;
+        if (type.isArray()) return isVisible(type.getComponentType());
+        try {
+            return Class.forName(type.getName(), false, BeanAccessor.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> createGetter(Method method) {
+        if (!isVisible(method.getDeclaringClass()) || !isVisible(method.getReturnType())) {
+            return reflectGetter(method);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle, handle.type().wrap());
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            return reflectGetter(method);
+        }
+    }
+
+    private static Function<Object, Object> reflectGetter(Method method) {
+        return bean -> {
+            try {
+                return method.invoke(bean);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> createSetter(Method method) {
+        BiConsumer<Object, Object> setter;
+        if (!isVisible(method.getDeclaringClass()) || !isVisible(method.getParameterTypes()[0])) {
+            setter = reflectSetter(method);
+        } else try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle, handle.type().wrap().changeReturnType(void.class));
+            setter = (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            setter = reflectSetter(method);
+        }
+        if (!method.getParameterTypes()[0].isPrimitive()) return setter;
+        //基本类型不能设置为null
+        BiConsumer<Object, Object> primitiveSetter = setter;
+        return (bean, value) -> {
+            if (value != null) primitiveSetter.accept(bean, value);
+        };
+    }
+
+    private static BiConsumer<Object, Object> reflectSetter(Method method) {
+        return (bean, value) -> {
+            try {
+                method.invoke(bean, value);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
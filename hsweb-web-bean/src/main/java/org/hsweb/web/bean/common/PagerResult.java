@@ -14,6 +14,29 @@ public class PagerResult<Po> implements Serializable {
 
     private List<Po> data;
 
+    /**
+     * 游标分页时下一页的游标,没有下一页时为null
+     *
+     * @see QueryParam#getCursor()
+     * @since 2.2
+     */
+    private String nextCursor;
+
+    /**
+     * 总数是否为精确值,为false时总数为估算值
+     *
+     * @see TotalMode
+     * @since 2.2
+     */
+    private boolean exactTotal = true;
+
+    /**
+     * 是否存在下一页
+     *
+     * @since 2.2
+     */
+    private boolean hasNext;
+
     public PagerResult() {
     }
 
@@ -40,6 +63,33 @@ public class PagerResult<Po> implements Serializable {
         return this;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public PagerResult<Po> setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+        return this;
+    }
+
+    public boolean isExactTotal() {
+        return exactTotal;
+    }
+
+    public PagerResult<Po> setExactTotal(boolean exactTotal) {
+        this.exactTotal = exactTotal;
+        return this;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public PagerResult<Po> setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+        return this;
+    }
+
     @Override
     public String toString() {
         return JSON.toJSONString(this);
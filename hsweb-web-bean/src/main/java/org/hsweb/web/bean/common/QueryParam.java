@@ -1,18 +1,43 @@
 package org.hsweb.web.bean.common;
 
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.hsweb.ezorm.core.param.Sort;
 import org.hsweb.ezorm.core.param.Term;
 import org.hsweb.ezorm.core.param.TermType;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
 
 public class QueryParam extends org.hsweb.ezorm.core.param.QueryParam implements Serializable {
     private static final long                serialVersionUID = 7941767360194797891L;
     private              Map<String, Object> param            = new HashMap<>();
 
+    /**
+     * 游标分页(keyset分页)的游标,值为上一页查询结果中的{@link PagerResult#getNextCursor()},
+     * 为空字符串时表示以游标分页的方式查询第一页.
+     * 游标分页通过排序字段的值定位下一页,不使用offset,因此查询任意一页的开销与第一页相同
+     *
+     * @since 2.2
+     */
+    private String cursor;
+
+    private transient boolean cursorApplied;
+
+    //分页时多查询一条数据,用于判断是否存在下一页
+    private transient boolean probePaging;
+
+    /**
+     * 分页查询时获取总数的方式,默认精确查询
+     *
+     * @since 2.2
+     */
+    private TotalMode totalMode = TotalMode.exact;
+
     public QueryParam noPaging() {
         setPaging(false);
         return this;
@@ -38,6 +63,250 @@ public class QueryParam extends org.hsweb.ezorm.core.param.QueryParam implements
         });
     }
 
+    /**
+     * 是否使用游标分页
+     *
+     * @since 2.2
+     */
+    public boolean isCursorPaging() {
+        return cursor != null;
+    }
+
+    /**
+     * 将游标转换为查询条件,null值视为最小值(mysql,h2)
+     *
+     * @param primaryKey 主键名称
+     * @return 查询参数
+     * @see #applyCursor(String, boolean)
+     * @since 2.2
+     */
+    public QueryParam applyCursor(String primaryKey) {
+        return applyCursor(primaryKey, true);
+    }
+
+    /**
+     * 将游标转换为查询条件,如排序为 create_date desc,id desc 时,生成条件:
+     * (create_date &lt; ? or (create_date = ? and id &lt; ?)).
+     * 排序字段的值可以为null:null值排在非null值之后时,条件中将包含 create_date is null,
+     * 游标中的值为null时使用 create_date is null 或 create_date is not null 定位.
+     * 排序字段中未包含主键时将自动追加主键排序,保证排序结果唯一.
+     * 调用后分页参数将被设置为从第一页开始查询
+     *
+     * @param primaryKey 主键名称
+     * @param nullsFirst 升序排序时null值是否排在最前,与数据库一致(mysql,h2为true,oracle为false)
+     * @return 查询参数
+     * @throws IllegalArgumentException 游标格式错误或者与当前排序不一致
+     * @since 2.2
+     */
+    public QueryParam applyCursor(String primaryKey, boolean nullsFirst) {
+        if (!isCursorPaging() || cursorApplied) return this;
+        cursorApplied = true;
+        List<Sort> sorts = getSorts();
+        if (sorts.stream().noneMatch(sort -> primaryKey.equals(sort.getName()))) {
+            boolean desc = !sorts.isEmpty() && "desc".equalsIgnoreCase(sorts.get(sorts.size() - 1).getOrder());
+            if (desc) orderBy(primaryKey).desc();
+            else orderBy(primaryKey).asc();
+        }
+        setPaging(true);
+        setPageIndex(0);
+        if (cursor.isEmpty()) return this;
+        List<Object> values = decodeCursor(cursor, getCursorSorts());
+        Term seek = new Term();
+        for (int i = 0; i < sorts.size(); i++) {
+            Sort sort = sorts.get(i);
+            boolean desc = "desc".equalsIgnoreCase(sort.getOrder());
+            //当前排序方向上null值是否排在非null值之后
+            boolean nullsLast = desc == nullsFirst;
+            Object value = values.get(i);
+            Term after;
+            if (value == null) {
+                //null值排在最后时,之后不会再有数据
+                if (nullsLast) continue;
+                after = createCursorTerm(sort.getName(), TermType.notnull, null);
+            } else {
+                after = createCursorTerm(sort.getName(), desc ? TermType.lt : TermType.gt, value);
+                if (nullsLast) {
+                    Term nullTerm = createCursorTerm(sort.getName(), TermType.isnull, null);
+                    nullTerm.setType(Term.Type.or);
+                    Term nested = new Term();
+                    nested.getTerms().add(after);
+                    nested.getTerms().add(nullTerm);
+                    after = nested;
+                }
+            }
+            Term branch = new Term();
+            if (!seek.getTerms().isEmpty()) branch.setType(Term.Type.or);
+            for (int j = 0; j < i; j++) {
+                Object prev = values.get(j);
+                branch.getTerms().add(createCursorTerm(sorts.get(j).getName(), prev == null ? TermType.isnull : TermType.eq, prev));
+            }
+            branch.getTerms().add(after);
+            seek.getTerms().add(branch);
+        }
+        terms.add(seek);
+        return this;
+    }
+
+    protected static Term createCursorTerm(String column, String termType, Object value) {
+        Term term = new Term();
+        term.setColumn(column);
+        term.setTermType(termType);
+        //is null,is not null 条件不使用值,但值为null的条件可能被忽略
+        term.setValue(value == null ? 1 : value);
+        return term;
+    }
+
+    /**
+     * 根据当前页最后一条数据生成下一页的游标
+     *
+     * @param valueGetter 根据排序字段名称获取最后一条数据中对应的值,值可以为null
+     * @return 游标
+     * @since 2.2
+     */
+    public String createNextCursor(Function<String, Object> valueGetter) {
+        JSONArray values = new JSONArray();
+        for (Sort sort : getSorts()) {
+            Object value = valueGetter.apply(sort.getName());
+            JSONObject item = new JSONObject();
+            if (value == null) {
+                item.put("t", "null");
+            } else if (value instanceof Date) {
+                item.put("t", "date");
+                item.put("v", ((Date) value).getTime());
+            } else {
+                item.put("v", value);
+            }
+            values.add(item);
+        }
+        JSONObject token = new JSONObject();
+        token.put("s", getCursorSorts());
+        token.put("v", values);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(token.toJSONString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected List<String> getCursorSorts() {
+        List<String> sorts = new ArrayList<>();
+        getSorts().forEach(sort -> sorts.add(sort.getName() + " " + sort.getOrder()));
+        return sorts;
+    }
+
+    protected static List<Object> decodeCursor(String cursor, List<String> sorts) {
+        JSONObject token;
+        try {
+            token = JSON.parseObject(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("游标格式错误", e);
+        }
+        if (token == null || !sorts.equals(token.getJSONArray("s"))) {
+            throw new IllegalArgumentException("游标与当前排序条件不一致");
+        }
+        JSONArray array = token.getJSONArray("v");
+        List<Object> values = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            JSONObject item = array.getJSONObject(i);
+            String type = item.getString("t");
+            if ("null".equals(type)) values.add(null);
+            else if ("date".equals(type)) values.add(new Date(item.getLongValue("v")));
+            else values.add(item.get("v"));
+        }
+        return values;
+    }
+
+    /**
+     * 复制查询条件和排序,用于在不影响当前参数的情况下执行其他查询(如并行查询总数).
+     * 生成sql时会修改条件的值,因此条件会被逐个复制
+     *
+     * @return 新的查询参数, 不分页
+     * @since 2.2
+     */
+    public QueryParam copyTerms() {
+        QueryParam copy = new QueryParam();
+        copy.setPaging(false);
+        copy.setTerms(copyTerms(getTerms()));
+        copy.setSorts(new ArrayList<>(getSorts()));
+        copy.setTotalMode(totalMode);
+        return copy;
+    }
+
+    /**
+     * 复制查询条件,排序以及查询和排除的字段,用于在不影响当前参数的情况下执行不分页的查询(如流式查询)
+     *
+     * @return 新的查询参数, 不分页
+     * @see #copyTerms()
+     * @since 2.2
+     */
+    public QueryParam copyQuery() {
+        QueryParam copy = copyTerms();
+        copy.getIncludes().addAll(getIncludes());
+        copy.getExcludes().addAll(getExcludes());
+        return copy;
+    }
+
+    protected static List<Term> copyTerms(List<Term> terms) {
+        List<Term> copies = new ArrayList<>(terms.size());
+        for (Term term : terms) {
+            Term copy = new Term();
+            copy.setColumn(term.getColumn());
+            copy.setValue(term.getValue() instanceof Collection ? new ArrayList<>((Collection) term.getValue()) : term.getValue());
+            copy.setTermType(term.getTermType());
+            copy.setType(term.getType());
+            copy.setTerms(copyTerms(term.getTerms()));
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * 分页查询并多查询一条数据:从第pageIndex页开始查询pageSize+1条数据,
+     * 查询结果多于pageSize条时表示存在下一页,无需额外查询总数或者下一页的数据
+     *
+     * @param pageIndex 页码,从0开始
+     * @param pageSize  每页数量
+     * @return 查询参数
+     * @since 2.2
+     */
+    public QueryParam doProbePaging(int pageIndex, int pageSize) {
+        doPaging(pageIndex, pageSize);
+        probePaging = true;
+        return this;
+    }
+
+    /**
+     * 取消{@link #doProbePaging(int, int)},恢复为普通分页
+     *
+     * @return 查询参数
+     * @since 2.2
+     */
+    public QueryParam resetProbePaging() {
+        probePaging = false;
+        return this;
+    }
+
+    /**
+     * @return 是否分页并多查询一条数据
+     * @since 2.2
+     */
+    public boolean isProbePaging() {
+        return probePaging && isPaging();
+    }
+
+    public TotalMode getTotalMode() {
+        return totalMode;
+    }
+
+    public void setTotalMode(TotalMode totalMode) {
+        this.totalMode = totalMode;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     public static QueryParam build() {
         return new QueryParam();
     }
@@ -0,0 +1,23 @@
+package org.hsweb.web.bean.common;
+
+/**
+ * 分页查询时获取数据总数的方式
+ *
+ * @author zhouhao
+ * @see QueryParam#getTotalMode()
+ * @since 2.2
+ */
+public enum TotalMode {
+    /**
+     * 精确查询总数(count),条件允许时与分页查询并行执行
+     */
+    exact,
+    /**
+     * 不执行count,根据数据库的统计信息估算总数.有查询条件时无法估算,将使用{@link #probe}
+     */
+    estimate,
+    /**
+     * 不执行count,额外查询下一页的一条数据判断是否存在下一页
+     */
+    probe
+}
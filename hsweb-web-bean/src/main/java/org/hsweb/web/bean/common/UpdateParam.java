@@ -5,6 +5,13 @@ package org.hsweb.web.bean.common;
  */
 public class UpdateParam<T> extends org.hsweb.ezorm.core.param.UpdateParam<T> {
 
+    /**
+     * 批量修改后,此条数据的影响行数
+     *
+     * @since 2.2
+     */
+    private transient int affectedRows;
+
     public UpdateParam() {
     }
 
@@ -15,4 +22,12 @@ public class UpdateParam<T> extends org.hsweb.ezorm.core.param.UpdateParam<T> {
     public static <T> UpdateParam<T> build(T data) {
         return new UpdateParam<>(data);
     }
+
+    public int getAffectedRows() {
+        return affectedRows;
+    }
+
+    public void setAffectedRows(int affectedRows) {
+        this.affectedRows = affectedRows;
+    }
 }
@@ -19,6 +19,8 @@ package org.hsweb.web.bean.po.datasource;
 import org.hibernate.validator.constraints.NotBlank;
 import org.hsweb.web.bean.po.GenericPo;
 
+import java.util.Map;
+
 /**
  * 数据源
  * Created by hsweb-generator 2016-8-23 15:52:11
@@ -139,9 +141,17 @@ public class DataSource extends GenericPo<String> {
         this.testSql = testSql;
     }
 
+    /**
+     * 连接配置的hash,配置变化时需要重新创建数据源.包含从库配置(properties中的replicas和replicaStrategy)
+     *
+     * @return hash
+     */
     public int getHash() {
         StringBuilder builder = new StringBuilder();
         builder.append(url).append(username).append(password).append(enabled);
+        Map<String, Object> properties = getProperties();
+        builder.append(properties == null ? null : properties.get("replicas"))
+                .append(properties == null ? null : properties.get("replicaStrategy"));
         return builder.toString().hashCode();
     }
 
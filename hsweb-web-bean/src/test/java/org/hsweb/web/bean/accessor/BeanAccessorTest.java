@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.bean.accessor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * @author zhouhao
+ */
+public class BeanAccessorTest {
+
+    public static class TestBean {
+        private String name;
+
+        private int age;
+
+        private Integer score;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public Integer getScore() {
+            return score;
+        }
+
+        public void setScore(Integer score) {
+            this.score = score;
+        }
+
+        public String getDescription() {
+            return name + ":" + age;
+        }
+    }
+
+    BeanAccessor<TestBean> accessor = BeanAccessor.of(TestBean.class);
+
+    @Test
+    public void testOf() {
+        Assert.assertSame(accessor, BeanAccessor.of(TestBean.class));
+        Assert.assertEquals(TestBean.class, accessor.getType());
+        Assert.assertFalse(accessor.getPropertyNames().contains("class"));
+        Assert.assertTrue(accessor.getPropertyNames().contains("description"));
+    }
+
+    @Test
+    public void testGetAndSet() {
+        TestBean bean = new TestBean();
+        accessor.setProperty(bean, "name", "admin");
+        accessor.setProperty(bean, "age", 18);
+        accessor.setter("score").accept(bean, 100);
+        Assert.assertEquals("admin", bean.getName());
+        Assert.assertEquals(18, bean.getAge());
+        Assert.assertEquals(Integer.valueOf(100), bean.getScore());
+        Assert.assertEquals("admin", accessor.getProperty(bean, "name"));
+        Assert.assertEquals(18, accessor.getProperty(bean, "age"));
+        Assert.assertEquals("admin:18", accessor.getter("description").apply(bean));
+        Assert.assertNull(accessor.getProperty(bean, "notExists"));
+        Assert.assertNull(accessor.getter("notExists"));
+        Assert.assertNull(accessor.setter("description"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetReadOnly() {
+        accessor.setProperty(new TestBean(), "description", "test");
+    }
+
+    @Test
+    public void testCopy() {
+        TestBean source = new TestBean();
+        source.setName("admin");
+        source.setAge(18);
+        TestBean target = new TestBean();
+        target.setScore(100);
+        Assert.assertSame(target, accessor.copy(source, target));
+        Assert.assertEquals("admin", target.getName());
+        Assert.assertEquals(18, target.getAge());
+        //源对象的null值同样会复制
+        Assert.assertNull(target.getScore());
+    }
+
+    @Test
+    public void testGetValue() {
+        TestBean bean = new TestBean();
+        bean.setName("admin");
+        Assert.assertEquals("admin", BeanAccessor.getValue(bean, "name"));
+        Assert.assertNull(BeanAccessor.getValue(bean, "notExists"));
+        Assert.assertNull(BeanAccessor.getValue(null, "name"));
+        Assert.assertEquals("admin", BeanAccessor.getValue(Collections.singletonMap("name", "admin"), "name"));
+    }
+}
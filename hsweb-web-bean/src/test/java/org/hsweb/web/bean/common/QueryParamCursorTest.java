@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hsweb.web.bean.common;
+
+import org.hsweb.ezorm.core.param.Term;
+import org.hsweb.ezorm.core.param.TermType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * @author zhouhao
+ */
+public class QueryParamCursorTest {
+
+    private QueryParam createParam(String cursor) {
+        QueryParam param = new QueryParam();
+        param.orderBy("createDate").desc();
+        param.setCursor(cursor);
+        return param;
+    }
+
+    private String createCursor(Object createDate, Object id) {
+        QueryParam param = createParam("");
+        param.applyCursor("id");
+        Map<String, Object> last = new HashMap<>();
+        last.put("createDate", createDate);
+        last.put("id", id);
+        return param.createNextCursor(last::get);
+    }
+
+    private Term getSeek(QueryParam param) {
+        List<Term> terms = param.getTerms();
+        return terms.get(terms.size() - 1);
+    }
+
+    @Test
+    public void testFirstPage() {
+        QueryParam param = createParam("");
+        param.applyCursor("id");
+        Assert.assertTrue(param.getTerms().isEmpty());
+        Assert.assertEquals(2, param.getSorts().size());
+        Assert.assertEquals("id", param.getSorts().get(1).getName());
+        Assert.assertEquals("desc", param.getSorts().get(1).getOrder());
+        Assert.assertEquals(0, param.getPageIndex());
+    }
+
+    @Test
+    public void testDecodeCursor() {
+        Date date = new Date();
+        String cursor = createCursor(date, "abc");
+        List<Object> values = QueryParam.decodeCursor(cursor, Arrays.asList("createDate desc", "id desc"));
+        Assert.assertEquals(Arrays.asList(date, "abc"), values);
+
+        values = QueryParam.decodeCursor(createCursor(null, "abc"), Arrays.asList("createDate desc", "id desc"));
+        Assert.assertEquals(Arrays.asList(null, "abc"), values);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortChanged() {
+        QueryParam param = new QueryParam();
+        param.orderBy("createDate").asc();
+        param.setCursor(createCursor(new Date(), "abc"));
+        param.applyCursor("id");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalCursor() {
+        createParam("not a cursor").applyCursor("id");
+    }
+
+    @Test
+    public void testSeekNullsFirst() {
+        //mysql: desc排序时null排在最后
+        Date date = new Date();
+        QueryParam param = createParam(createCursor(date, "abc"));
+        param.applyCursor("id", true);
+        List<Term> branches = getSeek(param).getTerms();
+        Assert.assertEquals(2, branches.size());
+        //createDate < ? or createDate is null
+        Term first = branches.get(0).getTerms().get(0);
+        Assert.assertEquals(2, first.getTerms().size());
+        Assert.assertEquals(TermType.lt, first.getTerms().get(0).getTermType());
+        Assert.assertEquals(date, first.getTerms().get(0).getValue());
+        Assert.assertEquals(TermType.isnull, first.getTerms().get(1).getTermType());
+        Assert.assertEquals(Term.Type.or, first.getTerms().get(1).getType());
+        //or (createDate = ? and id < ?)
+        Term second = branches.get(1);
+        Assert.assertEquals(Term.Type.or, second.getType());
+        Assert.assertEquals(TermType.eq, second.getTerms().get(0).getTermType());
+        Assert.assertEquals(TermType.lt, second.getTerms().get(1).getTermType());
+        Assert.assertEquals("abc", second.getTerms().get(1).getValue());
+    }
+
+    @Test
+    public void testSeekNullValue() {
+        //mysql: desc排序时null排在最后,上一页最后一条数据为null时只能在null中继续查找
+        QueryParam param = createParam(createCursor(null, "abc"));
+        param.applyCursor("id", true);
+        List<Term> branches = getSeek(param).getTerms();
+        Assert.assertEquals(1, branches.size());
+        Assert.assertEquals(TermType.isnull, branches.get(0).getTerms().get(0).getTermType());
+        Assert.assertEquals(TermType.lt, branches.get(0).getTerms().get(1).getTermType());
+        Assert.assertEquals(Term.Type.and, branches.get(0).getType());
+
+        //oracle: desc排序时null排在最前,之后是所有非null的数据
+        param = createParam(createCursor(null, "abc"));
+        param.applyCursor("id", false);
+        branches = getSeek(param).getTerms();
+        Assert.assertEquals(2, branches.size());
+        Assert.assertEquals(TermType.notnull, branches.get(0).getTerms().get(0).getTermType());
+        Assert.assertEquals(TermType.isnull, branches.get(1).getTerms().get(0).getTermType());
+        Assert.assertEquals(TermType.lt, branches.get(1).getTerms().get(1).getTermType());
+    }
+
+    @Test
+    public void testSeekNullsLastInOracleAsc() {
+        QueryParam param = new QueryParam();
+        param.orderBy("createDate").asc();
+        param.setCursor("");
+        param.applyCursor("id", false);
+        Map<String, Object> last = new HashMap<>();
+        last.put("createDate", 1);
+        last.put("id", "abc");
+        String cursor = param.createNextCursor(last::get);
+
+        param = new QueryParam();
+        param.orderBy("createDate").asc();
+        param.setCursor(cursor);
+        param.applyCursor("id", false);
+        Term first = getSeek(param).getTerms().get(0).getTerms().get(0);
+        Assert.assertEquals(TermType.gt, first.getTerms().get(0).getTermType());
+        Assert.assertEquals(TermType.isnull, first.getTerms().get(1).getTermType());
+    }
+}
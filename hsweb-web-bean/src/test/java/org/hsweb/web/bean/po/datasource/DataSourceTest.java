@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.bean.po.datasource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+ * @author zhouhao
+ */
+public class DataSourceTest {
+
+    private DataSource create() {
+        DataSource dataSource = new DataSource();
+        dataSource.setUrl("jdbc:h2:mem:test");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setEnabled(1);
+        dataSource.setProperties(new HashMap<>());
+        return dataSource;
+    }
+
+    @Test
+    public void testHashContainsReplicas() {
+        DataSource dataSource = create();
+        int hash = dataSource.getHash();
+        dataSource.getProperties().put("replicas", Collections.singletonList(Collections.singletonMap("url", "jdbc:h2:mem:replica")));
+        Assert.assertNotEquals(hash, dataSource.getHash());
+        hash = dataSource.getHash();
+        dataSource.getProperties().put("replicaStrategy", "least_connections");
+        Assert.assertNotEquals(hash, dataSource.getHash());
+        //其他属性不影响hash
+        hash = dataSource.getHash();
+        dataSource.getProperties().put("initTimeOut", 1000);
+        Assert.assertEquals(hash, dataSource.getHash());
+    }
+
+    @Test
+    public void testHashWithoutProperties() {
+        DataSource dataSource = create();
+        int hash = dataSource.getHash();
+        dataSource.setProperties(null);
+        Assert.assertEquals(hash, dataSource.getHash());
+    }
+}
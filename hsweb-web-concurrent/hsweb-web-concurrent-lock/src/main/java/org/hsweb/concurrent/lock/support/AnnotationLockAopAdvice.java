@@ -11,11 +11,8 @@ import org.hsweb.web.core.authorize.ExpressionScopeBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.hsweb.expands.script.engine.DynamicScriptEngine;
-import org.hsweb.expands.script.engine.DynamicScriptEngineFactory;
-import org.hsweb.expands.script.engine.ExecuteResult;
 
-import java.util.HashMap;
+import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -38,6 +35,15 @@ public class AnnotationLockAopAdvice {
     @Autowired(required = false)
     private Map<String, ExpressionScopeBean> expressionScopeBeanMap;
 
+    //方法上未注解LockName时的标记
+    private static final LockNameExpression TARGET_CLASS = LockNameExpression.constant(null);
+
+    //方法->编译后的锁名称
+    private final ConcurrentMap<Method, LockNameExpression> lockNameExpressions = new ConcurrentHashMap<>();
+
+    //目标类->方法->编译后的锁名称
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, LockNameExpression>> targetClassLockNameExpressions = new ConcurrentHashMap<>();
+
     @Around("@annotation(unLock)")
     public Object unWriteLock(ProceedingJoinPoint pjp,
                               org.hsweb.concurrent.lock.annotation.UnWriteLock unLock) throws Throwable {
@@ -151,36 +157,34 @@ public class AnnotationLockAopAdvice {
     }
 
     public String getLockName(ProceedingJoinPoint pjp) throws Throwable {
-        String lockNameStr;
         MethodSignature methodSignature = ((MethodSignature) pjp.getSignature());
-        LockName lockName =
-                methodSignature.getMethod().getAnnotation(LockName.class);
-        if (lockName == null)
-            lockName = pjp.getTarget().getClass().getAnnotation(LockName.class);
-        if (lockName == null) {
-            lockNameStr = pjp.getTarget().getClass().getName();
-        } else {
-            if (lockName.isExpression()) {
-                String expression = lockName.value();
-                String expressionId = String.valueOf(expression.hashCode());
-                DynamicScriptEngine engine = DynamicScriptEngineFactory.getEngine(lockName.expressionLanguage());
-                boolean compiled = engine.compiled(expressionId);
-                if (!compiled) {
-                    engine.compile(expressionId, expression);
-                }
-                Map<String, Object> var = new HashMap<>();
-                String paramNames[] = methodSignature.getParameterNames();
-                for (int i = 0; i < paramNames.length; i++) {
-                    var.put(paramNames[i], pjp.getArgs()[i]);
-                }
-                if (expressionScopeBeanMap != null) var.putAll(expressionScopeBeanMap);
-                ExecuteResult result = engine.execute(expressionId, var);
-                lockNameStr = (String) result.getIfSuccess();
-            } else {
-                lockNameStr = lockName.value();
-            }
+        Method method = methodSignature.getMethod();
+        LockNameExpression expression = lockNameExpressions.computeIfAbsent(method, m -> {
+            LockName lockName = m.getAnnotation(LockName.class);
+            return lockName == null ? TARGET_CLASS : compileLockName(lockName, methodSignature);
+        });
+        if (expression == TARGET_CLASS) {
+            //方法上未注解时使用目标类上的注解,按目标类缓存
+            Class<?> targetClass = pjp.getTarget().getClass();
+            expression = targetClassLockNameExpressions
+                    .computeIfAbsent(targetClass, type -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(method, m -> {
+                        LockName lockName = targetClass.getAnnotation(LockName.class);
+                        return lockName == null
+                                ? LockNameExpression.constant(targetClass.getName())
+                                : compileLockName(lockName, methodSignature);
+                    });
         }
-        return lockNameStr;
+        return expression.getLockName(pjp.getArgs());
+    }
+
+    protected LockNameExpression compileLockName(LockName lockName, MethodSignature methodSignature) {
+        return LockNameExpression.compile(lockName, methodSignature.getParameterNames(), this::getExpressionScopeBeans);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getExpressionScopeBeans() {
+        return (Map) expressionScopeBeanMap;
     }
 
     private void unlock(Lock lock) {
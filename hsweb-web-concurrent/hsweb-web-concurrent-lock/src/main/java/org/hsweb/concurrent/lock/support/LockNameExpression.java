@@ -0,0 +1,235 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hsweb.concurrent.lock.support;
+
+import org.hsweb.concurrent.lock.annotation.LockName;
+import org.hsweb.expands.script.engine.DynamicScriptEngine;
+import org.hsweb.expands.script.engine.DynamicScriptEngineFactory;
+import org.hsweb.web.bean.accessor.BeanAccessor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 编译后的锁名称表达式,每个方法只解析一次.
+ * 形如 'form.lock.'+#form.name 的模板表达式在解析时确定参数下标,
+ * 获取锁名称时只进行属性获取和字符串拼接,不再执行脚本.
+ * 其他表达式仍使用{@link DynamicScriptEngine}执行,但只在创建时编译一次.
+ *
+ * @author zhouhao
+ * @see AnnotationLockAopAdvice
+ * @since 2.2
+ */
+public abstract class LockNameExpression {
+
+    /**
+     * 获取锁名称
+     *
+     * @param args 方法参数
+     * @return 锁名称
+     */
+    public abstract String getLockName(Object[] args) throws Throwable;
+
+    /**
+     * 创建固定的锁名称
+     *
+     * @param name 锁名称
+     * @return 锁名称
+     */
+    public static LockNameExpression constant(String name) {
+        return new Constant(name);
+    }
+
+    /**
+     * 编译锁名称
+     *
+     * @param lockName   注解
+     * @param paramNames 方法参数名称,无法获取时为null
+     * @param scopeBeans 表达式作用域中的bean
+     * @return 编译后的锁名称
+     */
+    public static LockNameExpression compile(LockName lockName, String[] paramNames,
+                                             Supplier<Map<String, Object>> scopeBeans) {
+        if (!lockName.isExpression()) {
+            return new Constant(lockName.value());
+        }
+        Template template = Template.parse(lockName.value(), paramNames);
+        if (template != null) return template;
+        return new Script(lockName, paramNames, scopeBeans);
+    }
+
+    static class Constant extends LockNameExpression {
+        private final String name;
+
+        Constant(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getLockName(Object[] args) {
+            return name;
+        }
+    }
+
+    /**
+     * 由字符串常量和参数(及其属性)通过+拼接而成的表达式
+     */
+    static class Template extends LockNameExpression {
+        //字符串常量时为null
+        private final int[]      argIndexes;
+        private final String[]   literals;
+        private final String[][] properties;
+
+        private Template(int[] argIndexes, String[] literals, String[][] properties) {
+            this.argIndexes = argIndexes;
+            this.literals = literals;
+            this.properties = properties;
+        }
+
+        /**
+         * 解析模板表达式,表达式不是模板时返回null
+         */
+        static Template parse(String expression, String[] paramNames) {
+            if (paramNames == null) return null;
+            List<String> parts = split(expression);
+            if (parts == null) return null;
+            int size = parts.size();
+            int[] argIndexes = new int[size];
+            String[] literals = new String[size];
+            String[][] properties = new String[size][];
+            for (int i = 0; i < size; i++) {
+                String part = parts.get(i);
+                if (part.startsWith("'")) {
+                    literals[i] = part.substring(1, part.length() - 1);
+                    argIndexes[i] = -1;
+                    continue;
+                }
+                if (!part.startsWith("#")) return null;
+                String[] path = part.substring(1).split("[.]", -1);
+                for (String name : path) {
+                    if (!isIdentifier(name)) return null;
+                }
+                int index = indexOf(paramNames, path[0]);
+                //不是方法参数,可能引用了作用域中的bean
+                if (index < 0) return null;
+                argIndexes[i] = index;
+                String[] props = new String[path.length - 1];
+                System.arraycopy(path, 1, props, 0, props.length);
+                properties[i] = props;
+            }
+            return new Template(argIndexes, literals, properties);
+        }
+
+        @Override
+        public String getLockName(Object[] args) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < argIndexes.length; i++) {
+                if (argIndexes[i] < 0) {
+                    builder.append(literals[i]);
+                    continue;
+                }
+                Object value = args[argIndexes[i]];
+                for (String property : properties[i]) {
+                    value = BeanAccessor.getValue(value, property);
+                }
+                builder.append(value);
+            }
+            return builder.toString();
+        }
+
+        /**
+         * 按+拆分表达式,包含其他运算或者常量中包含单引号时返回null
+         */
+        private static List<String> split(String expression) {
+            List<String> parts = new ArrayList<>();
+            int length = expression.length();
+            int start = 0;
+            boolean quoted = false;
+            for (int i = 0; i < length; i++) {
+                char c = expression.charAt(i);
+                if (c == '\'') quoted = !quoted;
+                else if (c == '+' && !quoted) {
+                    parts.add(expression.substring(start, i).trim());
+                    start = i + 1;
+                }
+            }
+            if (quoted) return null;
+            parts.add(expression.substring(start).trim());
+            for (String part : parts) {
+                if (part.isEmpty()) return null;
+                if (part.startsWith("'") && (part.length() < 2 || part.indexOf('\'', 1) != part.length() - 1))
+                    return null;
+            }
+            return parts;
+        }
+
+        private static boolean isIdentifier(String name) {
+            if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) return false;
+            for (int i = 1; i < name.length(); i++) {
+                if (!Character.isJavaIdentifierPart(name.charAt(i))) return false;
+            }
+            return true;
+        }
+
+        private static int indexOf(String[] names, String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (name.equals(names[i])) return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 无法作为模板解析的表达式,通过脚本引擎执行
+     */
+    static class Script extends LockNameExpression {
+        private final String                        expressionId;
+        private final DynamicScriptEngine           engine;
+        private final String[]                      paramNames;
+        private final Supplier<Map<String, Object>> scopeBeans;
+
+        Script(LockName lockName, String[] paramNames, Supplier<Map<String, Object>> scopeBeans) {
+            String expression = lockName.value();
+            this.expressionId = String.valueOf(expression.hashCode());
+            this.engine = DynamicScriptEngineFactory.getEngine(lockName.expressionLanguage());
+            this.paramNames = paramNames == null ? new String[0] : paramNames;
+            this.scopeBeans = scopeBeans;
+            try {
+                if (!engine.compiled(expressionId)) {
+                    engine.compile(expressionId, expression);
+                }
+            } catch (Exception e) {
+                throw new IllegalArgumentException("编译锁名称表达式[" + expression + "]失败", e);
+            }
+        }
+
+        @Override
+        public String getLockName(Object[] args) throws Throwable {
+            Map<String, Object> scope = scopeBeans.get();
+            Map<String, Object> var = new HashMap<>(scope == null ? paramNames.length : scope.size() + paramNames.length);
+            for (int i = 0; i < paramNames.length; i++) {
+                var.put(paramNames[i], args[i]);
+            }
+            if (scope != null) var.putAll(scope);
+            return (String) engine.execute(expressionId, var).getIfSuccess();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.concurrent.lock.support;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * @author zhouhao
+ */
+public class LockNameExpressionTest {
+
+    String[] paramNames = {"name", "form"};
+
+    public static class TestForm {
+        private String name;
+
+        public TestForm(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    @Test
+    public void testParseTemplate() {
+        LockNameExpression.Template template = LockNameExpression.Template.parse("'form.lock.'+#form.name+'.'+#name", paramNames);
+        Assert.assertNotNull(template);
+        Assert.assertEquals("form.lock.test.admin", template.getLockName(new Object[]{"admin", new TestForm("test")}));
+        //参数为map时获取对应key的值
+        Assert.assertEquals("form.lock.test.admin",
+                template.getLockName(new Object[]{"admin", Collections.singletonMap("name", "test")}));
+        //常量中包含+
+        template = LockNameExpression.Template.parse(" 'a+b' + #name ", paramNames);
+        Assert.assertNotNull(template);
+        Assert.assertEquals("a+badmin", template.getLockName(new Object[]{"admin", null}));
+        //属性为null
+        template = LockNameExpression.Template.parse("#form.name", paramNames);
+        Assert.assertNotNull(template);
+        Assert.assertEquals("null", template.getLockName(new Object[]{"admin", null}));
+    }
+
+    @Test
+    public void testParseNotTemplate() {
+        //无法获取参数名称
+        Assert.assertNull(LockNameExpression.Template.parse("'lock.'+#name", null));
+        //不是方法参数,可能引用作用域中的bean
+        Assert.assertNull(LockNameExpression.Template.parse("'lock.'+#user.id", paramNames));
+        //包含方法调用或其他运算
+        Assert.assertNull(LockNameExpression.Template.parse("'lock.'+#name.toUpperCase()", paramNames));
+        Assert.assertNull(LockNameExpression.Template.parse("'lock.'+(#name)", paramNames));
+        Assert.assertNull(LockNameExpression.Template.parse("#form.name-1", paramNames));
+        Assert.assertNull(LockNameExpression.Template.parse("name", paramNames));
+        //引号不匹配或者空的部分
+        Assert.assertNull(LockNameExpression.Template.parse("'lock.+#name", paramNames));
+        Assert.assertNull(LockNameExpression.Template.parse("'lock.'++#name", paramNames));
+        Assert.assertNull(LockNameExpression.Template.parse("'lock.'+#name+", paramNames));
+        Assert.assertNull(LockNameExpression.Template.parse("'it''s'+#name", paramNames));
+        Assert.assertNull(LockNameExpression.Template.parse("#form.", paramNames));
+    }
+
+    @Test
+    public void testConstant() throws Throwable {
+        Assert.assertEquals("lock", LockNameExpression.constant("lock").getLockName(new Object[0]));
+    }
+}
@@ -73,7 +73,7 @@ public abstract class GenericController<PO, PK> {
      *
      * @param param 查询参数 {@link QueryParam}
      * @return 查询结果, 如果参数指定了分页(默认指定)将返回格式如:{total:数据总数,data:[{}]}的数据.
-     * 否则返回格式[{}]
+     * 否则返回格式[{}].指定了游标(cursor)时使用游标分页,返回格式如:{total:数据总数,data:[{}],nextCursor:下一页游标}
      */
     @RequestMapping(method = RequestMethod.GET)
     @AccessLogger("查询列表")
@@ -81,7 +81,7 @@ public abstract class GenericController<PO, PK> {
     public ResponseMessage list(QueryParam param) {
         // 获取条件查询
         Object data;
-        if (!param.isPaging())//不分页
+        if (!param.isPaging() && !param.isCursorPaging())//不分页
             data = getService().select(param);
         else
             data = getService().selectPager(param);
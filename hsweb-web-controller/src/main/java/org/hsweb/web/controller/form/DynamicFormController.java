@@ -16,9 +16,7 @@
 
 package org.hsweb.web.controller.form;
 
-import org.hsweb.ezorm.core.OptionConverter;
-import org.hsweb.ezorm.rdb.meta.RDBColumnMetaData;
-import org.hsweb.ezorm.rdb.meta.RDBTableMetaData;
+import org.hsweb.web.bean.common.DeleteParam;
 import org.hsweb.web.bean.common.QueryParam;
 import org.hsweb.web.bean.common.UpdateMapParam;
 import org.hsweb.web.bean.po.form.Form;
@@ -29,6 +27,7 @@ import org.hsweb.web.core.exception.NotFoundException;
 import org.hsweb.web.core.logger.annotation.AccessLogger;
 import org.hsweb.web.core.message.ResponseMessage;
 import org.hsweb.web.service.form.DynamicFormService;
+import org.hsweb.web.service.form.ExcelImportProgress;
 import org.hsweb.web.service.form.FormService;
 import org.hsweb.web.service.resource.FileService;
 import org.springframework.web.bind.annotation.*;
@@ -41,6 +40,7 @@ import java.io.InputStream;
 import java.net.URLEncoder;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -109,7 +109,8 @@ public class DynamicFormController {
      *
      * @param name  表单名称
      * @param param 查询参数{@link QueryParam}
-     * @return 如果查询参数指定不分页, 将返回格式:[{},{}...].如果指定分页,将返回:{total:数据总数,data:[{},{},...]}
+     * @return 如果查询参数指定不分页, 将返回格式:[{},{}...].如果指定分页,将返回:{total:数据总数,data:[{},{},...]}.
+     * 指定了游标(cursor)时使用游标分页,将返回:{total:数据总数,data:[{},{},...],nextCursor:下一页游标}
      * @throws SQLException      执行查询sql错误
      * @throws NotFoundException 表单不存在或在未发布
      */
@@ -120,7 +121,7 @@ public class DynamicFormController {
                                 QueryParam param) throws SQLException {
         // 获取条件查询
         Object data;
-        if (!param.isPaging())//不分页
+        if (!param.isPaging() && !param.isCursorPaging())//不分页
             data = dynamicFormService.select(name, param);
         else
             data = dynamicFormService.selectPager(name, param);
@@ -204,6 +205,65 @@ public class DynamicFormController {
         return ResponseMessage.ok(i);
     }
 
+    /**
+     * 批量新增或修改数据,包含主键的数据根据主键修改,其余数据存在重复数据时修改,否则新增
+     *
+     * @param name     表单名称
+     * @param dataList 数据
+     * @return 与数据一一对应的主键
+     * @throws SQLException                                      执行sql错误
+     * @throws NotFoundException                                 表单不存在或在未发布
+     * @throws org.hsweb.ezorm.rdb.exception.ValidationException 数据格式验证失败时抛出此异常
+     * @since 2.2
+     */
+    @RequestMapping(value = "/{name}/batch", method = RequestMethod.PATCH)
+    @AccessLogger("批量保存数据")
+    @Authorize(expression = "#dynamicFormAuthorizeValidator.validate(#name,#user,#paramsMap,'C')" +
+            "&&#dynamicFormAuthorizeValidator.validate(#name,#user,#paramsMap,'U')")
+    public ResponseMessage saveOrUpdateBatch(@PathVariable("name") String name,
+                                             @RequestBody List<Map<String, Object>> dataList) throws SQLException {
+        return ResponseMessage.ok(dynamicFormService.saveOrUpdateBatch(name, dataList));
+    }
+
+    /**
+     * 根据条件批量修改数据,如:{"data":{"status":1},"terms":[{"column":"type","value":"a"}]}
+     *
+     * @param name  表单名称
+     * @param param 修改的数据及条件,条件不能为空
+     * @return 修改的数据数量
+     * @throws SQLException      执行sql错误
+     * @throws NotFoundException 表单不存在或在未发布
+     * @since 2.2
+     */
+    @RequestMapping(value = "/{name}", method = RequestMethod.PUT)
+    @AccessLogger("根据条件修改数据")
+    @Authorize(expression = "#dynamicFormAuthorizeValidator.validate(#name,#user,#paramsMap,'U')")
+    public ResponseMessage updateByTerms(@PathVariable("name") String name,
+                                         @RequestBody UpdateMapParam param) throws SQLException {
+        if (param.getTerms().isEmpty()) throw new BusinessException("请指定修改条件");
+        if (param.getData() == null || ((Map) param.getData()).isEmpty()) throw new BusinessException("请指定修改的数据");
+        return ResponseMessage.ok(dynamicFormService.update(name, param));
+    }
+
+    /**
+     * 根据条件批量删除数据,条件格式同{@link QueryParam}
+     *
+     * @param name  表单名称
+     * @param param 删除条件,不能为空
+     * @return 删除的数据数量
+     * @throws SQLException      执行sql错误
+     * @throws NotFoundException 表单不存在或在未发布
+     * @since 2.2
+     */
+    @RequestMapping(value = "/{name}", method = RequestMethod.DELETE)
+    @AccessLogger("根据条件删除数据")
+    @Authorize(expression = "#dynamicFormAuthorizeValidator.validate(#name,#user,#paramsMap,'D')")
+    public ResponseMessage deleteByTerms(@PathVariable("name") String name,
+                                         DeleteParam param) throws SQLException {
+        if (param.getTerms().isEmpty()) throw new BusinessException("请指定删除条件");
+        return ResponseMessage.ok(dynamicFormService.delete(name, param));
+    }
+
     /**
      * 从指定名称的表单中根据主键值删除数据
      *
@@ -249,9 +309,10 @@ public class DynamicFormController {
      * 向指定名称的表单中导入excel数据.excel支持(xls,xlsx).
      * 如果某条数据导入失败,将不会回滚,而是记录错误原因.
      *
-     * @param name   表单名称
-     * @param fileId 文件id,通过{@link org.hsweb.web.controller.file.FileController#upload(MultipartFile[])} 上传后获得
-     *               使用,分割可实现同时导入多个文件
+     * @param name     表单名称
+     * @param fileId   文件id,通过{@link org.hsweb.web.controller.file.FileController#upload(MultipartFile[])} 上传后获得
+     *                 使用,分割可实现同时导入多个文件
+     * @param importId 导入id,由调用方生成,导入过程中可通过{@link #importProgress(String, String)}获取导入进度
      * @return 导入结果, 格式参照:{@link DynamicFormService#importExcel(String, InputStream)}
      * @throws IOException       读取excel文件错误
      * @throws BusinessException 解析excel文件错误
@@ -261,17 +322,38 @@ public class DynamicFormController {
     @AccessLogger("导入excel")
     @Authorize(expression = "#dynamicFormAuthorizeValidator.validate(#name,#user,#paramsMap,'import')")
     public ResponseMessage importExcel(@PathVariable("name") String name,
-                                       @PathVariable("fileId") String fileId) throws IOException {
+                                       @PathVariable("fileId") String fileId,
+                                       @RequestParam(value = "importId", required = false) String importId) throws IOException {
         String[] ids = fileId.split("[,]");
         Map<String, Object> result = new HashMap<>();
         for (int i = 0; i < ids.length; i++) {
             try (InputStream inputStream = fileService.readResources(ids[i])) {
-                result.put(ids[i], dynamicFormService.importExcel(name, inputStream));
+                result.put(ids[i], dynamicFormService.importExcel(name, inputStream, importId));
             }
         }
         return ResponseMessage.ok(result);
     }
 
+    /**
+     * 获取excel导入进度,同时导入多个文件时为当前正在导入的文件的进度
+     *
+     * @param name     表单名称
+     * @param importId 导入时指定的导入id
+     * @return 导入进度 {@link ExcelImportProgress}
+     * @throws NotFoundException 导入进度不存在或已过期
+     * @since 2.2
+     */
+    @RequestMapping(value = "/{name}/import/progress/{importId}", method = RequestMethod.GET)
+    @Authorize(expression = "#dynamicFormAuthorizeValidator.validate(#name,#user,#paramsMap,'import')")
+    public ResponseMessage importProgress(@PathVariable("name") String name,
+                                          @PathVariable("importId") String importId) {
+        ExcelImportProgress progress = dynamicFormService.getImportProgress(importId);
+        if (progress == null || !name.equals(progress.getFormName())) {
+            throw new NotFoundException("导入进度不存在");
+        }
+        return ResponseMessage.ok(progress);
+    }
+
     /**
      * 数据字典映射:将指定的数据映射为数据字典对应的数据。<br>
      * 如: 表单{name}的字段{field}的字典配置为 [{"男":"1"},{"女":"0"}];<br>
@@ -291,21 +373,7 @@ public class DynamicFormController {
                                         @PathVariable("field") String field,
                                         @PathVariable("data") String data,
                                         @PathVariable("type") String type) {
-        try {
-            RDBTableMetaData metaData = dynamicFormService.getDefaultDatabase().getTable(name).getMeta();
-            RDBColumnMetaData fieldMetaData = metaData.findColumn(field);
-            if (fieldMetaData == null) throw new NullPointerException();
-            OptionConverter converter = fieldMetaData.getOptionConverter();
-            if (converter == null) return ResponseMessage.ok(data);
-            switch (type) {
-                case "1":
-                    return ResponseMessage.ok(converter.converterData(data));
-                default:
-                    return ResponseMessage.ok(converter.converterValue(data));
-            }
-        } catch (NullPointerException e) {
-            throw new NotFoundException("字段不存在");
-        }
+        return ResponseMessage.ok(dynamicFormService.convertOption(name, field, data, "1".equals(type)));
     }
 
 }
@@ -25,9 +25,11 @@ import org.hsweb.web.core.exception.BusinessException;
 import org.hsweb.web.core.exception.NotFoundException;
 import org.hsweb.web.core.logger.annotation.AccessLogger;
 import org.hsweb.web.core.message.ResponseMessage;
+import org.hsweb.web.service.form.FormHtml;
 import org.hsweb.web.service.form.FormService;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.annotation.Resource;
 import java.sql.SQLException;
@@ -149,15 +151,17 @@ public class FormController extends GenericController<Form, String> {
     }
 
     /**
-     * 获取已经发布表单的html
+     * 获取已经发布表单的html,响应头中包含ETag,表单未重新发布时返回304
      *
      * @param name 表单名称
      * @return html内容
      * @throws NotFoundException 表单不存在
      */
     @RequestMapping(value = "/{name}/html", method = RequestMethod.GET)
-    public ResponseMessage html(@PathVariable("name") String name) {
-        return ok(formService.createDeployHtml(name));
+    public ResponseMessage html(@PathVariable("name") String name, WebRequest request) {
+        FormHtml html = formService.renderDeployHtml(name);
+        if (request.checkNotModified(html.getEtag())) return null;
+        return ok(html.getHtml());
     }
 
     /**
@@ -194,7 +198,9 @@ public class FormController extends GenericController<Form, String> {
      * @throws NotFoundException 表单不存在
      */
     @RequestMapping(value = "/{id}/view", method = RequestMethod.GET)
-    public ResponseMessage view(@PathVariable("id") String id) throws Exception {
-        return ok(formService.createViewHtml(id));
+    public ResponseMessage view(@PathVariable("id") String id, WebRequest request) throws Exception {
+        FormHtml html = formService.renderViewHtml(id);
+        if (request.checkNotModified(html.getEtag())) return null;
+        return ok(html.getHtml());
     }
 }
@@ -16,8 +16,8 @@
 
 package org.hsweb.web.controller.login;
 
-import org.apache.commons.beanutils.BeanUtilsBean;
 import org.hsweb.commons.MD5;
+import org.hsweb.web.bean.accessor.BeanAccessor;
 import org.hsweb.web.bean.po.user.User;
 import org.hsweb.web.core.authorize.annotation.Authorize;
 import org.hsweb.web.core.exception.AuthorizeForbiddenException;
@@ -185,9 +185,7 @@ public class AuthorizeController {
             userService.initAdminUser(user);
         else
             user.initRoleInfo();
-        User newUser = new User();
-        BeanUtilsBean.getInstance().getPropertyUtils()
-                .copyProperties(newUser, user);
+        User newUser = BeanAccessor.of(User.class).copy(user, new User());
         httpSessionManager.addUser(newUser, request.getSession());
         return ResponseMessage.ok();
     }
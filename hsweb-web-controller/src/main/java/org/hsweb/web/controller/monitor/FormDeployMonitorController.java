@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.controller.monitor;
+
+import org.hsweb.web.core.authorize.annotation.Authorize;
+import org.hsweb.web.core.exception.NotFoundException;
+import org.hsweb.web.core.logger.annotation.AccessLogger;
+import org.hsweb.web.core.message.ResponseMessage;
+import org.hsweb.web.service.form.FormDeployMonitor;
+import org.hsweb.web.service.form.FormDeployStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 表单发布监控控制器,查看集群中各节点加载已发布表单的延迟
+ *
+ * @author zhouhao
+ * @see FormDeployMonitor
+ * @since 2.2
+ */
+@RestController
+@RequestMapping("/monitor")
+@Authorize(module = "monitor-form-deploy")
+@AccessLogger("表单发布监控")
+public class FormDeployMonitorController {
+
+    @Autowired(required = false)
+    private FormDeployMonitor formDeployMonitor;
+
+    /**
+     * 获取各节点的表单发布状态,包含每个表单加载的版本,延迟(lag,毫秒)和失败原因
+     *
+     * @return 发布状态, 格式:{node:当前节点id,status:{节点id:[状态]}}
+     */
+    @RequestMapping(value = "/form-deploy", method = RequestMethod.GET)
+    @AccessLogger("获取表单发布状态")
+    public ResponseMessage getStatus() {
+        if (formDeployMonitor == null) throw new NotFoundException("未启用表单发布监控");
+        Map<String, List<FormDeployStatus>> status = formDeployMonitor.getStatus();
+        Map<String, Object> result = new HashMap<>();
+        result.put("node", formDeployMonitor.getNodeId());
+        result.put("status", status);
+        return ResponseMessage.ok(result);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.controller.monitor;
+
+import org.hsweb.web.core.authorize.annotation.Authorize;
+import org.hsweb.web.core.exception.NotFoundException;
+import org.hsweb.web.core.logger.annotation.AccessLogger;
+import org.hsweb.web.core.message.ResponseMessage;
+import org.hsweb.web.service.form.FormQueryMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 动态表单查询监控控制器,查看表单查询条件中字段的使用情况及缺失的索引建议
+ *
+ * @author zhouhao
+ * @see FormQueryMonitor
+ * @since 2.2
+ */
+@RestController
+@RequestMapping("/monitor")
+@Authorize(module = "monitor-form-query")
+@AccessLogger("表单查询监控")
+public class FormQueryMonitorController {
+
+    @Autowired(required = false)
+    private FormQueryMonitor formQueryMonitor;
+
+    /**
+     * 获取查询条件中各字段的使用次数
+     *
+     * @return 统计, 格式:{表单名称:{*:查询总数,字段名称:使用次数}}
+     */
+    @RequestMapping(value = "/form-query", method = RequestMethod.GET)
+    @AccessLogger("获取表单查询统计")
+    public ResponseMessage getTermStats() {
+        return ResponseMessage.ok(getMonitor().getTermStats());
+    }
+
+    /**
+     * 获取缺失的索引建议,可根据建议在表单中声明索引
+     *
+     * @return 索引建议
+     */
+    @RequestMapping(value = "/form-query/index-suggestions", method = RequestMethod.GET)
+    @AccessLogger("获取表单索引建议")
+    public ResponseMessage getIndexSuggestions() {
+        return ResponseMessage.ok(getMonitor().getIndexSuggestions());
+    }
+
+    @RequestMapping(value = "/form-query", method = RequestMethod.DELETE)
+    @Authorize(action = "D")
+    @AccessLogger("清空表单查询统计")
+    public ResponseMessage reset() {
+        getMonitor().reset();
+        return ResponseMessage.ok();
+    }
+
+    protected FormQueryMonitor getMonitor() {
+        if (formQueryMonitor == null) throw new NotFoundException("未启用表单查询监控");
+        return formQueryMonitor;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.controller.monitor;
+
+import org.hsweb.web.core.authorize.annotation.Authorize;
+import org.hsweb.web.core.exception.NotFoundException;
+import org.hsweb.web.core.logger.annotation.AccessLogger;
+import org.hsweb.web.core.message.ResponseMessage;
+import org.hsweb.web.core.monitor.sql.SqlProfiler;
+import org.hsweb.web.core.monitor.sql.SqlStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * sql监控控制器,查看sql执行统计
+ *
+ * @author zhouhao
+ * @see SqlProfiler
+ * @since 2.2
+ */
+@RestController
+@RequestMapping("/monitor")
+@Authorize(module = "monitor-sql")
+@AccessLogger("sql监控")
+public class SqlMonitorController {
+
+    @Autowired
+    private SqlProfiler sqlProfiler;
+
+    /**
+     * 获取所有语句的统计,不包含耗时最长的sql
+     *
+     * @param sort  排序字段:total(总耗时),avg,p99,max,count
+     * @param limit 返回的数量
+     * @return 语句统计
+     */
+    @RequestMapping(value = "/sql", method = RequestMethod.GET)
+    @AccessLogger("获取sql统计")
+    public ResponseMessage getStatistics(@RequestParam(value = "sort", defaultValue = "total") String sort,
+                                         @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<SqlStatistics> statistics = sqlProfiler.getStatistics().stream()
+                .sorted(getComparator(sort).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+        return ResponseMessage.ok(statistics).exclude(SqlStatistics.class, "slowest");
+    }
+
+    /**
+     * 获取语句的统计,包含耗时最长的sql
+     *
+     * @param id 语句id,如mapper语句:org.hsweb.web.dao.user.UserMapper.select
+     * @return 语句统计
+     */
+    @RequestMapping(value = "/sql/statement", method = RequestMethod.GET)
+    @AccessLogger("获取语句统计")
+    public ResponseMessage getStatement(@RequestParam("id") String id) {
+        SqlStatistics statistics = sqlProfiler.getStatistics(id);
+        if (statistics == null) throw new NotFoundException("语句[" + id + "]没有统计信息");
+        return ResponseMessage.ok(statistics);
+    }
+
+    @RequestMapping(value = "/sql", method = RequestMethod.DELETE)
+    @Authorize(action = "D")
+    @AccessLogger("清空sql统计")
+    public ResponseMessage reset() {
+        sqlProfiler.reset();
+        return ResponseMessage.ok();
+    }
+
+    protected Comparator<SqlStatistics> getComparator(String sort) {
+        switch (sort) {
+            case "avg":
+                return Comparator.comparingDouble(SqlStatistics::getAvgMillis);
+            case "p99":
+                return Comparator.comparingDouble(SqlStatistics::getP99Millis);
+            case "max":
+                return Comparator.comparingDouble(SqlStatistics::getMaxMillis);
+            case "count":
+                return Comparator.comparingLong(SqlStatistics::getCount);
+            default:
+                return Comparator.comparingDouble(SqlStatistics::getTotalMillis);
+        }
+    }
+}
@@ -49,6 +49,13 @@ public class DataSourceHolder {
         return defaultDataSource;
     }
 
+    public static DataSource getActivePrimarySource() {
+        if (dynamicDataSource != null) {
+            return dynamicDataSource.getActivePrimaryDataSource();
+        }
+        return defaultDataSource;
+    }
+
     public static String getActiveSourceId() {
         if (DynamicDataSource.getActiveDataSourceId() != null) {
             return DynamicDataSource.getActiveDataSourceId();
@@ -55,6 +55,16 @@ public enum DatabaseType {
         return dialect;
     }
 
+    /**
+     * 升序排序时null值是否排在最前,mysql,h2将null视为最小值,oracle将null视为最大值
+     *
+     * @return 是否排在最前
+     * @since 2.2
+     */
+    public boolean isNullsFirst() {
+        return this != oracle;
+    }
+
     public static DatabaseType fromJdbcUrl(String url) {
         if (StringUtils.hasLength(url)) {
             Assert.isTrue(url.startsWith("jdbc"), "URL must start with 'jdbc'");
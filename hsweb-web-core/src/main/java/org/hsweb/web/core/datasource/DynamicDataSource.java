@@ -82,6 +82,16 @@ public interface DynamicDataSource extends DataSource {
      */
     DataSource getActiveDataSource();
 
+    /**
+     * 获取当前激活的主库数据源,配置了从库时{@link this#getActiveDataSource()}可能返回从库
+     *
+     * @return 主库数据源
+     * @see ReplicaRouting
+     */
+    default DataSource getActivePrimaryDataSource() {
+        return getActiveDataSource();
+    }
+
     /**
      * 获取当前激活数据源的数据库类型
      *
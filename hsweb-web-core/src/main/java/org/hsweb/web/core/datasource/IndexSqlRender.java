@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.datasource;
+
+import org.hsweb.ezorm.rdb.render.dialect.Dialect;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 索引ddl渲染器,用于创建和删除动态表单声明的索引
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class IndexSqlRender {
+
+    public static boolean isSupport(DatabaseType databaseType) {
+        return databaseType == DatabaseType.mysql
+                || databaseType == DatabaseType.h2
+                || databaseType == DatabaseType.oracle;
+    }
+
+    /**
+     * 渲染创建索引的sql
+     *
+     * @param databaseType 数据库类型
+     * @param tableName    表名
+     * @param indexName    索引名称
+     * @param columns      索引字段
+     * @param unique       是否唯一索引
+     * @return sql语句
+     */
+    public static String renderCreate(DatabaseType databaseType, String tableName, String indexName, List<String> columns, boolean unique) {
+        checkSupport(databaseType);
+        checkName(tableName);
+        checkName(indexName);
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("索引[" + indexName + "]未指定字段");
+        }
+        StringJoiner joiner = new StringJoiner(",", "(", ")");
+        for (String column : columns) {
+            checkName(column);
+            joiner.add(encode(databaseType, column));
+        }
+        return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + indexName + " ON " + tableName + " " + joiner;
+    }
+
+    /**
+     * 渲染删除索引的sql
+     *
+     * @param databaseType 数据库类型
+     * @param tableName    表名
+     * @param indexName    索引名称
+     * @return sql语句
+     */
+    public static String renderDrop(DatabaseType databaseType, String tableName, String indexName) {
+        checkSupport(databaseType);
+        checkName(tableName);
+        checkName(indexName);
+        if (databaseType == DatabaseType.mysql) {
+            return "DROP INDEX " + indexName + " ON " + tableName;
+        }
+        return "DROP INDEX " + indexName;
+    }
+
+    private static void checkSupport(DatabaseType databaseType) {
+        if (!isSupport(databaseType)) {
+            throw new UnsupportedOperationException("不支持的数据库类型:" + databaseType);
+        }
+    }
+
+    private static void checkName(String name) {
+        if (name == null || !name.matches("[\\w$]+")) {
+            throw new IllegalArgumentException("不合法的名称:" + name);
+        }
+    }
+
+    private static String encode(DatabaseType databaseType, String column) {
+        Dialect dialect = databaseType.getDialect();
+        return dialect.getQuoteStart() + (dialect.columnToUpperCase() ? column.toUpperCase() : column) + dialect.getQuoteEnd();
+    }
+}
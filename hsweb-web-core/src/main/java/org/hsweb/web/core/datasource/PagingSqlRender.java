@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.datasource;
+
+/**
+ * 按偏移量分页的sql渲染器.方言的分页只支持页码和每页数量,偏移量必须是每页数量的整数倍,
+ * 需要多查询一条数据判断是否存在下一页时(偏移量为 页码*每页数量,查询 每页数量+1 条),使用此渲染器
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class PagingSqlRender {
+
+    public static boolean isSupport(DatabaseType databaseType) {
+        return databaseType == DatabaseType.mysql
+                || databaseType == DatabaseType.h2
+                || databaseType == DatabaseType.oracle;
+    }
+
+    /**
+     * 渲染分页sql
+     *
+     * @param databaseType 数据库类型
+     * @param sql          查询sql
+     * @param offset       偏移量
+     * @param limit        查询的数据条数
+     * @return 分页sql
+     */
+    public static String render(DatabaseType databaseType, String sql, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("不合法的分页参数:offset=" + offset + ",limit=" + limit);
+        }
+        if (databaseType == null) throw new UnsupportedOperationException("不支持的数据库类型:null");
+        switch (databaseType) {
+            case mysql:
+                return sql + " limit " + offset + "," + limit;
+            case h2:
+                return sql + " limit " + limit + " offset " + offset;
+            case oracle:
+                return "select * from (select row_.*, rownum rownum_ from (" + sql + ") row_ where rownum <= "
+                        + (offset + limit) + ") where rownum_ > " + offset;
+            default:
+                throw new UnsupportedOperationException("不支持的数据库类型:" + databaseType);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.datasource;
+
+import java.lang.annotation.*;
+
+/**
+ * 指定方法内的查询可以容忍的从库延迟,在配置了从库(读写分离)时生效.
+ * 延迟超过此值的从库不会被使用,没有可用从库时使用主库.
+ * <pre>
+ *     &#64;ReplicaLagTolerance(0) //必须读取主库,如:修改后立即查询
+ *     public User selectByPk(String id)
+ * </pre>
+ *
+ * @author zhouhao
+ * @see ReplicaRouting
+ * @since 2.2
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaLagTolerance {
+    /**
+     * @return 可容忍的延迟(秒), 为0时只读取主库
+     */
+    long value();
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.datasource;
+
+import org.hsweb.web.core.utils.ThreadLocalUtils;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 读写分离路由状态.由sql执行层(如mybatis拦截器)标记当前执行的语句是查询还是修改,
+ * 动态数据源根据此状态决定使用主库还是从库:
+ * <ul>
+ * <li>修改语句始终使用主库</li>
+ * <li>在事务中:只读事务且事务中未执行过修改时,查询使用从库,否则使用主库</li>
+ * <li>不在事务中:查询使用从库</li>
+ * <li>通过{@link ReplicaLagTolerance}指定可容忍延迟为0时使用主库</li>
+ * </ul>
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public final class ReplicaRouting {
+
+    private static final String STATEMENT_KEY = "replica-routing-statement";
+
+    private static final String LAG_TOLERANCE_KEY = "replica-routing-lag-tolerance";
+
+    //绑定到事务资源,标识事务中已执行过修改
+    private static final Object WRITTEN_RESOURCE = ReplicaRouting.class.getName() + ".written";
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * 标记当前执行的语句类型
+     *
+     * @param read true:查询,false:修改,null:未知
+     * @return 之前的标记, 用于语句执行完成后恢复
+     */
+    public static Boolean markStatement(Boolean read) {
+        Boolean old = ThreadLocalUtils.get(STATEMENT_KEY);
+        if (read == null) ThreadLocalUtils.remove(STATEMENT_KEY);
+        else ThreadLocalUtils.put(STATEMENT_KEY, read);
+        if (Boolean.FALSE.equals(read)) markWritten();
+        return old;
+    }
+
+    /**
+     * 设置当前可容忍的从库延迟
+     *
+     * @param seconds 延迟(秒),为null时使用默认配置
+     * @return 之前的设置, 用于恢复
+     */
+    public static Long setLagTolerance(Long seconds) {
+        Long old = ThreadLocalUtils.get(LAG_TOLERANCE_KEY);
+        if (seconds == null) ThreadLocalUtils.remove(LAG_TOLERANCE_KEY);
+        else ThreadLocalUtils.put(LAG_TOLERANCE_KEY, seconds);
+        return old;
+    }
+
+    /**
+     * @return 当前可容忍的从库延迟(秒), 未设置时返回null
+     */
+    public static Long getLagTolerance() {
+        return ThreadLocalUtils.get(LAG_TOLERANCE_KEY);
+    }
+
+    /**
+     * 判断当前操作是否可以使用从库
+     *
+     * @return 是否可以使用从库
+     */
+    public static boolean isReplicaAllowed() {
+        Long lagTolerance = getLagTolerance();
+        if (lagTolerance != null && lagTolerance <= 0) return false;
+        Boolean read = ThreadLocalUtils.get(STATEMENT_KEY);
+        if (Boolean.FALSE.equals(read)) return false;
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    && !TransactionSynchronizationManager.hasResource(WRITTEN_RESOURCE);
+        }
+        return Boolean.TRUE.equals(read);
+    }
+
+    /**
+     * 标记当前事务中已执行过修改,事务结束前的查询都将使用主库
+     */
+    public static void markWritten() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITTEN_RESOURCE)) return;
+        TransactionSynchronizationManager.bindResource(WRITTEN_RESOURCE, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITTEN_RESOURCE);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(WRITTEN_RESOURCE, Boolean.TRUE);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITTEN_RESOURCE);
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.datasource;
+
+/**
+ * 根据数据库的统计信息估算表的数据总数,用于代替大表上代价较高的count查询.
+ * 估算值来自数据库维护的统计信息,可能与实际数量存在偏差,且无法根据查询条件估算
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class RowCountEstimateSqlRender {
+
+    public static boolean isSupport(DatabaseType databaseType) {
+        return databaseType == DatabaseType.mysql
+                || databaseType == DatabaseType.h2
+                || databaseType == DatabaseType.oracle;
+    }
+
+    /**
+     * 渲染估算数据总数的sql,查询结果为一行一列,列名为total
+     *
+     * @param databaseType 数据库类型
+     * @param tableName    表名
+     * @return sql语句
+     */
+    public static String render(DatabaseType databaseType, String tableName) {
+        if (!tableName.matches("[\\w$]+")) {
+            throw new IllegalArgumentException("不合法的表名:" + tableName);
+        }
+        switch (databaseType) {
+            case mysql:
+                return "select coalesce(max(table_rows),0) as total from information_schema.tables " +
+                        "where table_schema=database() and lower(table_name)=lower('" + tableName + "')";
+            case h2:
+                return "select coalesce(max(row_count_estimate),0) as total from information_schema.tables " +
+                        "where table_schema=schema() and table_name=upper('" + tableName + "')";
+            case oracle:
+                return "select coalesce(max(num_rows),0) as total from user_tables " +
+                        "where table_name=upper('" + tableName + "')";
+            default:
+                throw new UnsupportedOperationException("不支持的数据库类型:" + databaseType);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.datasource;
+
+import org.hsweb.ezorm.rdb.render.dialect.Dialect;
+
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * upsert(根据主键,存在则修改,不存在则新增)语句渲染器,根据数据库类型生成一条原子的sql:
+ * <ul>
+ * <li>mysql: INSERT INTO ... VALUES (...) ON DUPLICATE KEY UPDATE ...</li>
+ * <li>h2: MERGE INTO ... KEY(主键) VALUES (...)</li>
+ * <li>oracle: MERGE INTO ... USING (SELECT ... FROM DUAL) ... WHEN MATCHED THEN UPDATE ... WHEN NOT MATCHED THEN INSERT ...</li>
+ * </ul>
+ * 参数占位符由调用者提供,因此mybatis和easy-orm均可使用.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class UpsertSqlRender {
+
+    private final DatabaseType databaseType;
+
+    public UpsertSqlRender(DatabaseType databaseType) {
+        if (!isSupport(databaseType)) {
+            throw new UnsupportedOperationException("不支持的数据库类型:" + databaseType);
+        }
+        this.databaseType = databaseType;
+    }
+
+    public static boolean isSupport(DatabaseType databaseType) {
+        return databaseType == DatabaseType.mysql
+                || databaseType == DatabaseType.h2
+                || databaseType == DatabaseType.oracle;
+    }
+
+    public DatabaseType getDatabaseType() {
+        return databaseType;
+    }
+
+    /**
+     * 渲染upsert语句
+     *
+     * @param tableName   表名
+     * @param columns     要写入的字段名称,必须包含主键
+     * @param primaryKey  主键字段名称
+     * @param paramGetter 根据字段名称获取参数占位符,如: #{data.name}
+     * @return sql语句
+     */
+    public String render(String tableName, List<String> columns, String primaryKey, Function<String, String> paramGetter) {
+        if (!columns.contains(primaryKey)) {
+            throw new IllegalArgumentException("upsert的字段必须包含主键:" + primaryKey);
+        }
+        switch (databaseType) {
+            case mysql:
+                return renderMysql(tableName, columns, primaryKey, paramGetter);
+            case h2:
+                return renderH2(tableName, columns, primaryKey, paramGetter);
+            default:
+                return renderOracle(tableName, columns, primaryKey, paramGetter);
+        }
+    }
+
+    protected String renderMysql(String tableName, List<String> columns, String primaryKey, Function<String, String> paramGetter) {
+        StringJoiner names = new StringJoiner(",", "(", ")");
+        StringJoiner values = new StringJoiner(",", "(", ")");
+        StringJoiner updates = new StringJoiner(",");
+        for (String column : columns) {
+            String name = encode(column);
+            names.add(name);
+            values.add(paramGetter.apply(column));
+            if (!column.equals(primaryKey)) updates.add(name + "=VALUES(" + name + ")");
+        }
+        //只有主键时,数据存在则不做任何修改
+        if (updates.length() == 0) updates.add(encode(primaryKey) + "=" + encode(primaryKey));
+        return "INSERT INTO " + tableName + " " + names + " VALUES " + values + " ON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    protected String renderH2(String tableName, List<String> columns, String primaryKey, Function<String, String> paramGetter) {
+        StringJoiner names = new StringJoiner(",", "(", ")");
+        StringJoiner values = new StringJoiner(",", "(", ")");
+        for (String column : columns) {
+            names.add(encode(column));
+            values.add(paramGetter.apply(column));
+        }
+        return "MERGE INTO " + tableName + " " + names + " KEY(" + encode(primaryKey) + ") VALUES " + values;
+    }
+
+    protected String renderOracle(String tableName, List<String> columns, String primaryKey, Function<String, String> paramGetter) {
+        StringJoiner source = new StringJoiner(",");
+        StringJoiner updates = new StringJoiner(",");
+        StringJoiner names = new StringJoiner(",", "(", ")");
+        StringJoiner values = new StringJoiner(",", "(", ")");
+        for (String column : columns) {
+            String name = encode(column);
+            source.add(paramGetter.apply(column) + " AS " + name);
+            names.add(name);
+            values.add("src_." + name);
+            if (!column.equals(primaryKey)) updates.add("dest_." + name + "=src_." + name);
+        }
+        String pk = encode(primaryKey);
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(tableName).append(" dest_ USING (SELECT ")
+                .append(source).append(" FROM DUAL) src_ ON (dest_.").append(pk).append("=src_.").append(pk).append(")");
+        if (updates.length() > 0) sql.append(" WHEN MATCHED THEN UPDATE SET ").append(updates);
+        return sql.append(" WHEN NOT MATCHED THEN INSERT ").append(names).append(" VALUES ").append(values).toString();
+    }
+
+    protected String encode(String column) {
+        Dialect dialect = databaseType.getDialect();
+        return dialect.getQuoteStart() + (dialect.columnToUpperCase() ? column.toUpperCase() : column) + dialect.getQuoteEnd();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.monitor.sql;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 耗时直方图,参考HdrHistogram的对数线性分桶:每个2的幂区间划分为32个子桶,记录值的相对误差不超过约3%.
+ * 记录时只进行一次原子自增,无锁,可被多个线程同时记录.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    //小于此值的记录值每个值一个桶
+    private static final int LINEAR_COUNT = SUB_BUCKET_COUNT << 1;
+
+    //最大支持约2^41的记录值,超过时记录到最后一个桶
+    private static final int EXPONENT_COUNT = 36;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR_COUNT + EXPONENT_COUNT * SUB_BUCKET_COUNT);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值
+     *
+     * @param value 值,如耗时(微秒)
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) ;
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * 获取百分位数
+     *
+     * @param percentile 百分位,如:99
+     * @return 百分位对应的值, 没有记录时返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+            if (count >= target) return Math.min(highestEquivalentValue(i), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        max.set(0);
+    }
+
+    int indexOf(long value) {
+        if (value < LINEAR_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int index = LINEAR_COUNT + (exponent - 1) * SUB_BUCKET_COUNT + (int) ((value >>> exponent) - SUB_BUCKET_COUNT);
+        return Math.min(index, counts.length() - 1);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < LINEAR_COUNT) return index;
+        int exponent = (index - LINEAR_COUNT) / SUB_BUCKET_COUNT + 1;
+        long mantissa = (index - LINEAR_COUNT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((mantissa + 1) << exponent) - 1;
+    }
+}
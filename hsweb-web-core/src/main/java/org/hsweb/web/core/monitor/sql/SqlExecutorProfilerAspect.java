@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.monitor.sql;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hsweb.ezorm.rdb.executor.SQL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * 统计通过{@link org.hsweb.ezorm.rdb.executor.SqlExecutor}执行的sql,如动态表单通过RDBDatabase执行的查询.
+ * 这些sql没有语句id,以格式化后的sql作为统计的id.
+ *
+ * @author zhouhao
+ * @see SqlProfiler
+ * @since 2.2
+ */
+@Aspect
+@Component
+public class SqlExecutorProfilerAspect {
+
+    private static final String ID_PREFIX = "SqlExecutor:";
+
+    @Autowired
+    private SqlProfiler sqlProfiler;
+
+    @Around("execution(* org.hsweb.ezorm.rdb.executor.SqlExecutor.*(..))")
+    public Object profile(ProceedingJoinPoint pjp) throws Throwable {
+        Object[] args = pjp.getArgs();
+        if (!sqlProfiler.isEnabled() || args.length == 0) return pjp.proceed();
+        String sql;
+        if (args[0] instanceof SQL) sql = ((SQL) args[0]).getSql();
+        else if (args[0] instanceof String) sql = (String) args[0];
+        else return pjp.proceed();
+        Object result = null;
+        Throwable error = null;
+        long start = System.nanoTime();
+        try {
+            result = pjp.proceed();
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            long rows = -1;
+            if (result instanceof Collection) rows = ((Collection) result).size();
+            else if (result instanceof Number) rows = ((Number) result).longValue();
+            else if (result != null) rows = 1;
+            SqlProfiler.NormalizedSql normalized = SqlProfiler.normalize(sql);
+            sqlProfiler.record(ID_PREFIX.concat(normalized.getSql()), sql, normalized.getBinds(), nanos, rows, error);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.monitor.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sql执行分析器,按语句统计执行次数,耗时分布(p50,p90,p99,max),行数以及耗时最长的sql,
+ * 并记录超过阈值的慢查询日志.mybatis的语句以mapper语句id统计,通过SqlExecutor执行的sql(如动态表单)以格式化后的sql统计.
+ * 可通过 hsweb.sql-profiler 进行配置:
+ * <pre>
+ *     hsweb.sql-profiler.enabled=true
+ *     hsweb.sql-profiler.slow-threshold=1000
+ * </pre>
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+@Component
+@ConfigurationProperties(prefix = "hsweb.sql-profiler")
+public class SqlProfiler {
+
+    /**
+     * 统计的语句数量超过上限后,新的语句统计到此id中
+     */
+    public static final String OTHER_STATEMENT_ID = "other";
+
+    private static final Logger logger = LoggerFactory.getLogger("org.hsweb.web.sql.slow");
+
+    private final ConcurrentMap<String, SqlStatistics> statistics = new ConcurrentHashMap<>();
+
+    private boolean enabled = true;
+
+    //慢查询阈值(毫秒)
+    private long slowThreshold = 1000;
+
+    //每个语句保留的耗时最长的sql数量
+    private int slowestSize = 10;
+
+    //最多统计的语句数量
+    private int maxStatements = 2000;
+
+    /**
+     * 记录一次sql执行
+     *
+     * @param id    语句id
+     * @param sql   执行的sql
+     * @param binds 绑定参数数量,小于0时根据sql计算
+     * @param nanos 耗时(纳秒)
+     * @param rows  返回或者影响的行数,小于0表示未知
+     * @param error 执行失败时的异常
+     */
+    public void record(String id, String sql, int binds, long nanos, long rows, Throwable error) {
+        if (!enabled) return;
+        SqlStatistics sqlStatistics = statistics.get(id);
+        if (sqlStatistics == null) {
+            if (statistics.size() >= maxStatements) id = OTHER_STATEMENT_ID;
+            sqlStatistics = statistics.computeIfAbsent(id, key -> new SqlStatistics(key, slowestSize));
+        }
+        sqlStatistics.record(sql, binds, nanos, rows, error != null);
+        if (slowThreshold >= 0 && TimeUnit.NANOSECONDS.toMillis(nanos) >= slowThreshold) {
+            logger.warn("慢查询[{}]耗时{}ms,行数:{},sql:{}", id, TimeUnit.NANOSECONDS.toMillis(nanos), rows, sql);
+        }
+    }
+
+    /**
+     * @return 所有语句的统计, 按总耗时倒序
+     */
+    public List<SqlStatistics> getStatistics() {
+        List<SqlStatistics> list = new ArrayList<>(statistics.values());
+        list.sort(Comparator.comparingDouble(SqlStatistics::getTotalMillis).reversed());
+        return list;
+    }
+
+    public SqlStatistics getStatistics(String id) {
+        return statistics.get(id);
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(long slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public int getSlowestSize() {
+        return slowestSize;
+    }
+
+    public void setSlowestSize(int slowestSize) {
+        this.slowestSize = slowestSize;
+    }
+
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    public void setMaxStatements(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * 格式化sql:合并空白字符,将字符串,数字常量以及#{param}参数替换为?,用于合并相同结构的sql
+     *
+     * @param sql sql
+     * @return 格式化后的sql以及绑定参数(?和#{param})数量
+     */
+    public static NormalizedSql normalize(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        int binds = 0;
+        int length = sql.length();
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i + 1 < length && Character.isWhitespace(sql.charAt(i + 1))) i++;
+                if (builder.length() > 0) builder.append(' ');
+            } else if (c == '\'') {
+                //字符串常量,''为转义
+                while (++i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') i++;
+                        else break;
+                    }
+                }
+                builder.append('?');
+            } else if ((c == '#' || c == '$') && i + 1 < length && sql.charAt(i + 1) == '{') {
+                int end = sql.indexOf('}', i);
+                if (end < 0) end = length - 1;
+                i = end;
+                builder.append('?');
+                binds++;
+            } else if (c == '?') {
+                builder.append('?');
+                binds++;
+            } else if (Character.isDigit(c) && (i == 0 || !Character.isJavaIdentifierPart(sql.charAt(i - 1)))) {
+                while (i + 1 < length && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) i++;
+                builder.append('?');
+            } else {
+                builder.append(c);
+            }
+        }
+        int end = builder.length();
+        while (end > 0 && builder.charAt(end - 1) == ' ') end--;
+        builder.setLength(end);
+        return new NormalizedSql(builder.toString(), binds);
+    }
+
+    public static class NormalizedSql {
+        final String sql;
+
+        final int binds;
+
+        NormalizedSql(String sql, int binds) {
+            this.sql = sql;
+            this.binds = binds;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public int getBinds() {
+            return binds;
+        }
+    }
+}
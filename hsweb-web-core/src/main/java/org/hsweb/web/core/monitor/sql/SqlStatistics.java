@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.monitor.sql;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个sql语句(如mapper中的语句)的执行统计
+ *
+ * @author zhouhao
+ * @see SqlProfiler
+ * @since 2.2
+ */
+public class SqlStatistics {
+
+    private final String id;
+
+    private final int slowestSize;
+
+    private final LongAdder errorCount = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAdder rows = new LongAdder();
+
+    //耗时(微秒)
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    //耗时最长的sql,按耗时倒序
+    private final LinkedList<SlowSql> slowest = new LinkedList<>();
+
+    //进入slowest所需的最小耗时,避免每次记录都加锁
+    private volatile long slowestThreshold = 0;
+
+    public SqlStatistics(String id, int slowestSize) {
+        this.id = id;
+        this.slowestSize = slowestSize;
+    }
+
+    /**
+     * 记录一次执行
+     *
+     * @param sql   执行的sql
+     * @param binds 绑定参数数量,小于0时根据sql计算
+     * @param nanos 耗时(纳秒)
+     * @param rows  返回或者影响的行数,小于0表示未知
+     * @param error 是否执行失败
+     */
+    public void record(String sql, int binds, long nanos, long rows, boolean error) {
+        histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        totalNanos.add(nanos);
+        if (rows > 0) this.rows.add(rows);
+        if (error) errorCount.increment();
+        if (nanos > slowestThreshold && sql != null && slowestSize > 0) {
+            SqlProfiler.NormalizedSql normalized = SqlProfiler.normalize(sql);
+            addSlowest(new SlowSql(normalized.sql, binds < 0 ? normalized.binds : binds, nanos, rows));
+        }
+    }
+
+    private synchronized void addSlowest(SlowSql slowSql) {
+        if (slowest.size() >= slowestSize && slowSql.nanos <= slowest.getLast().nanos) return;
+        //同一sql只保留耗时最长的一次
+        for (Iterator<SlowSql> iterator = slowest.iterator(); iterator.hasNext(); ) {
+            SlowSql old = iterator.next();
+            if (old.sql.equals(slowSql.sql)) {
+                if (old.nanos >= slowSql.nanos) return;
+                iterator.remove();
+                break;
+            }
+        }
+        ListIterator<SlowSql> iterator = slowest.listIterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().nanos < slowSql.nanos) {
+                iterator.previous();
+                break;
+            }
+        }
+        iterator.add(slowSql);
+        while (slowest.size() > slowestSize) slowest.removeLast();
+        if (slowest.size() >= slowestSize) slowestThreshold = slowest.getLast().nanos;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public double getTotalMillis() {
+        return totalNanos.sum() / 1000_000D;
+    }
+
+    public double getAvgMillis() {
+        long count = getCount();
+        return count == 0 ? 0 : getTotalMillis() / count;
+    }
+
+    public double getP50Millis() {
+        return histogram.getValueAtPercentile(50) / 1000D;
+    }
+
+    public double getP90Millis() {
+        return histogram.getValueAtPercentile(90) / 1000D;
+    }
+
+    public double getP99Millis() {
+        return histogram.getValueAtPercentile(99) / 1000D;
+    }
+
+    public double getMaxMillis() {
+        return histogram.getMax() / 1000D;
+    }
+
+    /**
+     * @return 耗时最长的sql, 已格式化(参数替换为?)
+     */
+    public synchronized List<SlowSql> getSlowest() {
+        return new ArrayList<>(slowest);
+    }
+
+    public synchronized void reset() {
+        histogram.reset();
+        errorCount.reset();
+        totalNanos.reset();
+        rows.reset();
+        slowest.clear();
+        slowestThreshold = 0;
+    }
+
+    public static class SlowSql {
+        private final String sql;
+
+        private final int binds;
+
+        private final long nanos;
+
+        private final long rows;
+
+        private final Date time = new Date();
+
+        public SlowSql(String sql, int binds, long nanos, long rows) {
+            this.sql = sql;
+            this.binds = binds;
+            this.nanos = nanos;
+            this.rows = rows;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public int getBinds() {
+            return binds;
+        }
+
+        public double getMillis() {
+            return nanos / 1000_000D;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public Date getTime() {
+            return time;
+        }
+    }
+}
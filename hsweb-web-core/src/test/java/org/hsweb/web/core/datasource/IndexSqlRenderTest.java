@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.datasource;
+
+import org.hsweb.ezorm.rdb.render.dialect.Dialect;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author zhouhao
+ */
+public class IndexSqlRenderTest {
+
+    private String quote(DatabaseType databaseType, String column) {
+        Dialect dialect = databaseType.getDialect();
+        return dialect.getQuoteStart() + (dialect.columnToUpperCase() ? column.toUpperCase() : column) + dialect.getQuoteEnd();
+    }
+
+    @Test
+    public void testIsSupport() {
+        Assert.assertTrue(IndexSqlRender.isSupport(DatabaseType.mysql));
+        Assert.assertTrue(IndexSqlRender.isSupport(DatabaseType.h2));
+        Assert.assertTrue(IndexSqlRender.isSupport(DatabaseType.oracle));
+        Assert.assertFalse(IndexSqlRender.isSupport(DatabaseType.unknown));
+    }
+
+    @Test
+    public void testRenderCreate() {
+        for (DatabaseType type : new DatabaseType[]{DatabaseType.mysql, DatabaseType.h2, DatabaseType.oracle}) {
+            String sql = IndexSqlRender.renderCreate(type, "s_test", "idx_test_name", Arrays.asList("name", "age"), false);
+            Assert.assertEquals("CREATE INDEX idx_test_name ON s_test (" + quote(type, "name") + "," + quote(type, "age") + ")", sql);
+            sql = IndexSqlRender.renderCreate(type, "s_test", "uk_test_code", Collections.singletonList("code"), true);
+            Assert.assertEquals("CREATE UNIQUE INDEX uk_test_code ON s_test (" + quote(type, "code") + ")", sql);
+        }
+    }
+
+    @Test
+    public void testRenderDrop() {
+        Assert.assertEquals("DROP INDEX idx_test_name ON s_test", IndexSqlRender.renderDrop(DatabaseType.mysql, "s_test", "idx_test_name"));
+        Assert.assertEquals("DROP INDEX idx_test_name", IndexSqlRender.renderDrop(DatabaseType.h2, "s_test", "idx_test_name"));
+        Assert.assertEquals("DROP INDEX idx_test_name", IndexSqlRender.renderDrop(DatabaseType.oracle, "s_test", "idx_test_name"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutColumns() {
+        IndexSqlRender.renderCreate(DatabaseType.mysql, "s_test", "idx_test", Collections.emptyList(), false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalIndexName() {
+        IndexSqlRender.renderCreate(DatabaseType.mysql, "s_test", "idx;drop table s_user", Collections.singletonList("name"), false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalColumnName() {
+        IndexSqlRender.renderCreate(DatabaseType.mysql, "s_test", "idx_test", Collections.singletonList("name) or (1"), false);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnsupported() {
+        IndexSqlRender.renderDrop(DatabaseType.unknown, "s_test", "idx_test");
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.datasource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author zhouhao
+ */
+public class PagingSqlRenderTest {
+
+    String sql = "select * from s_user order by id";
+
+    @Test
+    public void testRender() {
+        Assert.assertEquals(sql + " limit 20,11", PagingSqlRender.render(DatabaseType.mysql, sql, 20, 11));
+        Assert.assertEquals(sql + " limit 11 offset 20", PagingSqlRender.render(DatabaseType.h2, sql, 20, 11));
+        Assert.assertEquals("select * from (select row_.*, rownum rownum_ from (" + sql + ") row_ where rownum <= 31) where rownum_ > 20",
+                PagingSqlRender.render(DatabaseType.oracle, sql, 20, 11));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalLimit() {
+        PagingSqlRender.render(DatabaseType.mysql, sql, 0, 0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnsupported() {
+        PagingSqlRender.render(DatabaseType.unknown, sql, 0, 10);
+    }
+}
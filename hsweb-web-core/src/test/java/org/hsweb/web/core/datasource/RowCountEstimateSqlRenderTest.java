@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.datasource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author zhouhao
+ */
+public class RowCountEstimateSqlRenderTest {
+
+    @Test
+    public void testIsSupport() {
+        Assert.assertTrue(RowCountEstimateSqlRender.isSupport(DatabaseType.mysql));
+        Assert.assertTrue(RowCountEstimateSqlRender.isSupport(DatabaseType.h2));
+        Assert.assertTrue(RowCountEstimateSqlRender.isSupport(DatabaseType.oracle));
+        Assert.assertFalse(RowCountEstimateSqlRender.isSupport(DatabaseType.unknown));
+        Assert.assertFalse(RowCountEstimateSqlRender.isSupport(null));
+    }
+
+    @Test
+    public void testRender() {
+        String mysql = RowCountEstimateSqlRender.render(DatabaseType.mysql, "s_user");
+        Assert.assertTrue(mysql.contains("table_rows"));
+        Assert.assertTrue(mysql.contains("lower('s_user')"));
+
+        String h2 = RowCountEstimateSqlRender.render(DatabaseType.h2, "s_user");
+        Assert.assertTrue(h2.contains("row_count_estimate"));
+        Assert.assertTrue(h2.contains("upper('s_user')"));
+
+        String oracle = RowCountEstimateSqlRender.render(DatabaseType.oracle, "s_user");
+        Assert.assertTrue(oracle.contains("num_rows"));
+        Assert.assertTrue(oracle.contains("user_tables"));
+        //结果列名统一为total
+        for (String sql : new String[]{mysql, h2, oracle}) {
+            Assert.assertTrue(sql.startsWith("select coalesce("));
+            Assert.assertTrue(sql.contains(" as total "));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalTableName() {
+        RowCountEstimateSqlRender.render(DatabaseType.mysql, "s_user') or ('1'='1");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnsupported() {
+        RowCountEstimateSqlRender.render(DatabaseType.unknown, "s_user");
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hsweb.web.core.datasource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author zhouhao
+ */
+public class UpsertSqlRenderTest {
+
+    List<String> columns = Arrays.asList("id", "name", "age");
+
+    @Test
+    public void testIsSupport() {
+        Assert.assertTrue(UpsertSqlRender.isSupport(DatabaseType.mysql));
+        Assert.assertTrue(UpsertSqlRender.isSupport(DatabaseType.h2));
+        Assert.assertTrue(UpsertSqlRender.isSupport(DatabaseType.oracle));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutPrimaryKey() {
+        new UpsertSqlRender(DatabaseType.mysql).render("s_test", Arrays.asList("name"), "id", column -> "?");
+    }
+
+    @Test
+    public void testMysql() {
+        UpsertSqlRender render = new UpsertSqlRender(DatabaseType.mysql);
+        String sql = render.render("s_test", columns, "id", column -> "#{" + column + "}");
+        String id = render.encode("id"), name = render.encode("name"), age = render.encode("age");
+        Assert.assertEquals("INSERT INTO s_test (" + id + "," + name + "," + age + ") VALUES (#{id},#{name},#{age})"
+                + " ON DUPLICATE KEY UPDATE " + name + "=VALUES(" + name + ")," + age + "=VALUES(" + age + ")", sql);
+    }
+
+    @Test
+    public void testMysqlOnlyPrimaryKey() {
+        UpsertSqlRender render = new UpsertSqlRender(DatabaseType.mysql);
+        String sql = render.render("s_test", Arrays.asList("id"), "id", column -> "?");
+        String id = render.encode("id");
+        Assert.assertTrue(sql.endsWith(" ON DUPLICATE KEY UPDATE " + id + "=" + id));
+    }
+
+    @Test
+    public void testH2() {
+        UpsertSqlRender render = new UpsertSqlRender(DatabaseType.h2);
+        String sql = render.render("s_test", columns, "id", column -> "?");
+        String id = render.encode("id"), name = render.encode("name"), age = render.encode("age");
+        Assert.assertEquals("MERGE INTO s_test (" + id + "," + name + "," + age + ") KEY(" + id + ") VALUES (?,?,?)", sql);
+    }
+
+    @Test
+    public void testOracle() {
+        UpsertSqlRender render = new UpsertSqlRender(DatabaseType.oracle);
+        String sql = render.render("s_test", columns, "id", column -> "?");
+        String id = render.encode("id"), name = render.encode("name"), age = render.encode("age");
+        Assert.assertEquals("MERGE INTO s_test dest_ USING (SELECT ? AS " + id + ",? AS " + name + ",? AS " + age + " FROM DUAL) src_"
+                + " ON (dest_." + id + "=src_." + id + ")"
+                + " WHEN MATCHED THEN UPDATE SET dest_." + name + "=src_." + name + ",dest_." + age + "=src_." + age
+                + " WHEN NOT MATCHED THEN INSERT (" + id + "," + name + "," + age + ") VALUES (src_." + id + ",src_." + name + ",src_." + age + ")", sql);
+    }
+}
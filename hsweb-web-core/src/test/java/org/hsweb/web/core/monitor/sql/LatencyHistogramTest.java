@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.monitor.sql;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author zhouhao
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getTotalCount());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(100, histogram.getTotalCount());
+        Assert.assertEquals(100, histogram.getMax());
+        //小于64的值精确记录
+        Assert.assertEquals(50, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(99, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(100, histogram.getValueAtPercentile(100));
+        //大于100的百分位按100处理
+        Assert.assertEquals(100, histogram.getValueAtPercentile(200));
+    }
+
+    @Test
+    public void testRelativeError() {
+        long[] values = {64, 65, 127, 128, 1000, 123456, 123456789L};
+        for (long value : values) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(value * 4);
+            long p50 = histogram.getValueAtPercentile(50);
+            Assert.assertTrue(value + "->" + p50, p50 >= value && p50 <= value * 1.04);
+        }
+    }
+
+    @Test
+    public void testBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = histogram.indexOf(value);
+            //每个值都不大于所在桶的上限,并且大于前一个桶的上限
+            Assert.assertTrue(value <= LatencyHistogram.highestEquivalentValue(index));
+            if (index > 0) Assert.assertTrue(value > LatencyHistogram.highestEquivalentValue(index - 1));
+        }
+    }
+
+    @Test
+    public void testRecordAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-1);
+        Assert.assertEquals(0, histogram.getValueAtPercentile(100));
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(Long.MAX_VALUE, histogram.getMax());
+        Assert.assertEquals(2, histogram.getTotalCount());
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getTotalCount());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.core.monitor.sql;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author zhouhao
+ */
+public class SqlProfilerTest {
+
+    @Test
+    public void testNormalize() {
+        SqlProfiler.NormalizedSql sql = SqlProfiler.normalize("select *  from s_user\n where id = ? and name='a''b' and age > 18 limit 10");
+        Assert.assertEquals("select * from s_user where id = ? and name=? and age > ? limit ?", sql.getSql());
+        Assert.assertEquals(1, sql.getBinds());
+
+        sql = SqlProfiler.normalize("select * from t where u_id=#{id} and v=${x} and c2=1.5");
+        Assert.assertEquals("select * from t where u_id=? and v=? and c2=?", sql.getSql());
+        Assert.assertEquals(2, sql.getBinds());
+
+        sql = SqlProfiler.normalize("  update  t set a = 'x' ");
+        Assert.assertEquals("update t set a = ?", sql.getSql());
+        Assert.assertEquals(0, sql.getBinds());
+    }
+
+    @Test
+    public void testNormalizeIdentifier() {
+        //标识符中的数字不是常量
+        SqlProfiler.NormalizedSql sql = SqlProfiler.normalize("select t1.col2 from t1");
+        Assert.assertEquals("select t1.col2 from t1", sql.getSql());
+    }
+
+    @Test
+    public void testSameStructure() {
+        Assert.assertEquals(SqlProfiler.normalize("select * from t where id=1 and name='a'").getSql(),
+                SqlProfiler.normalize("select * from t  where id=22 and name='bb'").getSql());
+    }
+}
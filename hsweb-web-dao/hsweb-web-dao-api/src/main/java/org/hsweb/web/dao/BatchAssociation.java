@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.dao;
+
+import java.lang.annotation.*;
+
+/**
+ * 批量加载mapper查询结果的关联,注解在mapper接口上.
+ * resultMap中通过select嵌套查询的关联(如 &lt;collection select="..."/&gt;)默认每条数据执行一次查询,
+ * 开启后将先查询主数据,再对每一层关联使用 in(...) 一次查询所有数据,并在内存中组装,查询次数只与关联的层数有关.
+ * <p>
+ * 仅支持形如 select * from table where column=#{value} 的嵌套查询,其他嵌套查询仍逐条执行.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BatchAssociation {
+
+    /**
+     * @return 需要批量加载关联的查询语句id
+     */
+    String[] value() default {"select", "selectByPk"};
+
+    /**
+     * @return 每次in查询的最大参数数量
+     */
+    int batchSize() default 500;
+}
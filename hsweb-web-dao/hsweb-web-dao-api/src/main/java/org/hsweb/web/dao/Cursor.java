@@ -0,0 +1,27 @@
+package org.hsweb.web.dao;
+
+import java.io.Closeable;
+
+/**
+ * 查询游标,遍历时逐条从数据库读取数据,不会将结果全部加载到内存中.
+ * 游标会占用数据库连接,使用完毕后必须调用{@link #close()},推荐使用try-with-resources
+ *
+ * @author zhouhao
+ * @see QueryStreamExecutor#cursor(QueryMapper, org.hsweb.web.bean.common.QueryParam)
+ * @since 2.2
+ */
+public interface Cursor<T> extends Closeable, Iterable<T> {
+
+    /**
+     * @return 游标是否未关闭
+     */
+    boolean isOpen();
+
+    /**
+     * @return 是否已读取完所有数据
+     */
+    boolean isConsumed();
+
+    @Override
+    void close();
+}
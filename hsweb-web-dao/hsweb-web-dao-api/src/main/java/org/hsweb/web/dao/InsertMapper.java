@@ -2,9 +2,27 @@ package org.hsweb.web.dao;
 
 import org.hsweb.web.bean.common.InsertParam;
 
+import java.util.List;
+
 /**
  * @author zhouhao
  */
 public interface InsertMapper<Po> {
     int insert(InsertParam<Po> param);
+
+    /**
+     * 批量添加数据,一条sql提交多条数据(如 values (...),(...)),数据量大时应由调用者分批调用.
+     * 映射文件中声明了insertBatch语句时执行该语句,默认实现逐条调用{@link #insert(InsertParam)}
+     *
+     * @param params 要添加的数据
+     * @return 添加的数据条数
+     * @since 2.2
+     */
+    default int insertBatch(List<InsertParam<Po>> params) {
+        int i = 0;
+        for (InsertParam<Po> param : params) {
+            i += insert(param);
+        }
+        return i;
+    }
 }
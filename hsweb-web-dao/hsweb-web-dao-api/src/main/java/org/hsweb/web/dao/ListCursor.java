@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.dao;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于已加载数据的游标,用于不支持流式查询时的降级处理,数据已全部加载到内存中
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class ListCursor<T> implements Cursor<T> {
+    private final List<T> data;
+
+    private volatile boolean open = true;
+
+    private int index;
+
+    public ListCursor(List<T> data) {
+        this.data = data;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return index >= data.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return open && index < data.size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return data.get(index++);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.dao;
+
+import java.lang.annotation.*;
+
+/**
+ * 开启mapper的查询结果缓存,注解在mapper接口上.
+ * 查询结果按表名(mapper中config配置的tableName)进行缓存,
+ * 通过{@link InsertMapper},{@link UpdateMapper},{@link DeleteMapper}等对该表进行修改后,缓存将自动失效.
+ * 仅适用于读多写少的表.缓存中保存查询结果序列化后的副本,查询结果需要支持序列化,否则不缓存.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryCache {
+
+    /**
+     * @return 需要缓存的查询语句id
+     */
+    String[] value() default {"select", "total", "selectByPk"};
+
+    /**
+     * 查询结果依赖的其他表,如通过resultMap关联查询的表.这些表被修改时缓存同样失效
+     *
+     * @return 依赖的表名
+     */
+    String[] tables() default {};
+}
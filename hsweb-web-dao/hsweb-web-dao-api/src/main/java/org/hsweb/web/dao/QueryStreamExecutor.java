@@ -0,0 +1,36 @@
+package org.hsweb.web.dao;
+
+import org.hsweb.web.bean.common.QueryParam;
+
+import java.util.function.Consumer;
+
+/**
+ * 流式查询执行器,使用mapper的select语句进行查询,逐条处理查询结果,内存占用与结果数量无关.
+ * 查询时会根据数据库类型设置合适的fetchSize,如mysql使用{@link Integer#MIN_VALUE}开启流式读取.
+ * 注意:在处理结果的过程中,不要在同一个连接(事务)中执行其他sql,部分数据库(如mysql)不支持
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public interface QueryStreamExecutor {
+
+    /**
+     * 执行查询,并逐条处理查询结果,方法返回时查询已结束并释放了连接.查询不会进行分页
+     *
+     * @param mapper   mapper
+     * @param param    查询参数
+     * @param consumer 结果处理器
+     * @param <Po>     结果类型
+     */
+    <Po> void stream(QueryMapper<Po, ?> mapper, QueryParam param, Consumer<Po> consumer);
+
+    /**
+     * 执行查询,并返回查询游标.查询不会进行分页
+     *
+     * @param mapper mapper
+     * @param param  查询参数
+     * @param <Po>   结果类型
+     * @return 查询游标, 使用完毕后需要关闭
+     */
+    <Po> Cursor<Po> cursor(QueryMapper<Po, ?> mapper, QueryParam param);
+}
@@ -2,6 +2,8 @@ package org.hsweb.web.dao;
 
 import org.hsweb.web.bean.common.UpdateParam;
 
+import java.util.List;
+
 /**
  * @author zhouhao
  */
@@ -13,4 +15,14 @@ public interface UpdateMapper<Po> {
      * @return 影响记录数
      */
     int update(UpdateParam<Po> data);
+
+    /**
+     * 批量修改记录,生成的sql相同的数据将使用同一个预编译语句批量提交.
+     * 每条数据的影响行数将设置到{@link UpdateParam#setAffectedRows(int)}
+     *
+     * @param data 要修改的数据
+     * @return 总影响记录数
+     * @since 2.2
+     */
+    int updateBatch(List<UpdateParam<Po>> data);
 }
@@ -0,0 +1,33 @@
+package org.hsweb.web.dao;
+
+import org.hsweb.web.bean.common.InsertParam;
+
+import java.util.List;
+
+/**
+ * 根据主键新增或修改数据,使用数据库原生的语法(如 mysql: on duplicate key update, h2,oracle: merge into)
+ * 在一条sql中完成,避免先查询再写入带来的额外开销和并发问题.
+ * 仅写入不为null的字段,因此修改时不会将未提交的字段置为null.
+ * 此接口不包含在{@link GenericMapper}中,需要upsert的mapper单独继承此接口,并在映射文件中声明upsert和upsertBatch语句.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public interface UpsertMapper<Po> {
+
+    /**
+     * 新增或修改数据,数据必须指定主键
+     *
+     * @param param 数据
+     * @return 影响的行数, mysql修改已存在的数据时返回2
+     */
+    int upsert(InsertParam<Po> param);
+
+    /**
+     * 批量新增或修改数据,通过jdbc batch提交
+     *
+     * @param params 数据
+     * @return 影响的行数
+     */
+    int upsertBatch(List<InsertParam<Po>> params);
+}
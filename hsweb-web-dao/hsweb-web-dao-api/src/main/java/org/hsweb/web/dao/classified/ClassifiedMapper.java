@@ -1,12 +1,15 @@
 package org.hsweb.web.dao.classified;
 
 import org.hsweb.web.dao.GenericMapper;
+import org.hsweb.web.dao.QueryCache;
+import org.hsweb.web.dao.UpsertMapper;
 import org.hsweb.web.bean.po.classified.Classified;
 
 /**
 * 数据映射接口
 * Created by hsweb-generator 2016-5-14 10:18:41
 */
-public interface ClassifiedMapper extends GenericMapper<Classified,String> {
+@QueryCache
+public interface ClassifiedMapper extends GenericMapper<Classified,String>, UpsertMapper<Classified> {
 
 }
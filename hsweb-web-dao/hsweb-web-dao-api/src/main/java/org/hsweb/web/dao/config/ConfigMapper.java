@@ -3,11 +3,13 @@ package org.hsweb.web.dao.config;
 
 import org.hsweb.web.bean.po.config.Config;
 import org.hsweb.web.dao.GenericMapper;
+import org.hsweb.web.dao.QueryCache;
 
 /**
 * 系统配置数据映射接口
 * Created by generator 
 */
+@QueryCache
 public interface ConfigMapper extends GenericMapper<Config,String> {
 
 }
@@ -1,12 +1,14 @@
 package org.hsweb.web.dao.module;
 
 import org.hsweb.web.dao.GenericMapper;
+import org.hsweb.web.dao.QueryCache;
 import org.hsweb.web.bean.po.module.Module;
 
 /**
 * 系统模块数据映射接口
 * Created by generator 
 */
+@QueryCache
 public interface ModuleMapper extends GenericMapper<Module,String> {
 
 }
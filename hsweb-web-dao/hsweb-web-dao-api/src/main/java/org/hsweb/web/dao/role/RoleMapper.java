@@ -1,12 +1,16 @@
 package org.hsweb.web.dao.role;
 
+import org.hsweb.web.dao.BatchAssociation;
 import org.hsweb.web.dao.GenericMapper;
+import org.hsweb.web.dao.QueryCache;
 import org.hsweb.web.bean.po.role.Role;
 
 /**
 * 后台管理角色数据映射接口
 * Created by generator 
 */
+@BatchAssociation
+@QueryCache(tables = {"s_role_modules", "s_modules"})
 public interface RoleMapper extends GenericMapper<Role,String> {
 
 }
@@ -1,5 +1,6 @@
 package org.hsweb.web.dao.role;
 
+import org.hsweb.web.dao.BatchAssociation;
 import org.hsweb.web.dao.GenericMapper;
 import org.hsweb.web.bean.po.role.RoleModule;
 
@@ -9,6 +10,7 @@ import java.util.List;
  * 系统模块角色绑定数据映射接口
  * Created by generator
  */
+@BatchAssociation({"select", "selectByPk", "selectByRoleId"})
 public interface RoleModuleMapper extends GenericMapper<RoleModule, String> {
     /**
      * 根据角色id查询
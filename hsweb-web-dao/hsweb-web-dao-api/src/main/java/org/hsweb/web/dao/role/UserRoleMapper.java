@@ -1,5 +1,6 @@
 package org.hsweb.web.dao.role;
 
+import org.hsweb.web.dao.BatchAssociation;
 import org.hsweb.web.dao.GenericMapper;
 import org.hsweb.web.bean.po.role.UserRole;
 
@@ -9,6 +10,7 @@ import java.util.List;
  * 后台管理用户角色绑定数据映射接口
  * Created by generator
  */
+@BatchAssociation({"select", "selectByPk", "selectByUserId"})
 public interface UserRoleMapper extends GenericMapper<UserRole, String> {
     /**
      * 根据用户id查询用户的角色列表
@@ -1,12 +1,14 @@
 package org.hsweb.web.dao.user;
 
 import org.hsweb.web.dao.GenericMapper;
+import org.hsweb.web.dao.BatchAssociation;
 import org.hsweb.web.bean.po.user.User;
 
 /**
  * 后台管理用户数据映射接口
  * Created by generator
  */
+@BatchAssociation({"select", "selectByPk", "selectByUserName"})
 public interface UserMapper extends GenericMapper<User, String> {
     User selectByUserName(String userName);
 
@@ -16,11 +16,15 @@
 
 package org.hsweb.web.mybatis;
 
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.TransactionIsolationLevel;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.hsweb.web.mybatis.builder.EasyOrmLanguageDriver;
 import org.hsweb.web.mybatis.dynamic.DynamicDataSourceSqlSessionFactoryBuilder;
 import org.hsweb.web.mybatis.dynamic.DynamicSpringManagedTransaction;
 import org.mybatis.spring.SqlSessionFactoryBean;
@@ -32,11 +36,14 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NestedIOException;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.util.StringUtils;
 
 import javax.sql.DataSource;
+import java.io.InputStream;
 
 @Configuration
 @EnableConfigurationProperties(MybatisProperties.class)
@@ -85,8 +92,29 @@ public class MyBatisAutoConfiguration {
             typeHandlers = typeHandlers + ";" + this.properties.getTypeHandlersPackage();
         }
         factory.setTypeHandlersPackage(typeHandlers);
-        factory.setMapperLocations(this.properties.resolveMapperLocations());
-        return factory.getObject();
+        Resource[] mapperLocations = this.properties.resolveMapperLocations();
+        if (!properties.isCompiledSql()) {
+            factory.setMapperLocations(mapperLocations);
+            return factory.getObject();
+        }
+        //mapper.xml需要在设置默认脚本语言后再加载
+        SqlSessionFactory sqlSessionFactory = factory.getObject();
+        org.apache.ibatis.session.Configuration configuration = sqlSessionFactory.getConfiguration();
+        if (configuration.getLanguageRegistry().getDefaultDriverClass() == XMLLanguageDriver.class) {
+            configuration.setDefaultScriptingLanguage(EasyOrmLanguageDriver.class);
+        }
+        for (Resource mapperLocation : mapperLocations) {
+            try (InputStream inputStream = mapperLocation.getInputStream()) {
+                XMLMapperBuilder xmlMapperBuilder = new XMLMapperBuilder(inputStream,
+                        configuration, mapperLocation.toString(), configuration.getSqlFragments());
+                xmlMapperBuilder.parse();
+            } catch (Exception e) {
+                throw new NestedIOException("Failed to parse mapping resource: '" + mapperLocation + "'", e);
+            } finally {
+                ErrorContext.instance().reset();
+            }
+        }
+        return sqlSessionFactory;
     }
 
 }
@@ -1,5 +1,6 @@
 package org.hsweb.web.mybatis;
 
+import org.hsweb.web.mybatis.builder.EasyOrmSqlBuilder;
 import org.hsweb.web.mybatis.utils.ResultMapsUtils;
 import org.mybatis.spring.SqlSessionTemplate;
 import org.mybatis.spring.annotation.MapperScan;
@@ -24,5 +25,7 @@ public class MybatisDaoAutoConfiguration {
     @PostConstruct
     public void init() {
         ResultMapsUtils.setSqlSession(sqlSessionTemplate);
+        //预先创建所有表结构
+        EasyOrmSqlBuilder.getInstance().getMetaRegistry().init(sqlSessionTemplate.getConfiguration());
     }
 }
@@ -28,6 +28,8 @@ import java.util.stream.Collectors;
  * <ul>
  * <li>是否启用动态数据源{@link this#dynamicDatasource}</li>
  * <li>可设置不加载的配置{@link this#mapperLocationExcludes}</li>
+ * <li>是否预编译通用sql{@link this#compiledSql}</li>
+ * <li>流式查询的fetchSize{@link this#streamFetchSize}</li>
  * </ul>
  *
  * @author zhouhao
@@ -52,6 +54,20 @@ public class MybatisProperties extends org.mybatis.spring.boot.autoconfigure.Myb
      * 排除使用{@link Resource#getURL()#toString()}进行对比
      */
     private              String[] mapperLocationExcludes = null;
+    /**
+     * 是否预编译BasicMapper中的通用sql,启用后通用增删改查将不再使用OGNL动态生成sql
+     *
+     * @see org.hsweb.web.mybatis.builder.EasyOrmLanguageDriver
+     * @since 2.2
+     */
+    private              boolean  compiledSql            = true;
+    /**
+     * 流式查询时每次从数据库读取的数据条数,mysql固定使用{@link Integer#MIN_VALUE}
+     *
+     * @see org.hsweb.web.mybatis.plgins.stream.MybatisQueryStreamExecutor
+     * @since 2.2
+     */
+    private              int      streamFetchSize        = 500;
 
     public String[] getMapperLocationExcludes() {
         return mapperLocationExcludes;
@@ -69,6 +85,22 @@ public class MybatisProperties extends org.mybatis.spring.boot.autoconfigure.Myb
         this.dynamicDatasource = dynamicDatasource;
     }
 
+    public boolean isCompiledSql() {
+        return compiledSql;
+    }
+
+    public void setCompiledSql(boolean compiledSql) {
+        this.compiledSql = compiledSql;
+    }
+
+    public int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
     public Resource[] resolveMapperLocations() {
         Map<String, Resource> resources = new HashMap<>();
         Set<String> locations;
@@ -1,7 +1,5 @@
 package org.hsweb.web.mybatis.builder;
 
-import org.apache.commons.beanutils.BeanUtilsBean;
-import org.apache.commons.beanutils.PropertyUtilsBean;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.hsweb.commons.DateTimeUtils;
@@ -11,6 +9,7 @@ import org.hsweb.ezorm.core.param.Sort;
 import org.hsweb.ezorm.core.param.Term;
 import org.hsweb.ezorm.rdb.meta.RDBColumnMetaData;
 import org.hsweb.ezorm.rdb.render.dialect.Dialect;
+import org.hsweb.web.bean.accessor.BeanAccessor;
 import org.hsweb.web.bean.common.InsertParam;
 import org.hsweb.web.bean.common.QueryParam;
 import org.hsweb.web.bean.common.UpdateParam;
@@ -36,8 +35,6 @@ public class DefaultSqlParamBuilder {
 
     private static DefaultSqlParamBuilder instance = new DefaultSqlParamBuilder();
 
-    protected PropertyUtilsBean propertyUtils = BeanUtilsBean.getInstance().getPropertyUtils();
-
     public DefaultSqlParamBuilder() {
         simpleName.put(Integer.class, "int");
         simpleName.put(Byte.class, "byte");
@@ -188,7 +185,7 @@ public class DefaultSqlParamBuilder {
         propertyMapper.forEach((k, v) -> {
             try {
                 if (v.contains(".")) return;
-                Object obj = propertyUtils.getProperty(param.getData(), v);
+                Object obj = BeanAccessor.getValue(param.getData(), v);
                 if (obj != null) {
                     if (!appender.isEmpty())
                         appender.add(",");
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.builder;
+
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 默认的脚本语言驱动,识别直接引用了BasicMapper通用sql的语句,如:
+ * <pre>
+ *     &lt;select id="select" ...&gt;
+ *         &lt;include refid="config"/&gt;
+ *         &lt;include refid="BasicMapper.buildSelectSql"/&gt;
+ *     &lt;/select&gt;
+ * </pre>
+ * 并使用{@link EasyOrmSqlSource}代替mybatis的动态sql.其他语句仍使用{@link XMLLanguageDriver}处理.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class EasyOrmLanguageDriver extends XMLLanguageDriver {
+
+    /**
+     * BasicMapper中通用sql片段的类型标识
+     */
+    public static final String BASIC_SQL_TYPE = "basicSqlType";
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, XNode script, Class<?> parameterType) {
+        SqlSource sqlSource = super.createSqlSource(configuration, script, parameterType);
+        Map<String, String> binds = new HashMap<>();
+        Node body = null;
+        NodeList children = script.getNode().getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            switch (child.getNodeType()) {
+                case Node.ELEMENT_NODE:
+                    if ("bind".equals(child.getNodeName())) {
+                        XNode bind = script.newXNode(child);
+                        binds.put(bind.getStringAttribute("name"), bind.getStringAttribute("value"));
+                    } else if (body == null && "trim".equals(child.getNodeName())) {
+                        body = child;
+                    } else {
+                        return sqlSource;
+                    }
+                    break;
+                case Node.TEXT_NODE:
+                case Node.CDATA_SECTION_NODE:
+                    if (!child.getNodeValue().trim().isEmpty()) return sqlSource;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (body == null || binds.size() != 2) return sqlSource;
+        String resultMapId = literal(binds.get("resultMapId"));
+        String tableName = literal(binds.get("tableName"));
+        EasyOrmSqlSource.Type type = getBasicSqlType(script.newXNode(body));
+        if (resultMapId == null || tableName == null || type == null) return sqlSource;
+        return new EasyOrmSqlSource(configuration, type, resultMapId, tableName);
+    }
+
+    protected EasyOrmSqlSource.Type getBasicSqlType(XNode body) {
+        for (XNode child : body.getChildren()) {
+            if ("bind".equals(child.getName()) && BASIC_SQL_TYPE.equals(child.getStringAttribute("name"))) {
+                String type = literal(child.getStringAttribute("value"));
+                if (type == null) return null;
+                try {
+                    return EasyOrmSqlSource.Type.valueOf(type);
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取ognl字符串常量的值,如 'UserResultMap',不是常量时返回null
+     */
+    protected String literal(String expression) {
+        if (expression == null) return null;
+        expression = expression.trim();
+        if (expression.length() > 2 && expression.startsWith("'") && expression.endsWith("'")) {
+            String value = expression.substring(1, expression.length() - 1);
+            if (!value.contains("'")) return value;
+        }
+        return null;
+    }
+}
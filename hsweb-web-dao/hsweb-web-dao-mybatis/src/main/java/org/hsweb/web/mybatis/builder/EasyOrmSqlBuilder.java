@@ -1,10 +1,5 @@
 package org.hsweb.web.mybatis.builder;
 
-import org.apache.commons.beanutils.BeanUtilsBean;
-import org.apache.commons.beanutils.PropertyUtilsBean;
-import org.apache.ibatis.mapping.ResultMap;
-import org.apache.ibatis.mapping.ResultMapping;
-import org.hsweb.commons.StringUtils;
 import org.hsweb.ezorm.core.param.QueryParam;
 import org.hsweb.ezorm.core.param.Term;
 import org.hsweb.ezorm.rdb.meta.RDBColumnMetaData;
@@ -18,18 +13,16 @@ import org.hsweb.ezorm.rdb.render.dialect.MysqlRDBDatabaseMetaData;
 import org.hsweb.ezorm.rdb.render.dialect.OracleRDBDatabaseMetaData;
 import org.hsweb.ezorm.rdb.render.support.simple.CommonSqlRender;
 import org.hsweb.ezorm.rdb.render.support.simple.SimpleWhereSqlBuilder;
+import org.hsweb.web.bean.accessor.BeanAccessor;
 import org.hsweb.web.bean.common.InsertParam;
 import org.hsweb.web.bean.common.UpdateParam;
 import org.hsweb.web.core.datasource.DataSourceHolder;
 import org.hsweb.web.core.datasource.DatabaseType;
+import org.hsweb.web.core.datasource.UpsertSqlRender;
 import org.hsweb.web.core.exception.BusinessException;
 import org.hsweb.web.mybatis.plgins.pager.Pager;
-import org.hsweb.web.mybatis.utils.ResultMapsUtils;
 
-import java.sql.JDBCType;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author zhouhao
@@ -40,8 +33,6 @@ public class EasyOrmSqlBuilder {
     private static final   EasyOrmSqlBuilder  instance   = new EasyOrmSqlBuilder();
     protected static final Map<Class, String> simpleName = new HashMap<>();
 
-    protected PropertyUtilsBean propertyUtils = BeanUtilsBean.getInstance().getPropertyUtils();
-
     public static EasyOrmSqlBuilder getInstance() {
         return instance;
     }
@@ -79,17 +70,15 @@ public class EasyOrmSqlBuilder {
     private final RDBDatabaseMetaData oracle = new OracleMeta();
     private final RDBDatabaseMetaData h2     = new H2Meta();
 
-    private final ConcurrentMap<RDBDatabaseMetaData, Map<String, RDBTableMetaData>> metaCache = new ConcurrentHashMap<RDBDatabaseMetaData, Map<String, RDBTableMetaData>>() {
-        @Override
-        public Map<String, RDBTableMetaData> get(Object key) {
-            Map<String, RDBTableMetaData> map = super.get(key);
-            if (map == null) {
-                map = new HashMap<>();
-                put((RDBDatabaseMetaData) key, map);
-            }
-            return map;
-        }
-    };
+    private final TableMetaDataRegistry metaRegistry = new TableMetaDataRegistry(mysql, oracle, h2);
+
+    /**
+     * @return 表结构注册表
+     * @since 2.2
+     */
+    public TableMetaDataRegistry getMetaRegistry() {
+        return metaRegistry;
+    }
 
     public RDBDatabaseMetaData getActiveDatabase() {
         DatabaseType type = DataSourceHolder.getActiveDatabaseType();
@@ -106,33 +95,7 @@ public class EasyOrmSqlBuilder {
     }
 
     protected RDBTableMetaData createMeta(String tableName, String resultMapId) {
-        RDBDatabaseMetaData active = getActiveDatabase();
-        String cacheKey = tableName.concat("-").concat(resultMapId);
-        Map<String, RDBTableMetaData> cache = metaCache.get(active);
-        RDBTableMetaData cached = cache.get(cacheKey);
-        if (cached != null) {
-            return cached;
-        }
-        RDBTableMetaData rdbTableMetaData = new RDBTableMetaData();
-        rdbTableMetaData.setName(tableName);
-        rdbTableMetaData.setDatabaseMetaData(active);
-        ResultMap resultMaps = ResultMapsUtils.getResultMap(resultMapId);
-        List<ResultMapping> resultMappings = new ArrayList<>(resultMaps.getResultMappings());
-        resultMappings.addAll(resultMaps.getIdResultMappings());
-        resultMappings.forEach(resultMapping -> {
-            if (resultMapping.getNestedQueryId() == null) {
-                RDBColumnMetaData column = new RDBColumnMetaData();
-                column.setJdbcType(JDBCType.valueOf(resultMapping.getJdbcType().name()));
-                column.setName(resultMapping.getColumn());
-                if (!StringUtils.isNullOrEmpty(resultMapping.getProperty()))
-                    column.setAlias(resultMapping.getProperty());
-                column.setJavaType(resultMapping.getJavaType());
-                column.setProperty("resultMapping", resultMapping);
-                rdbTableMetaData.addColumn(column);
-            }
-        });
-        cache.put(cacheKey, rdbTableMetaData);
-        return rdbTableMetaData;
+        return metaRegistry.get(getActiveDatabase(), tableName, resultMapId);
     }
 
     public String buildUpdateFields(String resultMapId, String tableName, UpdateParam param) {
@@ -148,12 +111,7 @@ public class EasyOrmSqlBuilder {
             RDBColumnMetaData columnMetaData = column.getRDBColumnMetaData();
             if (columnMetaData.getName().contains(".")) return;
             if (columnMetaData == null) return;
-            try {
-                Object tmp = propertyUtils.getProperty(param.getData(), columnMetaData.getAlias());
-                if (tmp == null) return;
-            } catch (Exception e) {
-                return;
-            }
+            if (BeanAccessor.getValue(param.getData(), columnMetaData.getAlias()) == null) return;
             appender.add(",", encodeColumn(dialect, columnMetaData.getName())
                     , "=", "#{data.", columnMetaData.getAlias(),
                     ",javaType=", EasyOrmSqlBuilder.getJavaType(columnMetaData.getJavaType()),
@@ -180,6 +138,85 @@ public class EasyOrmSqlBuilder {
         return render.render(tableMetaData, param).getSql();
     }
 
+    /**
+     * 生成批量插入sql,mysql,h2使用 insert into ... values (...),(...),oracle使用 insert all into ... select 1 from dual.
+     * 参数为mybatis包装后的list,如: #{list[0].data.name}
+     *
+     * @since 2.2
+     */
+    public String buildInsertBatchSql(String resultMapId, String tableName, List<InsertParam> params) {
+        Pager.reset();
+        if (params == null || params.isEmpty()) {
+            throw new BusinessException("批量新增的数据不能为空");
+        }
+        RDBTableMetaData tableMetaData = createMeta(tableName, resultMapId);
+        RDBDatabaseMetaData databaseMetaData = tableMetaData.getDatabaseMetaData();
+        Dialect dialect = databaseMetaData.getDialect();
+        List<RDBColumnMetaData> columns = new ArrayList<>();
+        StringJoiner columnNames = new StringJoiner(",", "(", ")");
+        tableMetaData.getColumns().stream()
+                .filter(column -> !column.getName().contains("."))
+                .forEach(column -> {
+                    columns.add(column);
+                    columnNames.add(encodeColumn(dialect, column.getName()));
+                });
+        boolean oracle = databaseMetaData instanceof OracleRDBDatabaseMetaData;
+        StringBuilder sql = new StringBuilder(oracle ? "INSERT ALL" : "INSERT INTO ");
+        if (!oracle) sql.append(tableName).append(" ").append(columnNames).append(" VALUES ");
+        for (int i = 0; i < params.size(); i++) {
+            if (oracle) sql.append(" INTO ").append(tableName).append(" ").append(columnNames).append(" VALUES ");
+            else if (i > 0) sql.append(",");
+            sql.append("(");
+            for (int j = 0; j < columns.size(); j++) {
+                RDBColumnMetaData column = columns.get(j);
+                if (j > 0) sql.append(",");
+                sql.append("#{list[").append(i).append("].data.")
+                        .append(column.getAlias() == null ? column.getName() : column.getAlias())
+                        .append(",javaType=").append(EasyOrmSqlBuilder.getJavaType(column.getJavaType()))
+                        .append(",jdbcType=").append(column.getJdbcType())
+                        .append("}");
+            }
+            sql.append(")");
+        }
+        if (oracle) sql.append(" SELECT 1 FROM DUAL");
+        return sql.toString();
+    }
+
+    /**
+     * 生成upsert sql,根据主键新增或修改数据.只写入不为null的字段,主键不能为空.
+     * 具体的sql由当前数据库对应的{@link UpsertSqlRender}生成
+     *
+     * @since 2.2
+     */
+    public String buildUpsertSql(String resultMapId, String tableName, InsertParam param) {
+        Pager.reset();
+        RDBTableMetaData tableMetaData = createMeta(tableName, resultMapId);
+        RDBColumnMetaData primaryKey = tableMetaData.getColumns().stream()
+                .filter(column -> "id".equals(column.getAlias()))
+                .findFirst()
+                .orElseThrow(() -> new BusinessException("表[" + tableName + "]未定义主键,不支持upsert"));
+        Object data = param.getData();
+        List<String> columns = new ArrayList<>();
+        Map<String, RDBColumnMetaData> columnMap = new HashMap<>();
+        tableMetaData.getColumns().forEach(column -> {
+            if (column.getName().contains(".") || column.getAlias() == null) return;
+            if (BeanAccessor.getValue(data, column.getAlias()) == null) return;
+            columns.add(column.getName());
+            columnMap.put(column.getName(), column);
+        });
+        if (!columnMap.containsKey(primaryKey.getName())) {
+            throw new BusinessException("upsert的数据必须指定主键");
+        }
+        UpsertSqlRender render = ((UpsertSupport) tableMetaData.getDatabaseMetaData()).getUpsertRender();
+        return render.render(tableName, columns, primaryKey.getName(), name -> {
+            RDBColumnMetaData column = columnMap.get(name);
+            return "#{data." + column.getAlias()
+                    + ",javaType=" + EasyOrmSqlBuilder.getJavaType(column.getJavaType())
+                    + ",jdbcType=" + column.getJdbcType()
+                    + "}";
+        });
+    }
+
     public String buildUpdateSql(String resultMapId, String tableName, UpdateParam param) {
         Pager.reset();
         RDBTableMetaData tableMetaData = createMeta(tableName, resultMapId);
@@ -189,7 +226,7 @@ public class EasyOrmSqlBuilder {
 
     public String buildSelectFields(String resultMapId, String tableName, QueryParam param) {
         if (param.isPaging() && Pager.get() == null) {
-            Pager.doPaging(param.getPageIndex(), param.getPageSize());
+            Pager.doPaging(param);
         }
         RDBTableMetaData tableMetaData = createMeta(tableName, resultMapId);
         RDBDatabaseMetaData databaseMetaDate = getActiveDatabase();
@@ -254,27 +291,52 @@ public class EasyOrmSqlBuilder {
         return appender.toString();
     }
 
-    class MysqlMeta extends MysqlRDBDatabaseMetaData {
+    interface UpsertSupport {
+        UpsertSqlRender getUpsertRender();
+    }
+
+    class MysqlMeta extends MysqlRDBDatabaseMetaData implements UpsertSupport {
+        private final UpsertSqlRender upsertRender = new UpsertSqlRender(DatabaseType.mysql);
+
         public MysqlMeta() {
             super();
             renderMap.put(SqlRender.TYPE.INSERT, new InsertSqlBuilder());
             renderMap.put(SqlRender.TYPE.UPDATE, new UpdateSqlBuilder(Dialect.MYSQL));
         }
+
+        @Override
+        public UpsertSqlRender getUpsertRender() {
+            return upsertRender;
+        }
     }
 
-    class OracleMeta extends OracleRDBDatabaseMetaData {
+    class OracleMeta extends OracleRDBDatabaseMetaData implements UpsertSupport {
+        private final UpsertSqlRender upsertRender = new UpsertSqlRender(DatabaseType.oracle);
+
         public OracleMeta() {
             super();
             renderMap.put(SqlRender.TYPE.INSERT, new InsertSqlBuilder());
             renderMap.put(SqlRender.TYPE.UPDATE, new UpdateSqlBuilder(Dialect.MYSQL));
         }
+
+        @Override
+        public UpsertSqlRender getUpsertRender() {
+            return upsertRender;
+        }
     }
 
-    class H2Meta extends H2RDBDatabaseMetaData {
+    class H2Meta extends H2RDBDatabaseMetaData implements UpsertSupport {
+        private final UpsertSqlRender upsertRender = new UpsertSqlRender(DatabaseType.h2);
+
         public H2Meta() {
             super();
             renderMap.put(SqlRender.TYPE.INSERT, new InsertSqlBuilder());
             renderMap.put(SqlRender.TYPE.UPDATE, new UpdateSqlBuilder(Dialect.MYSQL));
         }
+
+        @Override
+        public UpsertSqlRender getUpsertRender() {
+            return upsertRender;
+        }
     }
 }
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.builder;
+
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.session.Configuration;
+import org.hsweb.ezorm.core.param.Param;
+import org.hsweb.ezorm.core.param.QueryParam;
+import org.hsweb.ezorm.core.param.Term;
+import org.hsweb.ezorm.rdb.meta.RDBColumnMetaData;
+import org.hsweb.ezorm.rdb.meta.RDBDatabaseMetaData;
+import org.hsweb.web.bean.accessor.BeanAccessor;
+import org.hsweb.web.bean.common.InsertParam;
+import org.hsweb.web.bean.common.TotalMode;
+import org.hsweb.web.bean.common.UpdateParam;
+import org.hsweb.web.core.datasource.DataSourceHolder;
+import org.hsweb.web.core.datasource.RowCountEstimateSqlRender;
+import org.hsweb.web.mybatis.plgins.pager.Pager;
+
+import java.util.*;
+
+/**
+ * 通用增删改查语句的预编译SqlSource,用于替代BasicMapper中基于OGNL的动态sql.
+ * 直接调用{@link EasyOrmSqlBuilder}生成sql,并按参数结构缓存解析后的语句(包含#{}参数映射).
+ * <p>
+ * 参数结构见{@link #createShapeKey(Object)}:数据库类型,条件的结构(条件类型,字段,嵌套条件,值的类型及集合大小),
+ * includes,excludes,排序,新增和修改时数据中不为null的字段.结构相同的参数直接使用缓存的语句,不再生成sql字符串.
+ * 生成条件时会转换条件的值(如字符串转为日期),转换后的值与原值不同时,该结构的sql不能复用,
+ * 此时仍每次生成sql,只按生成的sql缓存#{}占位符的解析结果.
+ * 缓存按最近最少使用淘汰,每个语句最多缓存{@link #MAX_CACHE_SIZE}个.
+ *
+ * @author zhouhao
+ * @see EasyOrmLanguageDriver
+ * @since 2.2
+ */
+public class EasyOrmSqlSource implements SqlSource {
+
+    /**
+     * 每个语句最多缓存的sql结构数量,超过后淘汰最近最少使用的结构,防止条件组合过多导致内存泄漏
+     */
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    //只包含值的类型的条件
+    private static final Set<String> VALUE_TERM_TYPES = new HashSet<>(Arrays.asList("eq", "not", "like", "nlike", "gt", "lt", "gte", "lte"));
+
+    //值为集合的条件,值为字符串时以逗号分隔
+    private static final Set<String> COLLECTION_TERM_TYPES = new HashSet<>(Arrays.asList("in", "nin", "btw", "nbtw"));
+
+    //不使用值的条件
+    private static final Set<String> NO_VALUE_TERM_TYPES = new HashSet<>(Arrays.asList("isnull", "notnull", "empty", "nempty"));
+
+    //生成sql时转换了条件的值,sql不能按结构复用
+    private static final SqlSource NOT_REUSABLE = parameterObject -> {
+        throw new UnsupportedOperationException();
+    };
+
+    private final Configuration configuration;
+
+    private final SqlSourceBuilder sqlSourceBuilder;
+
+    private final Type type;
+
+    private final String resultMapId;
+
+    private final String tableName;
+
+    //已解析的sql. key为参数结构,不能按结构复用时为参数类型+生成的sql
+    private final Map<String, SqlSource> parsedCache = createCache();
+
+    //查询字段缓存. key为数据库类型+includes+excludes
+    private final Map<String, String> selectFieldsCache = createCache();
+
+    public EasyOrmSqlSource(Configuration configuration, Type type, String resultMapId, String tableName) {
+        this.configuration = configuration;
+        this.sqlSourceBuilder = new SqlSourceBuilder(configuration);
+        this.type = type;
+        this.resultMapId = resultMapId;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        Map<String, Object> bindings = new HashMap<>();
+        bindings.put(DynamicContext.PARAMETER_OBJECT_KEY, parameterObject);
+        bindings.put(DynamicContext.DATABASE_ID_KEY, configuration.getDatabaseId());
+        bindings.put("resultMapId", resultMapId);
+        bindings.put("tableName", tableName);
+        Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
+        String shapeKey = createShapeKey(parameterObject);
+        SqlSource sqlSource = parsedCache.get(shapeKey);
+        if (sqlSource != null && sqlSource != NOT_REUSABLE) {
+            applySideEffects(parameterObject);
+        } else {
+            List<Object> values = sqlSource == null ? getTermValues(parameterObject) : null;
+            String sql = buildSql(parameterObject);
+            boolean reusable = values != null && values.equals(getTermValues(parameterObject));
+            String cacheKey = reusable ? shapeKey : parameterType.getName().concat(":").concat(sql);
+            sqlSource = parsedCache.get(cacheKey);
+            if (sqlSource == null) {
+                sqlSource = sqlSourceBuilder.parse(sql, parameterType, bindings);
+                parsedCache.put(cacheKey, sqlSource);
+            }
+            if (!reusable) parsedCache.put(shapeKey, NOT_REUSABLE);
+        }
+        BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+        bindings.forEach(boundSql::setAdditionalParameter);
+        return boundSql;
+    }
+
+    protected String buildSql(Object parameterObject) {
+        EasyOrmSqlBuilder builder = EasyOrmSqlBuilder.getInstance();
+        switch (type) {
+            case select: {
+                QueryParam param = (QueryParam) parameterObject;
+                StringBuilder sql = new StringBuilder("select ")
+                        .append(buildSelectFields(param))
+                        .append(" from ").append(tableName);
+                String where = builder.buildWhere(resultMapId, tableName, param.getTerms());
+                if (!where.trim().isEmpty()) sql.append(" where ").append(where);
+                return sql.append(builder.buildOrder(resultMapId, tableName, param)).toString();
+            }
+            case total: {
+                QueryParam param = (QueryParam) parameterObject;
+                if (isEstimateTotal(param)) {
+                    return RowCountEstimateSqlRender.render(DataSourceHolder.getActiveDatabaseType(), tableName);
+                }
+                StringBuilder sql = new StringBuilder("select count(0) as total from ").append(tableName);
+                String where = builder.buildWhere(resultMapId, tableName, param.getTerms());
+                if (!where.trim().isEmpty()) sql.append(" where ").append(where);
+                return sql.toString();
+            }
+            case insert:
+                return builder.buildInsertSql(resultMapId, tableName, (InsertParam) parameterObject);
+            case insertBatch:
+                return builder.buildInsertBatchSql(resultMapId, tableName, getBatchList(parameterObject));
+            case upsert:
+                return builder.buildUpsertSql(resultMapId, tableName, (InsertParam) parameterObject);
+            case update: {
+                UpdateParam param = (UpdateParam) parameterObject;
+                //先生成修改字段,buildUpdateFields会排除id字段
+                String fields = builder.buildUpdateFields(resultMapId, tableName, param);
+                String where = builder.buildWhereForUpdate(resultMapId, tableName, param.getTerms());
+                return "update " + tableName + " set " + fields + " where " + where;
+            }
+            case delete: {
+                Param param = (Param) parameterObject;
+                String where = builder.buildWhereForUpdate(resultMapId, tableName, param.getTerms());
+                return "delete from " + tableName + " where " + where;
+            }
+            case updateBatch:
+                throw new UnsupportedOperationException("批量修改需通过JdbcBatchInterceptor执行");
+            case upsertBatch:
+                throw new UnsupportedOperationException("批量upsert需通过JdbcBatchInterceptor执行");
+            default:
+                throw new UnsupportedOperationException(type.name());
+        }
+    }
+
+    /**
+     * 参数指定了估算总数,没有查询条件并且数据库支持时,使用数据库统计信息估算总数
+     */
+    protected boolean isEstimateTotal(QueryParam param) {
+        return param instanceof org.hsweb.web.bean.common.QueryParam
+                && ((org.hsweb.web.bean.common.QueryParam) param).getTotalMode() == TotalMode.estimate
+                && param.getTerms().isEmpty()
+                && RowCountEstimateSqlRender.isSupport(DataSourceHolder.getActiveDatabaseType());
+    }
+
+    /**
+     * 生成参数结构的key,结构相同的参数生成的sql(除条件值的转换外)相同
+     *
+     * @param parameterObject 参数
+     * @return 结构key
+     */
+    protected String createShapeKey(Object parameterObject) {
+        RDBDatabaseMetaData active = EasyOrmSqlBuilder.getInstance().getActiveDatabase();
+        StringBuilder key = new StringBuilder(parameterObject == null ? "null" : parameterObject.getClass().getName())
+                .append(":").append(active.getClass().getName()).append(":");
+        switch (type) {
+            case insertBatch:
+                key.append(getBatchList(parameterObject).size());
+                break;
+            case select: {
+                QueryParam param = (QueryParam) parameterObject;
+                key.append(param.getIncludes()).append(param.getExcludes());
+                param.getSorts().forEach(sort -> key.append(sort.getName()).append(" ").append(sort.getOrder()).append(","));
+                appendTermsShape(key, param.getTerms());
+                break;
+            }
+            case total: {
+                QueryParam param = (QueryParam) parameterObject;
+                key.append(isEstimateTotal(param));
+                appendTermsShape(key, param.getTerms());
+                break;
+            }
+            case insert:
+            case upsert:
+                appendDataShape(key, active, ((InsertParam) parameterObject).getData());
+                break;
+            case update: {
+                UpdateParam param = (UpdateParam) parameterObject;
+                key.append(param.getIncludes()).append(param.getExcludes());
+                appendDataShape(key, active, param.getData());
+                appendTermsShape(key, param.getTerms());
+                break;
+            }
+            default:
+                appendTermsShape(key, ((Param) parameterObject).getTerms());
+        }
+        return key.toString();
+    }
+
+    protected void appendTermsShape(StringBuilder key, List<Term> terms) {
+        key.append("[");
+        for (Term term : terms) {
+            key.append(term.getType()).append(" ").append(term.getColumn()).append(" ").append(term.getTermType()).append(" ");
+            appendValueShape(key, term.getTermType(), term.getValue());
+            if (!term.getTerms().isEmpty()) appendTermsShape(key, term.getTerms());
+            key.append(";");
+        }
+        key.append("]");
+    }
+
+    protected void appendValueShape(StringBuilder key, String termType, Object value) {
+        if (value == null) {
+            key.append("null");
+            return;
+        }
+        if (NO_VALUE_TERM_TYPES.contains(termType)) return;
+        key.append(value.getClass().getName());
+        if (value instanceof Collection) {
+            key.append("(").append(((Collection) value).size()).append(")");
+        } else if (value.getClass().isArray()) {
+            key.append("(").append(java.lang.reflect.Array.getLength(value)).append(")");
+        } else if (value instanceof String) {
+            String str = (String) value;
+            if (str.isEmpty()) {
+                key.append("()");
+            } else if (COLLECTION_TERM_TYPES.contains(termType)) {
+                key.append("(").append(str.split(",").length).append(")");
+            } else if (!VALUE_TERM_TYPES.contains(termType)) {
+                //自定义的条件类型,值可能直接拼接到sql中
+                key.append("(").append(str).append(")");
+            }
+        } else if (!VALUE_TERM_TYPES.contains(termType) && !COLLECTION_TERM_TYPES.contains(termType)) {
+            key.append("(").append(value).append(")");
+        }
+    }
+
+    /**
+     * 数据的结构为数据类型和不为null的字段
+     */
+    protected void appendDataShape(StringBuilder key, RDBDatabaseMetaData active, Object data) {
+        key.append(data == null ? "null" : data.getClass().getName()).append("{");
+        if (data != null) {
+            for (RDBColumnMetaData column : EasyOrmSqlBuilder.getInstance().getMetaRegistry().get(active, tableName, resultMapId).getColumns()) {
+                if (column.getAlias() == null || column.getName().contains(".")) continue;
+                key.append(BeanAccessor.getValue(data, column.getAlias()) == null ? '0' : '1');
+            }
+        }
+        key.append("}");
+    }
+
+    /**
+     * 获取参数中所有条件的值,用于判断生成sql时是否转换了条件的值
+     */
+    protected List<Object> getTermValues(Object parameterObject) {
+        if (!(parameterObject instanceof Param)) return Collections.emptyList();
+        List<Object> values = new ArrayList<>();
+        collectTermValues(((Param) parameterObject).getTerms(), values);
+        return values;
+    }
+
+    private void collectTermValues(List<Term> terms, List<Object> values) {
+        for (Term term : terms) {
+            //按引用比较,转换后的值与原值equals时也视为转换
+            values.add(new IdentityValue(term.getValue()));
+            collectTermValues(term.getTerms(), values);
+        }
+    }
+
+    /**
+     * 使用缓存的语句时,执行生成sql时对参数和分页的修改,与{@link #buildSql(Object)}保持一致
+     */
+    protected void applySideEffects(Object parameterObject) {
+        switch (type) {
+            case select: {
+                QueryParam param = (QueryParam) parameterObject;
+                if (param.isPaging() && Pager.get() == null) {
+                    Pager.doPaging(param);
+                }
+                param.getIncludes().remove("*");
+                break;
+            }
+            case update:
+                Pager.reset();
+                ((UpdateParam) parameterObject).excludes("id");
+                break;
+            case insert:
+            case upsert:
+            case insertBatch:
+                Pager.reset();
+                break;
+            default:
+        }
+    }
+
+    /**
+     * 获取批量操作的数据,mybatis会将List类型的参数包装为map,key为list
+     */
+    protected List getBatchList(Object parameterObject) {
+        if (parameterObject instanceof Map) {
+            return (List) ((Map) parameterObject).get("list");
+        }
+        return (List) parameterObject;
+    }
+
+    /**
+     * 查询字段只与includes和excludes有关,按结构缓存.
+     * 副作用(分页设置,移除*)与{@link EasyOrmSqlBuilder#buildSelectFields(String, String, QueryParam)}保持一致
+     */
+    protected String buildSelectFields(QueryParam param) {
+        RDBDatabaseMetaData active = EasyOrmSqlBuilder.getInstance().getActiveDatabase();
+        String cacheKey = active.getClass().getName() + param.getIncludes() + param.getExcludes();
+        String fields = selectFieldsCache.get(cacheKey);
+        if (fields == null) {
+            fields = EasyOrmSqlBuilder.getInstance().buildSelectFields(resultMapId, tableName, param);
+            selectFieldsCache.put(cacheKey, fields);
+            return fields;
+        }
+        if (param.isPaging() && Pager.get() == null) {
+            Pager.doPaging(param);
+        }
+        param.getIncludes().remove("*");
+        return fields;
+    }
+
+    private static <V> Map<String, V> createCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > MAX_CACHE_SIZE;
+            }
+        });
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getResultMapId() {
+        return resultMapId;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    private static final class IdentityValue {
+        private final Object value;
+
+        private IdentityValue(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof IdentityValue && ((IdentityValue) obj).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+
+    /**
+     * 对应BasicMapper中的通用sql,值与sql片段中basicSqlType的值一致
+     */
+    public enum Type {
+        select, total, insert, insertBatch, update, updateBatch, upsert, upsertBatch, delete
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.builder;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.session.Configuration;
+import org.hsweb.commons.StringUtils;
+import org.hsweb.ezorm.rdb.meta.RDBColumnMetaData;
+import org.hsweb.ezorm.rdb.meta.RDBDatabaseMetaData;
+import org.hsweb.ezorm.rdb.meta.RDBTableMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.JDBCType;
+import java.util.*;
+
+/**
+ * 表结构注册表,在mybatis初始化完成后,扫描所有mapper中的config配置:
+ * <pre>
+ *     &lt;sql id="config"&gt;
+ *         &lt;bind name="resultMapId" value="'ModuleResultMap'"/&gt;
+ *         &lt;bind name="tableName" value="'s_modules'"/&gt;
+ *     &lt;/sql&gt;
+ * </pre>
+ * 为每种数据库预先创建表结构,并发布为只读的map,获取表结构时无需加锁.
+ * 未在config中声明的表在首次使用时创建,并重新发布注册表.
+ * 注册表中的表结构创建后不应再被修改.
+ *
+ * @author zhouhao
+ * @see EasyOrmSqlBuilder
+ * @since 2.2
+ */
+public class TableMetaDataRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableMetaDataRegistry.class);
+
+    private static final String CONFIG_FRAGMENT_SUFFIX = ".config";
+
+    private final List<RDBDatabaseMetaData> databases;
+
+    private volatile Configuration configuration;
+
+    //数据库->resultMapId->表名->表结构
+    private volatile Map<RDBDatabaseMetaData, Map<String, Map<String, RDBTableMetaData>>> registry = Collections.emptyMap();
+
+    public TableMetaDataRegistry(RDBDatabaseMetaData... databases) {
+        this.databases = Collections.unmodifiableList(Arrays.asList(databases));
+    }
+
+    /**
+     * 初始化注册表,创建所有mapper中config声明的表结构
+     *
+     * @param configuration mybatis配置
+     */
+    public synchronized void init(Configuration configuration) {
+        this.configuration = configuration;
+        Map<RDBDatabaseMetaData, Map<String, Map<String, RDBTableMetaData>>> newRegistry = new HashMap<>();
+        for (String fragmentId : new ArrayList<>(configuration.getSqlFragments().keySet())) {
+            if (!fragmentId.endsWith(CONFIG_FRAGMENT_SUFFIX)) continue;
+            XNode fragment = configuration.getSqlFragments().get(fragmentId);
+            String resultMapId = null, tableName = null;
+            for (XNode child : fragment.getChildren()) {
+                if (!"bind".equals(child.getName())) continue;
+                String name = child.getStringAttribute("name");
+                if ("resultMapId".equals(name)) resultMapId = literal(child.getStringAttribute("value"));
+                else if ("tableName".equals(name)) tableName = literal(child.getStringAttribute("value"));
+            }
+            if (resultMapId == null || tableName == null) continue;
+            String namespace = fragmentId.substring(0, fragmentId.length() - CONFIG_FRAGMENT_SUFFIX.length());
+            ResultMap resultMap;
+            try {
+                resultMap = getResultMap(configuration, namespace, resultMapId);
+            } catch (IllegalArgumentException e) {
+                logger.warn("{}中的resultMap[{}]不存在", fragmentId, resultMapId);
+                continue;
+            }
+            for (RDBDatabaseMetaData database : databases) {
+                try {
+                    newRegistry.computeIfAbsent(database, db -> new HashMap<>())
+                            .computeIfAbsent(resultMapId, id -> new HashMap<>())
+                            .put(tableName, build(database, tableName, resultMap));
+                } catch (RuntimeException e) {
+                    logger.warn("创建表[{}]结构失败,将在首次使用时重试", tableName, e);
+                }
+            }
+        }
+        registry = freeze(newRegistry);
+    }
+
+    /**
+     * 获取表结构
+     *
+     * @param database    数据库
+     * @param tableName   表名
+     * @param resultMapId resultMap id
+     * @return 表结构
+     */
+    public RDBTableMetaData get(RDBDatabaseMetaData database, String tableName, String resultMapId) {
+        Map<String, Map<String, RDBTableMetaData>> resultMaps = registry.get(database);
+        if (resultMaps != null) {
+            Map<String, RDBTableMetaData> tables = resultMaps.get(resultMapId);
+            if (tables != null) {
+                RDBTableMetaData metaData = tables.get(tableName);
+                if (metaData != null) return metaData;
+            }
+        }
+        return register(database, tableName, resultMapId);
+    }
+
+    protected synchronized RDBTableMetaData register(RDBDatabaseMetaData database, String tableName, String resultMapId) {
+        Map<RDBDatabaseMetaData, Map<String, Map<String, RDBTableMetaData>>> old = registry;
+        RDBTableMetaData metaData = Optional.ofNullable(old.get(database))
+                .map(resultMaps -> resultMaps.get(resultMapId))
+                .map(tables -> tables.get(tableName))
+                .orElse(null);
+        if (metaData != null) return metaData;
+        if (configuration == null) {
+            throw new IllegalStateException("mybatis尚未初始化,无法获取表[" + tableName + "]的结构");
+        }
+        metaData = build(database, tableName, getResultMap(configuration, null, resultMapId));
+        Map<RDBDatabaseMetaData, Map<String, Map<String, RDBTableMetaData>>> newRegistry = new HashMap<>();
+        old.forEach((db, resultMaps) -> {
+            Map<String, Map<String, RDBTableMetaData>> copy = new HashMap<>();
+            resultMaps.forEach((id, tables) -> copy.put(id, new HashMap<>(tables)));
+            newRegistry.put(db, copy);
+        });
+        newRegistry.computeIfAbsent(database, db -> new HashMap<>())
+                .computeIfAbsent(resultMapId, id -> new HashMap<>())
+                .put(tableName, metaData);
+        registry = freeze(newRegistry);
+        return metaData;
+    }
+
+    protected ResultMap getResultMap(Configuration configuration, String namespace, String resultMapId) {
+        if (namespace != null && configuration.hasResultMap(namespace + "." + resultMapId)) {
+            return configuration.getResultMap(namespace + "." + resultMapId);
+        }
+        if (configuration.hasResultMap(resultMapId)) {
+            return configuration.getResultMap(resultMapId);
+        }
+        throw new IllegalArgumentException("resultMap[" + resultMapId + "]不存在");
+    }
+
+    protected RDBTableMetaData build(RDBDatabaseMetaData database, String tableName, ResultMap resultMap) {
+        RDBTableMetaData rdbTableMetaData = new RDBTableMetaData();
+        rdbTableMetaData.setName(tableName);
+        rdbTableMetaData.setDatabaseMetaData(database);
+        List<ResultMapping> resultMappings = new ArrayList<>(resultMap.getResultMappings());
+        resultMappings.addAll(resultMap.getIdResultMappings());
+        resultMappings.forEach(resultMapping -> {
+            if (resultMapping.getNestedQueryId() == null) {
+                RDBColumnMetaData column = new RDBColumnMetaData();
+                column.setJdbcType(JDBCType.valueOf(resultMapping.getJdbcType().name()));
+                column.setName(resultMapping.getColumn());
+                if (!StringUtils.isNullOrEmpty(resultMapping.getProperty()))
+                    column.setAlias(resultMapping.getProperty());
+                column.setJavaType(resultMapping.getJavaType());
+                column.setProperty("resultMapping", resultMapping);
+                rdbTableMetaData.addColumn(column);
+            }
+        });
+        return rdbTableMetaData;
+    }
+
+    private static Map<RDBDatabaseMetaData, Map<String, Map<String, RDBTableMetaData>>> freeze(
+            Map<RDBDatabaseMetaData, Map<String, Map<String, RDBTableMetaData>>> registry) {
+        registry.replaceAll((db, resultMaps) -> {
+            resultMaps.replaceAll((id, tables) -> Collections.unmodifiableMap(tables));
+            return Collections.unmodifiableMap(resultMaps);
+        });
+        return Collections.unmodifiableMap(registry);
+    }
+
+    /**
+     * 获取ognl字符串常量的值,如 'UserResultMap',不是常量时返回null
+     */
+    private static String literal(String expression) {
+        if (expression == null) return null;
+        expression = expression.trim();
+        if (expression.length() > 2 && expression.startsWith("'") && expression.endsWith("'")) {
+            String value = expression.substring(1, expression.length() - 1);
+            if (!value.contains("'")) return value;
+        }
+        return null;
+    }
+}
@@ -18,7 +18,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * mybatis 同一事务，同一个mapper，动态数据源切换支持
+ * mybatis 同一事务，同一个mapper，动态数据源切换支持.
+ * 配置了从库时,同一数据源的主库和从库连接分别缓存,已执行过修改的事务不会再获取从库连接
  *
  * @author zhouhao
  */
@@ -26,15 +27,20 @@ public class DynamicSpringManagedTransaction implements Transaction {
 
     private static final Log LOGGER = LogFactory.getLog(SpringManagedTransaction.class);
 
+    private static final String REPLICA_SUFFIX = "#replica";
+
     private Map<String, TransactionProxy> connectionMap = new HashMap<>();
 
+    //最近一次获取连接时使用的key
+    private String activeKey;
+
     /**
      * 当前数据源对应的事务代理
      *
      * @return {@link TransactionProxy}
      */
     protected TransactionProxy getProxy() {
-        return connectionMap.get(DataSourceHolder.getActiveSourceId());
+        return connectionMap.get(activeKey == null ? DataSourceHolder.getActiveSourceId() : activeKey);
     }
 
     /**
@@ -43,7 +49,7 @@ public class DynamicSpringManagedTransaction implements Transaction {
      * @param proxy
      */
     protected void addProxy(TransactionProxy proxy) {
-        connectionMap.put(DataSourceHolder.getActiveSourceId(), proxy);
+        connectionMap.put(activeKey == null ? DataSourceHolder.getActiveSourceId() : activeKey, proxy);
     }
 
     /**
@@ -57,20 +63,22 @@ public class DynamicSpringManagedTransaction implements Transaction {
 
     @Override
     public Connection getConnection() throws SQLException {
+        //根据当前激活的数据源 获取jdbc链接,可能为从库
+        DataSource dataSource = DataSourceHolder.getActiveSource();
+        String dsId = DataSourceHolder.getActiveSourceId();
+        boolean replica = dataSource != DataSourceHolder.getActivePrimarySource();
+        activeKey = replica ? dsId.concat(REPLICA_SUFFIX) : dsId;
         TransactionProxy proxy = getProxy();
         if (proxy != null) {
             return proxy.getConnection();
         }
-        //根据当前激活的数据源 获取jdbc链接
-        DataSource dataSource = DataSourceHolder.getActiveSource();
-        String dsId = DataSourceHolder.getActiveSourceId();
         Connection connection = DataSourceUtils.getConnection(dataSource);
         proxy = new TransactionProxy(dsId, connection, dataSource);
         addProxy(proxy);
 
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(
-                    "DataSource (" + DataSourceHolder.getActiveSourceId() + ") JDBC Connection ["
+                    "DataSource (" + activeKey + ") JDBC Connection ["
                             + connection
                             + "] will"
                             + (proxy.isConnectionTransactional ? " " : " not ")
@@ -112,6 +120,7 @@ public class DynamicSpringManagedTransaction implements Transaction {
             }
         }
         connectionMap.clear();
+        activeKey = null;
         if (null != tmp) throw tmp;
     }
 
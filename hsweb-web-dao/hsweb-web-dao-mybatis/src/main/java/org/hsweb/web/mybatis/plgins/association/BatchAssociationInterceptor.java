@@ -0,0 +1,313 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.plgins.association;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.*;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.hsweb.web.dao.BatchAssociation;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 关联批量加载拦截器,为注解了{@link BatchAssociation}的mapper中的查询批量加载resultMap中的嵌套查询关联.
+ * 先使用去掉嵌套查询的resultMap查询主数据,再逐层收集关联列的值,通过 select * from table where column in (...)
+ * 查询关联数据,按列的值分组后设置到对应的属性中.
+ * 如用户-&gt;用户角色-&gt;角色-&gt;角色模块-&gt;模块,无论用户有多少角色和模块,都只执行5次查询.
+ * 需要在查询缓存拦截器内层执行,使缓存的是已加载关联的结果.
+ *
+ * @author zhouhao
+ * @see BatchAssociation
+ * @since 2.2
+ */
+@Intercepts({@Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class,
+        RowBounds.class, ResultHandler.class})})
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class BatchAssociationInterceptor implements Interceptor {
+
+    private static final String BATCH_SUFFIX = "#batch";
+
+    //支持批量加载的嵌套查询
+    private static final Pattern NESTED_SELECT = Pattern.compile(
+            "^\\s*select\\s+\\*\\s+from\\s+([\\w.]+)\\s+where\\s+(\\w+)\\s*=\\s*\\?\\s*$", Pattern.CASE_INSENSITIVE);
+
+    //最大加载层数,防止关联数据循环引用
+    private static final int MAX_DEPTH = 8;
+
+    private static final Integer DISABLED = 0;
+
+    //语句id与批量大小,未开启时为0
+    private final ConcurrentMap<String, Integer> batchSizes = new ConcurrentHashMap<>();
+
+    //resultMap id与加载计划
+    private final ConcurrentMap<String, Plan> plans = new ConcurrentHashMap<>();
+
+    //语句id与去掉嵌套查询后的语句
+    private final ConcurrentMap<String, MappedStatement> statements = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement statement = (MappedStatement) args[0];
+        if (args[3] != Executor.NO_RESULT_HANDLER || statement.getResultMaps().size() != 1) {
+            return invocation.proceed();
+        }
+        int batchSize = getBatchSize(statement);
+        if (batchSize <= 0) return invocation.proceed();
+        Plan plan = getPlan(statement.getResultMaps().get(0));
+        if (plan.associations.isEmpty()) return invocation.proceed();
+        Executor executor = (Executor) invocation.getTarget();
+        MappedStatement batchStatement = statements.computeIfAbsent(statement.getId(),
+                id -> copy(statement, id + BATCH_SUFFIX, statement.getSqlSource(), plan.resultMap));
+        List<Object> result = executor.query(batchStatement, args[1], (RowBounds) args[2], Executor.NO_RESULT_HANDLER);
+        load(executor, result, plan, batchSize, 1);
+        return result;
+    }
+
+    protected void load(Executor executor, List<Object> parents, Plan plan, int batchSize, int depth) throws SQLException {
+        if (parents.isEmpty() || depth > MAX_DEPTH) return;
+        Configuration configuration = plan.resultMap.getConfiguration();
+        for (Association association : plan.associations) {
+            List<MetaObject> parentObjects = new ArrayList<>(parents.size());
+            Set<Object> keys = new LinkedHashSet<>();
+            for (Object parent : parents) {
+                MetaObject metaObject = configuration.newMetaObject(parent);
+                parentObjects.add(metaObject);
+                Object key = metaObject.getValue(association.parentKeyProperty);
+                if (key != null) keys.add(key);
+            }
+            //关联列的值(转为字符串,避免类型不一致)与关联数据
+            Map<String, List<Object>> grouped = new HashMap<>();
+            List<Object> children = new ArrayList<>();
+            List<Object> keyList = new ArrayList<>(keys);
+            MappedStatement statement = association.getStatement();
+            for (int i = 0; i < keyList.size(); i += batchSize) {
+                List<Object> batch = new ArrayList<>(keyList.subList(i, Math.min(i + batchSize, keyList.size())));
+                List<Object> rows = executor.query(statement, batch, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+                for (Object row : rows) {
+                    Object foreignKey = configuration.newMetaObject(row).getValue(association.foreignKeyProperty);
+                    grouped.computeIfAbsent(String.valueOf(foreignKey), k -> new ArrayList<>()).add(row);
+                }
+                children.addAll(rows);
+            }
+            for (MetaObject parent : parentObjects) {
+                Object key = parent.getValue(association.parentKeyProperty);
+                List<Object> values = key == null ? Collections.emptyList() : grouped.getOrDefault(String.valueOf(key), Collections.emptyList());
+                Class<?> type = parent.getSetterType(association.property);
+                if (Collection.class.isAssignableFrom(type)) {
+                    @SuppressWarnings("unchecked")
+                    Collection<Object> collection = (Collection<Object>) configuration.getObjectFactory().create(type);
+                    collection.addAll(values);
+                    parent.setValue(association.property, collection);
+                } else {
+                    parent.setValue(association.property, values.isEmpty() ? null : values.get(0));
+                }
+            }
+            load(executor, children, getPlan(association.resultMap), batchSize, depth + 1);
+        }
+    }
+
+    protected int getBatchSize(MappedStatement statement) {
+        return batchSizes.computeIfAbsent(statement.getId(), id -> {
+            int index = id.lastIndexOf('.');
+            if (index <= 0) return DISABLED;
+            BatchAssociation batchAssociation;
+            try {
+                batchAssociation = AnnotationUtils.findAnnotation(Resources.classForName(id.substring(0, index)), BatchAssociation.class);
+            } catch (ClassNotFoundException e) {
+                return DISABLED;
+            }
+            if (batchAssociation == null || !Arrays.asList(batchAssociation.value()).contains(id.substring(index + 1)))
+                return DISABLED;
+            return Math.max(1, batchAssociation.batchSize());
+        });
+    }
+
+    /**
+     * 获取resultMap的加载计划,支持批量加载的嵌套查询将从resultMap中移除
+     */
+    protected Plan getPlan(ResultMap resultMap) {
+        Plan plan = plans.get(resultMap.getId());
+        if (plan != null) return plan;
+        List<Association> associations = new ArrayList<>();
+        List<ResultMapping> mappings = new ArrayList<>();
+        for (ResultMapping mapping : resultMap.getResultMappings()) {
+            Association association = resultMap.getDiscriminator() == null ? createAssociation(resultMap, mapping) : null;
+            if (association != null) associations.add(association);
+            else mappings.add(mapping);
+        }
+        ResultMap batchResultMap = associations.isEmpty() ? resultMap :
+                new ResultMap.Builder(resultMap.getConfiguration(), resultMap.getId() + BATCH_SUFFIX,
+                        resultMap.getType(), mappings, resultMap.getAutoMapping()).build();
+        plan = new Plan(batchResultMap, associations);
+        Plan old = plans.putIfAbsent(resultMap.getId(), plan);
+        return old == null ? plan : old;
+    }
+
+    protected Association createAssociation(ResultMap resultMap, ResultMapping mapping) {
+        if (mapping.getNestedQueryId() == null || mapping.isLazy() || mapping.isCompositeResult()
+                || mapping.getColumn() == null || mapping.getProperty() == null) return null;
+        Configuration configuration = resultMap.getConfiguration();
+        MappedStatement nested = configuration.getMappedStatement(mapping.getNestedQueryId());
+        if (nested.getResultMaps().size() != 1) return null;
+        BoundSql boundSql;
+        try {
+            boundSql = nested.getBoundSql(null);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (boundSql.getParameterMappings().size() != 1) return null;
+        Matcher matcher = NESTED_SELECT.matcher(boundSql.getSql());
+        if (!matcher.matches()) return null;
+        ResultMap childResultMap = nested.getResultMaps().get(0);
+        String parentKeyProperty = getProperty(resultMap, mapping.getColumn());
+        String foreignKeyProperty = getProperty(childResultMap, matcher.group(2));
+        if (parentKeyProperty == null || foreignKeyProperty == null) return null;
+        String sql = "select * from " + matcher.group(1) + " where " + matcher.group(2) + " in ";
+        return new Association(mapping.getProperty(), parentKeyProperty, foreignKeyProperty, childResultMap,
+                () -> copy(nested, nested.getId() + BATCH_SUFFIX, new InSqlSource(configuration, sql), getPlan(childResultMap).resultMap));
+    }
+
+    /**
+     * 获取resultMap中列对应的属性
+     */
+    protected String getProperty(ResultMap resultMap, String column) {
+        for (ResultMapping mapping : resultMap.getResultMappings()) {
+            if (mapping.getNestedQueryId() == null && mapping.getNestedResultMapId() == null
+                    && column.equalsIgnoreCase(mapping.getColumn())) {
+                return mapping.getProperty();
+            }
+        }
+        return null;
+    }
+
+    protected MappedStatement copy(MappedStatement statement, String id, SqlSource sqlSource, ResultMap resultMap) {
+        return new MappedStatement.Builder(statement.getConfiguration(), id, sqlSource, statement.getSqlCommandType())
+                .resource(statement.getResource())
+                .fetchSize(statement.getFetchSize())
+                .timeout(statement.getTimeout())
+                .statementType(statement.getStatementType())
+                .resultSetType(statement.getResultSetType())
+                .parameterMap(statement.getParameterMap())
+                .resultMaps(Collections.singletonList(resultMap))
+                .flushCacheRequired(statement.isFlushCacheRequired())
+                .useCache(false)
+                .databaseId(statement.getDatabaseId())
+                .lang(statement.getLang())
+                .build();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+    static class Plan {
+        final ResultMap resultMap;
+
+        final List<Association> associations;
+
+        Plan(ResultMap resultMap, List<Association> associations) {
+            this.resultMap = resultMap;
+            this.associations = associations;
+        }
+    }
+
+    static class Association {
+        final String property;
+
+        final String parentKeyProperty;
+
+        final String foreignKeyProperty;
+
+        final ResultMap resultMap;
+
+        private final Supplier<MappedStatement> statementSupplier;
+
+        private volatile MappedStatement statement;
+
+        Association(String property, String parentKeyProperty, String foreignKeyProperty, ResultMap resultMap,
+                    Supplier<MappedStatement> statementSupplier) {
+            this.property = property;
+            this.parentKeyProperty = parentKeyProperty;
+            this.foreignKeyProperty = foreignKeyProperty;
+            this.resultMap = resultMap;
+            this.statementSupplier = statementSupplier;
+        }
+
+        /**
+         * 批量查询语句,首次使用时创建,避免创建加载计划时递归
+         */
+        MappedStatement getStatement() {
+            if (statement == null) statement = statementSupplier.get();
+            return statement;
+        }
+    }
+
+    /**
+     * 生成 in 查询的sql,参数为关联列的值集合
+     */
+    static class InSqlSource implements SqlSource {
+        private final Configuration configuration;
+
+        private final String sql;
+
+        InSqlSource(Configuration configuration, String sql) {
+            this.configuration = configuration;
+            this.sql = sql;
+        }
+
+        @Override
+        public BoundSql getBoundSql(Object parameterObject) {
+            Collection<?> keys = (Collection<?>) parameterObject;
+            StringBuilder builder = new StringBuilder(sql).append('(');
+            List<ParameterMapping> parameterMappings = new ArrayList<>(keys.size());
+            int index = 0;
+            for (Object ignore : keys) {
+                if (index > 0) builder.append(',');
+                builder.append('?');
+                parameterMappings.add(new ParameterMapping.Builder(configuration, "__key_" + index++, Object.class).build());
+            }
+            BoundSql boundSql = new BoundSql(configuration, builder.append(')').toString(), parameterMappings, parameterObject);
+            index = 0;
+            for (Object key : keys) {
+                boundSql.setAdditionalParameter("__key_" + index++, key);
+            }
+            return boundSql;
+        }
+    }
+}
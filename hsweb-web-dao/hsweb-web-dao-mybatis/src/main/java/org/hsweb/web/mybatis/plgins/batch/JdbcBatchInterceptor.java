@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.plgins.batch;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.Configuration;
+import org.hsweb.web.bean.common.UpdateParam;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * jdbc批量执行拦截器. 拦截批量语句(如: updateBatch,upsertBatch),使用同一mapper中对应的单条语句(如: update)为每条数据生成sql,
+ * 生成的sql相同(即修改的字段相同)的数据共用一个{@link PreparedStatement},通过{@link PreparedStatement#addBatch()}批量提交.
+ * 使用当前事务中的连接执行,不会切换mybatis的ExecutorType.
+ * 批量语句不会继续调用后续的拦截器,因此需要作为最内层的拦截器,保证其他拦截器(如查询缓存)能拦截到批量语句.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+@Intercepts({@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})})
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class JdbcBatchInterceptor implements Interceptor {
+
+    /**
+     * 单个PreparedStatement每次提交的最大条数
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * 批量语句id与单条语句id的对应关系
+     */
+    private final Map<String, String> batchStatements = new HashMap<>();
+
+    public JdbcBatchInterceptor() {
+        batchStatements.put("updateBatch", "update");
+        batchStatements.put("upsertBatch", "upsert");
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = getTargetStatement((MappedStatement) invocation.getArgs()[0]);
+        if (statement == null) return invocation.proceed();
+        Executor executor = (Executor) invocation.getTarget();
+        List params = getBatchList(invocation.getArgs()[1]);
+        executor.clearLocalCache();
+        int[] counts = executeBatch(executor.getTransaction().getConnection(), statement, params);
+        int total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            Object param = params.get(i);
+            if (param instanceof UpdateParam) {
+                ((UpdateParam) param).setAffectedRows(counts[i]);
+            }
+            //部分驱动批量执行时不返回影响行数
+            total += counts[i] == Statement.SUCCESS_NO_INFO ? 1 : counts[i];
+        }
+        return total;
+    }
+
+    protected MappedStatement getTargetStatement(MappedStatement batchStatement) {
+        String id = batchStatement.getId();
+        int index = id.lastIndexOf('.');
+        String target = batchStatements.get(id.substring(index + 1));
+        if (target == null) return null;
+        String targetId = id.substring(0, index + 1).concat(target);
+        Configuration configuration = batchStatement.getConfiguration();
+        if (!configuration.hasStatement(targetId, false)) return null;
+        return configuration.getMappedStatement(targetId, false);
+    }
+
+    protected List getBatchList(Object parameter) {
+        if (parameter instanceof Map) {
+            return (List) ((Map) parameter).get("list");
+        }
+        return (List) parameter;
+    }
+
+    protected int[] executeBatch(Connection connection, MappedStatement statement, List params) throws SQLException {
+        int[] counts = new int[params.size()];
+        List<BoundSql> boundSqlList = new ArrayList<>(params.size());
+        //按生成的sql进行分组
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < params.size(); i++) {
+            BoundSql boundSql = statement.getBoundSql(params.get(i));
+            boundSqlList.add(boundSql);
+            groups.computeIfAbsent(boundSql.getSql(), sql -> new ArrayList<>()).add(i);
+        }
+        Configuration configuration = statement.getConfiguration();
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            List<Integer> indexes = group.getValue();
+            try (PreparedStatement preparedStatement = connection.prepareStatement(group.getKey())) {
+                if (statement.getTimeout() != null) {
+                    preparedStatement.setQueryTimeout(statement.getTimeout());
+                }
+                int offset = 0;
+                for (int i = 0; i < indexes.size(); i++) {
+                    int index = indexes.get(i);
+                    configuration.newParameterHandler(statement, params.get(index), boundSqlList.get(index))
+                            .setParameters(preparedStatement);
+                    preparedStatement.addBatch();
+                    if (i - offset + 1 >= MAX_BATCH_SIZE || i == indexes.size() - 1) {
+                        int[] results = preparedStatement.executeBatch();
+                        for (int j = 0; j < results.length; j++) {
+                            counts[indexes.get(offset + j)] = results[j];
+                        }
+                        offset = i + 1;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+}
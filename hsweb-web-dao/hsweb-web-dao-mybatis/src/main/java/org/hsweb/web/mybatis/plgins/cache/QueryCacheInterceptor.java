@@ -0,0 +1,298 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.plgins.cache;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.hsweb.web.core.datasource.DynamicDataSource;
+import org.hsweb.web.dao.QueryCache;
+import org.hsweb.web.mybatis.plgins.pager.Pager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查询结果缓存拦截器,为注解了{@link QueryCache}的mapper缓存查询结果.
+ * 每张表使用{@link CacheManager}中名为 mybatis.query.表名 的缓存,可通过缓存监控查看命中情况.
+ * 对表执行insert,update,delete等语句后,将递增表的版本号并清空依赖该表的缓存.
+ * 在事务中修改过的表,在事务结束前不使用缓存,事务结束后再次清空缓存.
+ * 缓存中保存的是查询结果序列化后的副本,每次命中都反序列化出新的对象,调用者修改返回的对象不会影响缓存.
+ * 查询结果不支持序列化时不进行缓存.
+ *
+ * @author zhouhao
+ * @see QueryCache
+ * @since 2.2
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})})
+@Component
+public class QueryCacheInterceptor implements Interceptor {
+
+    public static final String CACHE_NAME_PREFIX = "mybatis.query.";
+
+    private static final CacheConfig NONE = new CacheConfig(null, Collections.emptySet());
+
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
+    //namespace与缓存配置
+    private final ConcurrentMap<String, CacheConfig> configs = new ConcurrentHashMap<>();
+
+    //表名与依赖此表的缓存
+    private final ConcurrentMap<String, Set<String>> dependents = new ConcurrentHashMap<>();
+
+    //缓存的版本号,查询期间版本号发生变化时不缓存查询结果
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (cacheManager == null) return invocation.proceed();
+        Object[] args = invocation.getArgs();
+        MappedStatement statement = (MappedStatement) args[0];
+        CacheConfig config = getConfig(statement);
+        if ("update".equals(invocation.getMethod().getName())) {
+            try {
+                return invocation.proceed();
+            } finally {
+                if (config.tableName != null) onUpdate(config.tableName);
+            }
+        }
+        String id = statement.getId();
+        if (!config.statements.contains(id.substring(id.lastIndexOf('.') + 1))
+                || args[3] != Executor.NO_RESULT_HANDLER
+                || isDirty(config.tableName)) {
+            return invocation.proceed();
+        }
+        Executor executor = (Executor) invocation.getTarget();
+        Object parameter = args[1];
+        RowBounds rowBounds = (RowBounds) args[2];
+        //只生成一次sql,生成sql时会设置分页参数,需要作为缓存key的一部分
+        BoundSql boundSql = statement.getBoundSql(parameter);
+        CacheKey cacheKey = executor.createCacheKey(statement, parameter, rowBounds, boundSql);
+        Pager pager = Pager.get();
+        StringBuilder key = new StringBuilder(String.valueOf(DynamicDataSource.getActiveDataSourceId()));
+        if (pager != null) key.append(":").append(pager.offset()).append(",").append(pager.pageSize());
+        key.append(":").append(cacheKey);
+        String cacheKeyString = key.toString();
+
+        Cache cache = getCache(config.tableName);
+        Cache.ValueWrapper wrapper = cache.get(cacheKeyString);
+        if (wrapper != null && wrapper.get() instanceof byte[]) {
+            List cached = deserialize((byte[]) wrapper.get());
+            if (cached != null) {
+                Pager.reset();
+                return cached;
+            }
+        }
+        AtomicLong version = getVersion(config.tableName);
+        long before = version.get();
+        List<Object> result = executor.query(statement, parameter, rowBounds, Executor.NO_RESULT_HANDLER, cacheKey, boundSql);
+        byte[] value;
+        if (before == version.get() && !isDirty(config.tableName) && (value = serialize(result)) != null) {
+            cache.put(cacheKeyString, value);
+            //写入缓存时表被修改
+            if (before != version.get()) cache.evict(cacheKeyString);
+        }
+        return result;
+    }
+
+    /**
+     * 序列化查询结果
+     *
+     * @param result 查询结果
+     * @return 序列化后的数据, 查询结果不支持序列化时返回null
+     */
+    protected byte[] serialize(List<Object> result) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(out)) {
+            stream.writeObject(new ArrayList<>(result));
+        } catch (IOException e) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 反序列化缓存的查询结果
+     *
+     * @param value 缓存的数据
+     * @return 查询结果, 反序列化失败(如类已经变化)时返回null
+     */
+    protected List deserialize(byte[] value) {
+        try (ObjectInputStream stream = new ConfigurableObjectInputStream(new ByteArrayInputStream(value), ClassUtils.getDefaultClassLoader())) {
+            return (List) stream.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 清空依赖指定表的查询缓存,用于在mapper之外修改了表数据后手动清空缓存
+     *
+     * @param tableName 表名
+     */
+    public void evict(String tableName) {
+        Set<String> caches = dependents.get(tableName.toLowerCase());
+        if (caches != null) caches.forEach(this::invalidate);
+    }
+
+    protected void onUpdate(String tableName) {
+        Set<String> caches = dependents.get(tableName);
+        if (caches == null || caches.isEmpty()) return;
+        Set<String> dirty = getDirtyTables(true);
+        if (dirty != null) dirty.addAll(caches);
+        caches.forEach(this::invalidate);
+    }
+
+    protected void invalidate(String tableName) {
+        getVersion(tableName).incrementAndGet();
+        getCache(tableName).clear();
+    }
+
+    protected boolean isDirty(String tableName) {
+        Set<String> dirty = getDirtyTables(false);
+        return dirty != null && dirty.contains(tableName);
+    }
+
+    /**
+     * 获取当前事务中修改过的缓存表,事务结束后清空这些表的缓存
+     */
+    @SuppressWarnings("unchecked")
+    protected Set<String> getDirtyTables(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+        Set<String> dirty = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (dirty == null && create) {
+            Set<String> tables = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, tables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QueryCacheInterceptor.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(QueryCacheInterceptor.this, tables);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QueryCacheInterceptor.this);
+                    tables.forEach(QueryCacheInterceptor.this::invalidate);
+                }
+            });
+            dirty = tables;
+        }
+        return dirty;
+    }
+
+    protected Cache getCache(String tableName) {
+        return cacheManager.getCache(CACHE_NAME_PREFIX.concat(tableName));
+    }
+
+    protected AtomicLong getVersion(String tableName) {
+        return versions.computeIfAbsent(tableName, name -> new AtomicLong());
+    }
+
+    protected CacheConfig getConfig(MappedStatement statement) {
+        String id = statement.getId();
+        int index = id.lastIndexOf('.');
+        if (index <= 0) return NONE;
+        return configs.computeIfAbsent(id.substring(0, index), namespace -> createConfig(statement.getConfiguration(), namespace));
+    }
+
+    protected CacheConfig createConfig(Configuration configuration, String namespace) {
+        String tableName = getTableName(configuration, namespace);
+        if (tableName == null) return NONE;
+        QueryCache queryCache = null;
+        try {
+            queryCache = AnnotationUtils.findAnnotation(Resources.classForName(namespace), QueryCache.class);
+        } catch (ClassNotFoundException ignore) {
+        }
+        if (queryCache == null) return new CacheConfig(tableName, Collections.emptySet());
+        dependents.computeIfAbsent(tableName, name -> ConcurrentHashMap.newKeySet()).add(tableName);
+        for (String table : queryCache.tables()) {
+            dependents.computeIfAbsent(table.toLowerCase(), name -> ConcurrentHashMap.newKeySet()).add(tableName);
+        }
+        return new CacheConfig(tableName, new HashSet<>(Arrays.asList(queryCache.value())));
+    }
+
+    /**
+     * 获取mapper中config配置的表名,如:
+     * <pre>
+     *     &lt;sql id="config"&gt;
+     *         &lt;bind name="tableName" value="'s_modules'"/&gt;
+     *     &lt;/sql&gt;
+     * </pre>
+     */
+    protected String getTableName(Configuration configuration, String namespace) {
+        String fragmentId = namespace.concat(".config");
+        if (!configuration.getSqlFragments().containsKey(fragmentId)) return null;
+        XNode fragment = configuration.getSqlFragments().get(fragmentId);
+        for (XNode child : fragment.getChildren()) {
+            if ("bind".equals(child.getName()) && "tableName".equals(child.getStringAttribute("name"))) {
+                String value = child.getStringAttribute("value", "").trim();
+                if (value.length() > 2 && value.startsWith("'") && value.endsWith("'")) {
+                    return value.substring(1, value.length() - 1).toLowerCase();
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+    static class CacheConfig {
+        final String tableName;
+
+        final Set<String> statements;
+
+        CacheConfig(String tableName, Set<String> statements) {
+            this.tableName = tableName;
+            this.statements = statements;
+        }
+    }
+}
@@ -13,6 +13,14 @@ public interface Pager {
 
     int pageSize();
 
+    /**
+     * @return 偏移量, 默认为 pageIndex*pageSize
+     * @since 2.2
+     */
+    default int offset() {
+        return pageIndex() * pageSize();
+    }
+
     String threadLocalKey = "nowPager";
 
     static Pager getAndReset() {
@@ -45,6 +53,46 @@ public interface Pager {
         });
     }
 
+    /**
+     * 按偏移量分页,偏移量不要求是每页数量的整数倍
+     *
+     * @param offset 偏移量
+     * @param limit  查询的数据条数
+     * @since 2.2
+     */
+    static void doOffsetPaging(int offset, int limit) {
+        ThreadLocalUtils.put(threadLocalKey, new Pager() {
+            @Override
+            public int pageIndex() {
+                return offset / limit;
+            }
+
+            @Override
+            public int pageSize() {
+                return limit;
+            }
+
+            @Override
+            public int offset() {
+                return offset;
+            }
+        });
+    }
+
+    /**
+     * 根据查询参数分页,参数指定了{@link org.hsweb.web.bean.common.QueryParam#isProbePaging()}时多查询一条数据
+     *
+     * @param param 查询参数
+     * @since 2.2
+     */
+    static void doPaging(org.hsweb.ezorm.core.param.QueryParam param) {
+        if (param instanceof org.hsweb.web.bean.common.QueryParam && ((org.hsweb.web.bean.common.QueryParam) param).isProbePaging()) {
+            doOffsetPaging(param.getPageIndex() * param.getPageSize(), param.getPageSize() + 1);
+        } else {
+            doPaging(param.getPageIndex(), param.getPageSize());
+        }
+    }
+
     static void doPaging(int pageIndex, int pageSize, int total) {
         doPaging(pageIndex, pageSize);
         rePaging(total);
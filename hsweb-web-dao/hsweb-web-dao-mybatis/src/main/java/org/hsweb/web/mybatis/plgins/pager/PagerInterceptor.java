@@ -11,6 +11,7 @@ import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.hsweb.web.bean.common.QueryParam;
 import org.hsweb.web.core.datasource.DataSourceHolder;
+import org.hsweb.web.core.datasource.PagingSqlRender;
 import org.hsweb.web.mybatis.builder.EasyOrmSqlBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
@@ -40,9 +41,15 @@ public class PagerInterceptor implements Interceptor {
             String sql = statementHandler.getBoundSql().getSql();
             Pager pager = Pager.getAndReset();
             if (pager != null && sql.trim().toLowerCase().startsWith("select")) {
-                String newSql = EasyOrmSqlBuilder.getInstance()
-                        .getActiveDatabase().getDialect()
-                        .doPaging(sql, pager.pageIndex(), pager.pageSize());
+                String newSql;
+                if (pager.offset() == pager.pageIndex() * pager.pageSize()) {
+                    newSql = EasyOrmSqlBuilder.getInstance()
+                            .getActiveDatabase().getDialect()
+                            .doPaging(sql, pager.pageIndex(), pager.pageSize());
+                } else {
+                    //偏移量不是每页数量的整数倍,方言无法处理
+                    newSql = PagingSqlRender.render(DataSourceHolder.getActiveDatabaseType(), sql, pager.offset(), pager.pageSize());
+                }
                 metaStatementHandler.setValue("delegate.boundSql.sql", newSql);
             }
         }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.plgins.profiler;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultHandler;
+import org.hsweb.web.core.monitor.sql.SqlProfiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * sql执行分析拦截器,记录mapper中每个语句的执行耗时,行数以及sql,统计结果由{@link SqlProfiler}维护.
+ * 只统计jdbc执行以及结果映射的耗时,不包括生成sql和获取连接的耗时.
+ *
+ * @author zhouhao
+ * @see SqlProfiler
+ * @since 2.2
+ */
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class})})
+@Component
+public class SqlProfilerInterceptor implements Interceptor {
+
+    @Autowired
+    private SqlProfiler sqlProfiler;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!sqlProfiler.isEnabled()) return invocation.proceed();
+        Object result = null;
+        Throwable error = null;
+        long start = System.nanoTime();
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            StatementHandler handler = (StatementHandler) invocation.getTarget();
+            BoundSql boundSql = handler.getBoundSql();
+            long rows = -1;
+            if (result instanceof List) rows = ((List) result).size();
+            else if (result instanceof Integer) rows = (Integer) result;
+            sqlProfiler.record(getStatementId(handler), boundSql.getSql(),
+                    boundSql.getParameterMappings().size(), nanos, rows, error);
+        }
+    }
+
+    /**
+     * 获取RoutingStatementHandler中的语句id,handler可能被其他拦截器代理
+     */
+    protected String getStatementId(StatementHandler handler) {
+        MetaObject metaObject = SystemMetaObject.forObject(handler);
+        while (Proxy.isProxyClass(metaObject.getOriginalObject().getClass())) {
+            metaObject = SystemMetaObject.forObject(metaObject.getValue("h.target"));
+        }
+        if (metaObject.hasGetter("delegate")) {
+            metaObject = SystemMetaObject.forObject(metaObject.getValue("delegate"));
+        }
+        MappedStatement statement = (MappedStatement) metaObject.getValue("mappedStatement");
+        return statement.getId();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.plgins.stream;
+
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.hsweb.web.bean.common.QueryParam;
+import org.hsweb.web.dao.Cursor;
+import org.hsweb.web.dao.QueryMapper;
+import org.hsweb.web.dao.QueryStreamExecutor;
+import org.hsweb.web.mybatis.MybatisProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 基于mybatis的流式查询执行器,使用mapper中id为select的语句,通过{@link org.apache.ibatis.session.ResultHandler}
+ * 或{@link org.apache.ibatis.cursor.Cursor}逐条处理结果.
+ * 每次查询使用独立的{@link SqlSession},连接仍由事务管理器(包括动态数据源事务)管理,在事务中执行时将使用事务中的连接.
+ *
+ * @author zhouhao
+ * @see StreamFetchSizeInterceptor
+ * @since 2.2
+ */
+@Component
+public class MybatisQueryStreamExecutor implements QueryStreamExecutor {
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private MybatisProperties properties;
+
+    private final Map<Class, String> statementCache = new ConcurrentHashMap<>();
+
+    @Override
+    public <Po> void stream(QueryMapper<Po, ?> mapper, QueryParam param, Consumer<Po> consumer) {
+        String statement = getSelectStatement(mapper);
+        param.setPaging(false);
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            StreamFetchSizeInterceptor.doStream(properties.getStreamFetchSize());
+            try {
+                session.select(statement, param, context -> consumer.accept((Po) context.getResultObject()));
+            } finally {
+                StreamFetchSizeInterceptor.reset();
+            }
+        }
+    }
+
+    @Override
+    public <Po> Cursor<Po> cursor(QueryMapper<Po, ?> mapper, QueryParam param) {
+        String statement = getSelectStatement(mapper);
+        param.setPaging(false);
+        SqlSession session = sqlSessionFactory.openSession();
+        StreamFetchSizeInterceptor.doStream(properties.getStreamFetchSize());
+        try {
+            return new MybatisCursor<>(session, session.selectCursor(statement, param));
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        } finally {
+            StreamFetchSizeInterceptor.reset();
+        }
+    }
+
+    /**
+     * 根据mapper代理实现的接口获取select语句的id
+     */
+    protected String getSelectStatement(QueryMapper mapper) {
+        return statementCache.computeIfAbsent(mapper.getClass(), type -> {
+            Configuration configuration = sqlSessionFactory.getConfiguration();
+            for (Class<?> mapperInterface : type.getInterfaces()) {
+                String statement = mapperInterface.getName() + ".select";
+                if (QueryMapper.class.isAssignableFrom(mapperInterface) && configuration.hasStatement(statement, false)) {
+                    return statement;
+                }
+            }
+            throw new UnsupportedOperationException("未找到[" + type + "]对应的select语句,不支持流式查询");
+        });
+    }
+
+    static class MybatisCursor<T> implements Cursor<T> {
+        private final SqlSession                         session;
+        private final org.apache.ibatis.cursor.Cursor<T> cursor;
+
+        MybatisCursor(SqlSession session, org.apache.ibatis.cursor.Cursor<T> cursor) {
+            this.session = session;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return cursor.isOpen();
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return cursor.isConsumed();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return cursor.iterator();
+        }
+
+        @Override
+        public void close() {
+            try {
+                cursor.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                session.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.plgins.stream;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.*;
+import org.hsweb.web.core.datasource.DataSourceHolder;
+import org.hsweb.web.core.datasource.DatabaseType;
+import org.hsweb.web.core.utils.ThreadLocalUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * 流式查询fetchSize拦截器,为{@link MybatisQueryStreamExecutor}发起的查询设置fetchSize,
+ * 使jdbc驱动分批读取结果,而不是一次将所有结果读取到内存中.
+ * mysql驱动只有在fetchSize为{@link Integer#MIN_VALUE}时才会逐条读取.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+@Intercepts({@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class})})
+@Component
+public class StreamFetchSizeInterceptor implements Interceptor {
+
+    private static final String threadLocalKey = StreamFetchSizeInterceptor.class.getName() + "_fetch_size";
+
+    static void doStream(int fetchSize) {
+        ThreadLocalUtils.put(threadLocalKey, getFetchSize(fetchSize));
+    }
+
+    static void reset() {
+        ThreadLocalUtils.remove(threadLocalKey);
+    }
+
+    /**
+     * 根据当前数据库类型获取流式查询的fetchSize
+     *
+     * @param defaultFetchSize 默认fetchSize
+     * @return fetchSize
+     */
+    static int getFetchSize(int defaultFetchSize) {
+        DatabaseType type = DataSourceHolder.getActiveDatabaseType();
+        if (type == DatabaseType.mysql) return Integer.MIN_VALUE;
+        return defaultFetchSize;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object statement = invocation.proceed();
+        Integer fetchSize = ThreadLocalUtils.get(threadLocalKey);
+        if (fetchSize != null && statement instanceof Statement) {
+            ((Statement) statement).setFetchSize(fetchSize);
+        }
+        return statement;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+}
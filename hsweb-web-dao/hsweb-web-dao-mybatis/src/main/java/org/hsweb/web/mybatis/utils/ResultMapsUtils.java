@@ -1,26 +1,28 @@
 package org.hsweb.web.mybatis.utils;
 
 import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
-import org.mybatis.spring.SqlSessionTemplate;
 
 /**
  * Created by zhouhao on 16-6-3.
  */
 public class ResultMapsUtils {
-    private static SqlSession sqlSession;
+    private static volatile Configuration configuration;
 
     public static ResultMap getResultMap(String id) {
-        while (sqlSession == null) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-            }
+        Configuration configuration = ResultMapsUtils.configuration;
+        if (configuration == null) {
+            throw new IllegalStateException("mybatis尚未初始化,无法获取resultMap[" + id + "]");
         }
-        return sqlSession.getConfiguration().getResultMap(id);
+        return configuration.getResultMap(id);
     }
 
-    public static void setSqlSession(SqlSessionTemplate sqlSession) {
-        ResultMapsUtils.sqlSession = sqlSession;
+    public static void setSqlSession(SqlSession sqlSession) {
+        setConfiguration(sqlSession.getConfiguration());
+    }
+
+    public static void setConfiguration(Configuration configuration) {
+        ResultMapsUtils.configuration = configuration;
     }
 }
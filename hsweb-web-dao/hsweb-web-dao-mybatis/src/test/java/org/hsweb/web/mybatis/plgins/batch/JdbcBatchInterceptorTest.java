@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hsweb.web.mybatis.plgins.batch;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.*;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author zhouhao
+ */
+public class JdbcBatchInterceptorTest {
+
+    JdbcBatchInterceptor interceptor = new JdbcBatchInterceptor();
+
+    MappedStatement batchStatement;
+
+    MappedStatement updateStatement;
+
+    //sql->addBatch次数
+    Map<String, Integer> batches = new LinkedHashMap<>();
+
+    Connection connection;
+
+    @Before
+    public void setup() throws Exception {
+        Configuration configuration = new Configuration();
+        //按参数中修改的字段生成不同的sql
+        SqlSource sqlSource = param -> new BoundSql(configuration,
+                "update t set " + ((Map) param).get("columns") + " where id=?", Collections.emptyList(), param);
+        updateStatement = new MappedStatement.Builder(configuration, "test.update", sqlSource, SqlCommandType.UPDATE).build();
+        batchStatement = new MappedStatement.Builder(configuration, "test.updateBatch", sqlSource, SqlCommandType.UPDATE).build();
+        configuration.addMappedStatement(updateStatement);
+        configuration.addMappedStatement(batchStatement);
+
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = (String) invocation.getArguments()[0];
+            PreparedStatement statement = mock(PreparedStatement.class);
+            doAnswer(i -> batches.merge(sql, 1, Integer::sum)).when(statement).addBatch();
+            when(statement.executeBatch()).thenAnswer(i -> {
+                int[] counts = new int[batches.get(sql)];
+                Arrays.fill(counts, 1);
+                batches.put(sql, 0);
+                return counts;
+            });
+            return statement;
+        });
+    }
+
+    private Map<String, Object> row(String columns) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("columns", columns);
+        return row;
+    }
+
+    @Test
+    public void testGetTargetStatement() {
+        Assert.assertSame(updateStatement, interceptor.getTargetStatement(batchStatement));
+        Assert.assertNull(interceptor.getTargetStatement(updateStatement));
+    }
+
+    @Test
+    public void testGroupBySql() throws Exception {
+        List<Map<String, Object>> params = Arrays.asList(row("a=?"), row("a=?,b=?"), row("a=?"));
+        int[] counts = interceptor.executeBatch(connection, updateStatement, params);
+        Assert.assertArrayEquals(new int[]{1, 1, 1}, counts);
+        //相同的sql只预编译一次
+        verify(connection, times(1)).prepareStatement("update t set a=? where id=?");
+        verify(connection, times(1)).prepareStatement("update t set a=?,b=? where id=?");
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.mybatis.plgins.cache;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.parsing.XPathParser;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.hsweb.web.dao.QueryCache;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author zhouhao
+ */
+public class QueryCacheInterceptorTest {
+
+    @QueryCache("select")
+    interface TestMapper {
+    }
+
+    QueryCacheInterceptor interceptor = new QueryCacheInterceptor();
+
+    MappedStatement statement;
+
+    Executor executor;
+
+    AtomicInteger queries = new AtomicInteger();
+
+    Supplier<List<Object>> result;
+
+    @Before
+    public void setup() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "cacheManager", new ConcurrentMapCacheManager());
+        Configuration configuration = new Configuration();
+        String namespace = TestMapper.class.getName();
+        configuration.getSqlFragments().put(namespace + ".config",
+                new XPathParser("<sql id=\"config\"><bind name=\"tableName\" value=\"'t_test'\"/></sql>").evalNode("/sql"));
+        SqlSource sqlSource = param -> new BoundSql(configuration, "select * from t_test", Collections.emptyList(), param);
+        statement = new MappedStatement.Builder(configuration, namespace + ".select", sqlSource, SqlCommandType.SELECT).build();
+
+        executor = mock(Executor.class);
+        when(executor.createCacheKey(any(), any(), any(), any())).thenReturn(new CacheKey());
+        when(executor.query(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            return result.get();
+        });
+        result = () -> new ArrayList<>(Collections.singletonList(row("admin")));
+    }
+
+    private Map<String, Object> row(String name) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("name", name);
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> query() throws Throwable {
+        Invocation invocation = new Invocation(executor,
+                Executor.class.getMethod("query", MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class),
+                new Object[]{statement, new HashMap<>(), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER});
+        return (List<Map<String, Object>>) interceptor.intercept(invocation);
+    }
+
+    @Test
+    public void testCacheHit() throws Throwable {
+        Assert.assertEquals("admin", query().get(0).get("name"));
+        Assert.assertEquals("admin", query().get(0).get("name"));
+        Assert.assertEquals(1, queries.get());
+    }
+
+    @Test
+    public void testReturnCopy() throws Throwable {
+        List<Map<String, Object>> first = query();
+        first.get(0).put("name", "changed");
+        first.add(row("added"));
+        List<Map<String, Object>> second = query();
+        Assert.assertEquals(1, second.size());
+        Assert.assertEquals("admin", second.get(0).get("name"));
+        //每次命中返回新的对象
+        second.get(0).put("name", "changed");
+        List<Map<String, Object>> third = query();
+        Assert.assertNotSame(second.get(0), third.get(0));
+        Assert.assertEquals("admin", third.get(0).get("name"));
+        Assert.assertEquals(1, queries.get());
+    }
+
+    @Test
+    public void testNotSerializable() throws Throwable {
+        result = () -> new ArrayList<>(Collections.singletonList(new Object()));
+        query();
+        query();
+        //不支持序列化的结果不缓存
+        Assert.assertEquals(2, queries.get());
+    }
+
+    @Test
+    public void testEvict() throws Throwable {
+        query();
+        interceptor.evict("t_test");
+        query();
+        Assert.assertEquals(2, queries.get());
+    }
+}
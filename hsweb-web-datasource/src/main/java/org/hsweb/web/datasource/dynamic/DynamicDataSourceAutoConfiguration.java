@@ -27,6 +27,8 @@ import org.aspectj.lang.annotation.Aspect;
 import org.hsweb.commons.StringUtils;
 import org.hsweb.web.core.datasource.DataSourceHolder;
 import org.hsweb.web.core.datasource.DynamicDataSource;
+import org.hsweb.web.core.datasource.ReplicaLagTolerance;
+import org.hsweb.web.core.datasource.ReplicaRouting;
 import org.hsweb.web.core.exception.AuthorizeForbiddenException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -78,9 +80,21 @@ public class DynamicDataSourceAutoConfiguration {
         return dataSourceBean;
     }
 
+    @Bean(destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor() {
+        return new ReplicaLagMonitor(properties.getReplicaCheckInterval());
+    }
+
     @Bean(name = "dynamicDataSource")
-    public DynamicXaDataSourceImpl dynamicXaDataSource(@Qualifier("dataSource") DataSource dataSource) {
+    public DynamicXaDataSourceImpl dynamicXaDataSource(@Qualifier("dataSource") DataSource dataSource,
+                                                       ReplicaLagMonitor replicaLagMonitor) throws Exception {
         DynamicXaDataSourceImpl dynamicXaDataSource = new DynamicXaDataSourceImpl(dataSource, properties.getType());
+        dynamicXaDataSource.setReplicaMaxLag(properties.getReplicaMaxLag());
+        ReplicaSet replicaSet = properties.createReplicaSet();
+        if (replicaSet != null) {
+            dynamicXaDataSource.setReplicaSet(replicaSet);
+            replicaLagMonitor.register(replicaSet);
+        }
         DataSourceHolder.install(dynamicXaDataSource);
         return dynamicXaDataSource;
     }
@@ -143,5 +157,15 @@ public class DynamicDataSourceAutoConfiguration {
                     DynamicDataSource.useLast();
             }
         }
+
+        @Around(value = "@annotation(lagTolerance)")
+        public Object replicaLagTolerance(ProceedingJoinPoint pjp, ReplicaLagTolerance lagTolerance) throws Throwable {
+            Long old = ReplicaRouting.setLagTolerance(lagTolerance.value());
+            try {
+                return pjp.proceed();
+            } finally {
+                ReplicaRouting.setLagTolerance(old);
+            }
+        }
     }
 }
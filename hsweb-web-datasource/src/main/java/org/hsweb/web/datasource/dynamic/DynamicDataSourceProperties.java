@@ -27,6 +27,8 @@ import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -58,6 +60,55 @@ public class DynamicDataSourceProperties
     private ClassLoader           classLoader             = null;
     private DatasourceTypeSupport datasourceTypeSupport   = null;
     private AtomikosProperties    icatch      = new AtomikosProperties();
+    //从库配置,配置后只读事务和事务外的查询将使用从库
+    private List<DynamicDataSourceProperties> replicas             = new ArrayList<>();
+    private ReplicaSet.Strategy               replicaStrategy      = ReplicaSet.Strategy.round_robin;
+    //默认可容忍的从库延迟(秒)
+    private long                              replicaMaxLag        = 5;
+    //从库延迟检查间隔(秒)
+    private int                               replicaCheckInterval = 10;
+    //查询从库延迟(秒)的sql,如mysql: show slave status
+    private String                            lagQuery             = null;
+
+    public List<DynamicDataSourceProperties> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<DynamicDataSourceProperties> replicas) {
+        this.replicas = replicas;
+    }
+
+    public ReplicaSet.Strategy getReplicaStrategy() {
+        return replicaStrategy;
+    }
+
+    public void setReplicaStrategy(ReplicaSet.Strategy replicaStrategy) {
+        this.replicaStrategy = replicaStrategy;
+    }
+
+    public long getReplicaMaxLag() {
+        return replicaMaxLag;
+    }
+
+    public void setReplicaMaxLag(long replicaMaxLag) {
+        this.replicaMaxLag = replicaMaxLag;
+    }
+
+    public int getReplicaCheckInterval() {
+        return replicaCheckInterval;
+    }
+
+    public void setReplicaCheckInterval(int replicaCheckInterval) {
+        this.replicaCheckInterval = replicaCheckInterval;
+    }
+
+    public String getLagQuery() {
+        return lagQuery;
+    }
+
+    public void setLagQuery(String lagQuery) {
+        this.lagQuery = lagQuery;
+    }
 
     public int getTransactionTimeout() {
         return transactionTimeout;
@@ -270,6 +321,29 @@ public class DynamicDataSourceProperties
         }
     }
 
+    /**
+     * 根据从库配置创建从库,未配置从库时返回null
+     *
+     * @return 从库
+     * @throws Exception 从库配置错误
+     */
+    public ReplicaSet createReplicaSet() throws Exception {
+        if (replicas == null || replicas.isEmpty()) return null;
+        List<ReplicaDataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            DynamicDataSourceProperties replica = replicas.get(i);
+            //atomikos要求数据源名称唯一
+            if (!StringUtils.hasText(replica.getName()) || replica.getName().equals(getName()))
+                replica.setName(getName() + "_replica_" + i);
+            replica.setBeanClassLoader(classLoader);
+            replica.afterPropertiesSet();
+            AtomikosDataSourceBean dataSourceBean = new AtomikosDataSourceBean();
+            replica.putProperties(dataSourceBean);
+            dataSources.add(new ReplicaDataSource(dataSourceBean, replica.getName(), replica.getLagQuery(), replica.getTestQuery()));
+        }
+        return new ReplicaSet(dataSources, replicaStrategy);
+    }
+
     public void initDefaultProperties() {
         datasourceTypeSupport.putDefaultProperties(getProperties());
     }
@@ -36,6 +36,9 @@ import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -54,6 +57,9 @@ public class DynamicDataSourceServiceImpl implements DynamicDataSourceService {
     @Autowired
     private LockFactory lockFactory;
 
+    @Autowired(required = false)
+    private ReplicaLagMonitor replicaLagMonitor;
+
     private ConcurrentMap<String, CacheInfo> cache = new ConcurrentHashMap<>();
 
     @Override
@@ -66,13 +72,28 @@ public class DynamicDataSourceServiceImpl implements DynamicDataSourceService {
         return getCache(id).getDatabaseType().name();
     }
 
+    @Override
+    public javax.sql.DataSource getReplicaDataSource(String id, long maxLag) {
+        ReplicaSet replicaSet = getCache(id).getReplicaSet();
+        return replicaSet == null ? null : replicaSet.select(maxLag);
+    }
+
     @Override
     @PreDestroy
     public void destroyAll() throws Exception {
-        cache.values().stream().map(CacheInfo::getDataSource).forEach(this::closeDataSource);
+        cache.values().forEach(this::closeCache);
         cache.clear();
     }
 
+    protected void closeCache(CacheInfo cacheInfo) {
+        closeDataSource(cacheInfo.getDataSource());
+        ReplicaSet replicaSet = cacheInfo.getReplicaSet();
+        if (replicaSet != null) {
+            if (replicaLagMonitor != null) replicaLagMonitor.unregister(replicaSet);
+            replicaSet.close();
+        }
+    }
+
     protected void closeDataSource(javax.sql.CommonDataSource ds) {
         if (ds instanceof AtomikosDataSourceBean) {
             closeDataSource(((AtomikosDataSourceBean) ds).getXaDataSource());
@@ -111,12 +132,20 @@ public class DynamicDataSourceServiceImpl implements DynamicDataSourceService {
             readWriteLock.writeLock().tryLock();
             try {
                 if (cacheInfo != null) {
-                    closeDataSource(cacheInfo.getDataSource());
+                    closeCache(cacheInfo);
                 }
+                //配置可能来自缓存,不能直接修改
+                Map<String, Object> properties = old.getProperties() == null ? null : new HashMap<>(old.getProperties());
+                //从库配置不作为数据源的属性
+                Object replicas = properties == null ? null : properties.remove("replicas");
+                Object replicaStrategy = properties == null ? null : properties.remove("replicaStrategy");
                 //加载datasource到缓存
-                javax.sql.DataSource dataSource = createDataSource(old);
+                javax.sql.DataSource dataSource = createDataSource(old, properties);
                 DatabaseType databaseType = DatabaseType.fromJdbcUrl(old.getUrl());
                 cacheInfo = new CacheInfo(old.getHash(), dataSource, databaseType);
+                cacheInfo.replicaSet = createReplicaSet(old, replicas, replicaStrategy);
+                if (cacheInfo.replicaSet != null && replicaLagMonitor != null)
+                    replicaLagMonitor.register(cacheInfo.replicaSet);
                 cache.put(id, cacheInfo);
             } finally {
                 try {
@@ -130,7 +159,14 @@ public class DynamicDataSourceServiceImpl implements DynamicDataSourceService {
         }
     }
 
-    protected javax.sql.DataSource createDataSource(DataSource dataSource) {
+    /**
+     * 创建数据源
+     *
+     * @param dataSource      数据源配置
+     * @param otherProperties 数据源的其他属性,会被修改,不能是缓存中的配置
+     * @return 数据源
+     */
+    protected javax.sql.DataSource createDataSource(DataSource dataSource, Map<String, Object> otherProperties) {
         DynamicDataSourceProperties properties = new DynamicDataSourceProperties();
         properties.setName("ds_" + dataSource.getId());
         properties.setBeanClassLoader(this.getClass().getClassLoader());
@@ -139,9 +175,8 @@ public class DynamicDataSourceServiceImpl implements DynamicDataSourceService {
         properties.setUrl(dataSource.getUrl());
         properties.setType(DatabaseType.fromJdbcUrl(dataSource.getUrl()));
         properties.setTestQuery(dataSource.getTestSql());
-        Map<String, Object> otherProperties = dataSource.getProperties();
-        int initTimeout = StringUtils.toInt(otherProperties.getOrDefault("initTimeOut", 30 * 1000));
-        otherProperties.remove("initTimeOut");
+        int initTimeout = otherProperties == null ? 30 * 1000 : StringUtils.toInt(otherProperties.getOrDefault("initTimeOut", 30 * 1000));
+        if (otherProperties != null) otherProperties.remove("initTimeOut");
         try {
             properties.afterPropertiesSet();
         } catch (Exception e) {
@@ -186,6 +221,51 @@ public class DynamicDataSourceServiceImpl implements DynamicDataSourceService {
         return dataSourceBean;
     }
 
+    /**
+     * 根据数据源配置中的replicas属性创建从库,如:
+     * <pre>
+     *     {"replicas":[{"url":"jdbc:mysql://replica1:3306/db","username":"root","password":"root",
+     *                   "lagQuery":"show slave status"}],
+     *      "replicaStrategy":"least_connections"}
+     * </pre>
+     * 从库未配置用户名和密码时使用主库的用户名和密码.
+     *
+     * @param dataSource      数据源配置
+     * @param replicas        从库配置
+     * @param replicaStrategy 负载均衡策略
+     * @return 从库, 未配置从库时返回null
+     */
+    @SuppressWarnings("unchecked")
+    protected ReplicaSet createReplicaSet(DataSource dataSource, Object replicas, Object replicaStrategy) {
+        if (!(replicas instanceof List) || ((List) replicas).isEmpty()) return null;
+        List<ReplicaDataSource> dataSources = new ArrayList<>();
+        int index = 0;
+        for (Object replica : ((List) replicas)) {
+            if (!(replica instanceof Map)) continue;
+            Map<String, Object> config = (Map<String, Object>) replica;
+            DynamicDataSourceProperties properties = new DynamicDataSourceProperties();
+            properties.setName("ds_" + dataSource.getId() + "_replica_" + (index++));
+            properties.setBeanClassLoader(this.getClass().getClassLoader());
+            properties.setUrl((String) config.get("url"));
+            properties.setUsername((String) config.getOrDefault("username", dataSource.getUsername()));
+            properties.setPassword((String) config.getOrDefault("password", dataSource.getPassword()));
+            properties.setType(DatabaseType.fromJdbcUrl(properties.getUrl()));
+            properties.setTestQuery(dataSource.getTestSql());
+            try {
+                properties.afterPropertiesSet();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            AtomikosDataSourceBean dataSourceBean = new AtomikosDataSourceBean();
+            properties.putProperties(dataSourceBean);
+            dataSources.add(new ReplicaDataSource(dataSourceBean, properties.getName(),
+                    (String) config.get("lagQuery"), properties.getTestQuery()));
+        }
+        if (dataSources.isEmpty()) return null;
+        ReplicaSet.Strategy strategy = replicaStrategy == null ? null : ReplicaSet.Strategy.valueOf(String.valueOf(replicaStrategy));
+        return new ReplicaSet(dataSources, strategy);
+    }
+
     @PostConstruct
     public void init() {
         if (null != dynamicDataSource && dynamicDataSource instanceof DynamicXaDataSourceImpl)
@@ -196,6 +276,7 @@ public class DynamicDataSourceServiceImpl implements DynamicDataSourceService {
         int                  hash;
         DatabaseType         databaseType;
         javax.sql.DataSource dataSource;
+        ReplicaSet           replicaSet;
 
         public CacheInfo(int hash, javax.sql.DataSource dataSource, DatabaseType type) {
             this.hash = hash;
@@ -214,6 +295,10 @@ public class DynamicDataSourceServiceImpl implements DynamicDataSourceService {
         public DatabaseType getDatabaseType() {
             return databaseType;
         }
+
+        public ReplicaSet getReplicaSet() {
+            return replicaSet;
+        }
     }
 
 }
@@ -58,7 +58,11 @@ public class DynamicDataSourceSqlExecutorService extends AbstractJdbcSqlExecutor
         if (logger.isDebugEnabled()) {
             logger.debug("Releasing DataSource ({}) JDBC Connection [{}]", DataSourceHolder.getActiveSourceId(), connection);
         }
-        DataSourceUtils.releaseConnection(connection, dynamicDataSource.getActiveDataSource());
+        //从库连接需要释放到对应的从库
+        DataSource dataSource = connection instanceof ReplicaDataSource.ReplicaConnection
+                ? ((ReplicaDataSource.ReplicaConnection) connection).getReplicaDataSource()
+                : dynamicDataSource.getActivePrimaryDataSource();
+        DataSourceUtils.releaseConnection(connection, dataSource);
     }
 
     @Override
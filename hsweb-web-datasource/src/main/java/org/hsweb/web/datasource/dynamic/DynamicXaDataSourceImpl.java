@@ -19,6 +19,7 @@ package org.hsweb.web.datasource.dynamic;
 import com.atomikos.jdbc.AtomikosDataSourceBean;
 import org.hsweb.web.core.datasource.DatabaseType;
 import org.hsweb.web.core.datasource.DynamicDataSource;
+import org.hsweb.web.core.datasource.ReplicaRouting;
 import org.hsweb.web.service.datasource.DynamicDataSourceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,10 @@ public class DynamicXaDataSourceImpl extends AbstractDataSource implements Dynam
     private javax.sql.DataSource defaultDataSource = null;
     private   DatabaseType             defaultDatabaseType;
     protected DynamicDataSourceService dynamicDataSourceService;
+    //默认数据源的从库
+    private   ReplicaSet               replicaSet;
+    //默认可容忍的从库延迟(秒)
+    private   long                     replicaMaxLag       = 5;
 
     public DynamicXaDataSourceImpl(javax.sql.DataSource defaultDataSource, DatabaseType defaultDatabaseType) {
         Assert.notNull(defaultDataSource);
@@ -55,7 +60,27 @@ public class DynamicXaDataSourceImpl extends AbstractDataSource implements Dynam
         return getActiveDataSource().getConnection(username, password);
     }
 
+    /**
+     * 获取当前激活的数据源,允许使用从库({@link ReplicaRouting#isReplicaAllowed()})并且存在可用的从库时,返回从库
+     *
+     * @return 数据源
+     */
     public DataSource getActiveDataSource() {
+        DataSource primary = getActivePrimaryDataSource();
+        if (!ReplicaRouting.isReplicaAllowed()) return primary;
+        Long lagTolerance = ReplicaRouting.getLagTolerance();
+        long maxLag = lagTolerance == null ? replicaMaxLag : lagTolerance;
+        DataSource replica;
+        if (primary == defaultDataSource) {
+            replica = replicaSet == null ? null : replicaSet.select(maxLag);
+        } else {
+            replica = dynamicDataSourceService.getReplicaDataSource(DynamicDataSource.getActiveDataSourceId(), maxLag);
+        }
+        return replica == null ? primary : replica;
+    }
+
+    @Override
+    public DataSource getActivePrimaryDataSource() {
         String sourceId = DynamicDataSource.getActiveDataSourceId();
         logger.info("use datasource:{}", sourceId == null ? "default" : sourceId);
         if (sourceId == null || dynamicDataSourceService == null) return defaultDataSource;
@@ -77,7 +102,7 @@ public class DynamicXaDataSourceImpl extends AbstractDataSource implements Dynam
     }
 
     public XADataSource getActiveXADataSource() {
-        DataSource activeDs = getActiveDataSource();
+        DataSource activeDs = getActivePrimaryDataSource();
         XADataSource xaDataSource;
         if (activeDs instanceof XADataSource)
             xaDataSource = ((XADataSource) activeDs);
@@ -94,6 +119,22 @@ public class DynamicXaDataSourceImpl extends AbstractDataSource implements Dynam
         this.dynamicDataSourceService = dynamicDataSourceService;
     }
 
+    public ReplicaSet getReplicaSet() {
+        return replicaSet;
+    }
+
+    public void setReplicaSet(ReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+    }
+
+    public long getReplicaMaxLag() {
+        return replicaMaxLag;
+    }
+
+    public void setReplicaMaxLag(long replicaMaxLag) {
+        this.replicaMaxLag = replicaMaxLag;
+    }
+
     @Override
     public XAConnection getXAConnection() throws SQLException {
         return getActiveXADataSource().getXAConnection();
@@ -111,5 +152,6 @@ public class DynamicXaDataSourceImpl extends AbstractDataSource implements Dynam
         } catch (Exception e) {
             logger.error("close datasource error", e);
         }
+        if (replicaSet != null) replicaSet.close();
     }
 }
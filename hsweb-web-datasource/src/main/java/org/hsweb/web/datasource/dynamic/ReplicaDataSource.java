@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.datasource.dynamic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 从库数据源,记录当前活动的连接数和复制延迟,用于从库的负载均衡.
+ * 获取的连接实现了{@link ReplicaConnection},可通过连接获取其所属的从库,用于释放连接.
+ *
+ * @author zhouhao
+ * @see ReplicaSet
+ * @since 2.2
+ */
+public class ReplicaDataSource extends DelegatingDataSource {
+
+    /**
+     * 延迟未知或者从库不可用
+     */
+    public static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private final String name;
+
+    private final String lagQuery;
+
+    private final String testQuery;
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    //延迟(秒),检查前视为不可用
+    private volatile long lag = UNAVAILABLE;
+
+    /**
+     * @param target    从库数据源
+     * @param name      名称
+     * @param lagQuery  查询复制延迟(秒)的sql,如mysql: show slave status.为null时仅检查从库是否可用
+     * @param testQuery 检查从库是否可用的sql
+     */
+    public ReplicaDataSource(DataSource target, String name, String lagQuery, String testQuery) {
+        super(target);
+        this.name = name;
+        this.lagQuery = lagQuery;
+        this.testQuery = testQuery;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    /**
+     * 检查复制延迟.查询失败或者结果为null(如复制已停止)时,从库将不可用直到下一次检查成功
+     *
+     * @return 延迟(秒)
+     */
+    public long checkLag() {
+        String sql = lagQuery != null ? lagQuery : testQuery;
+        try (Connection connection = getTargetDataSource().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            if (lagQuery == null) lag = 0;
+            else lag = resultSet.next() ? getLag(resultSet) : UNAVAILABLE;
+        } catch (Exception e) {
+            logger.warn("检查从库[{}]失败", name, e);
+            lag = UNAVAILABLE;
+        }
+        return lag;
+    }
+
+    /**
+     * 获取查询结果中的延迟,支持mysql show slave status的Seconds_Behind_Master列,其他情况取第一列
+     */
+    protected long getLag(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int index = 1;
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if ("Seconds_Behind_Master".equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                index = i;
+                break;
+            }
+        }
+        Object value = resultSet.getObject(index);
+        if (value == null) return UNAVAILABLE;
+        if (value instanceof Number) return ((Number) value).longValue();
+        return Long.parseLong(String.valueOf(value).trim());
+    }
+
+    protected Connection wrap(Connection connection) {
+        activeConnections.incrementAndGet();
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ReplicaConnection.class.getClassLoader(),
+                new Class[]{ReplicaConnection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getReplicaDataSource":
+                            return this;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Replica(" + name + ") " + connection;
+                        case "close":
+                            if (closed.compareAndSet(false, true)) activeConnections.decrementAndGet();
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicaDataSource(" + name + ")";
+    }
+
+    /**
+     * 从库连接
+     */
+    public interface ReplicaConnection extends Connection {
+        /**
+         * @return 连接所属的从库
+         */
+        ReplicaDataSource getReplicaDataSource();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.datasource.dynamic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从库延迟监控,定时检查已注册的从库的复制延迟.
+ * 注册时立即检查一次,检查前从库不可用.
+ *
+ * @author zhouhao
+ * @see ReplicaDataSource#checkLag()
+ * @since 2.2
+ */
+public class ReplicaLagMonitor implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final Set<ReplicaSet> replicaSets = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * @param interval 检查间隔(秒)
+     */
+    public ReplicaLagMonitor(int interval) {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkAll, interval, Math.max(interval, 1), TimeUnit.SECONDS);
+    }
+
+    public void register(ReplicaSet replicaSet) {
+        replicaSets.add(replicaSet);
+        executor.execute(replicaSet::checkLag);
+    }
+
+    public void unregister(ReplicaSet replicaSet) {
+        replicaSets.remove(replicaSet);
+    }
+
+    protected void checkAll() {
+        for (ReplicaSet replicaSet : replicaSets) {
+            try {
+                replicaSet.checkLag();
+            } catch (Exception e) {
+                logger.error("检查从库延迟失败", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        replicaSets.clear();
+    }
+}
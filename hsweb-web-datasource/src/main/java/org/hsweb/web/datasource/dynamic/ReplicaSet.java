@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.datasource.dynamic;
+
+import com.atomikos.jdbc.AtomikosDataSourceBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个主库对应的所有从库,根据负载均衡策略选择延迟在可容忍范围内的从库
+ *
+ * @author zhouhao
+ * @see ReplicaDataSource
+ * @since 2.2
+ */
+public class ReplicaSet implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private final List<ReplicaDataSource> replicas;
+
+    private final Strategy strategy;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReplicaSet(List<ReplicaDataSource> replicas, Strategy strategy) {
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.strategy = strategy == null ? Strategy.round_robin : strategy;
+    }
+
+    public List<ReplicaDataSource> getReplicas() {
+        return replicas;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * 选择一个从库
+     *
+     * @param maxLag 可容忍的延迟(秒)
+     * @return 从库, 没有可用的从库时返回null
+     */
+    public ReplicaDataSource select(long maxLag) {
+        int size = replicas.size();
+        if (size == 0) return null;
+        if (strategy == Strategy.least_connections) {
+            ReplicaDataSource selected = null;
+            for (ReplicaDataSource replica : replicas) {
+                if (replica.getLag() > maxLag) continue;
+                if (selected == null || replica.getActiveConnections() < selected.getActiveConnections())
+                    selected = replica;
+            }
+            return selected;
+        }
+        int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            ReplicaDataSource replica = replicas.get((start + i) % size);
+            if (replica.getLag() <= maxLag) return replica;
+        }
+        return null;
+    }
+
+    /**
+     * 检查所有从库的延迟
+     */
+    public void checkLag() {
+        replicas.forEach(ReplicaDataSource::checkLag);
+    }
+
+    @Override
+    public void close() {
+        for (ReplicaDataSource replica : replicas) {
+            DataSource target = replica.getTargetDataSource();
+            try {
+                if (target instanceof AtomikosDataSourceBean) ((AtomikosDataSourceBean) target).close();
+                else if (target instanceof Closeable) ((Closeable) target).close();
+            } catch (Exception e) {
+                logger.error("close replica datasource error", e);
+            }
+        }
+    }
+
+    /**
+     * 负载均衡策略
+     */
+    public enum Strategy {
+        /**
+         * 轮询
+         */
+        round_robin,
+        /**
+         * 最少活动连接
+         */
+        least_connections
+    }
+}
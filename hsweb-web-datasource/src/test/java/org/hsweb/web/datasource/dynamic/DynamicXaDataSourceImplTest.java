@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.datasource.dynamic;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.hsweb.web.core.datasource.DatabaseType;
+import org.hsweb.web.core.datasource.ReplicaRouting;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+
+/**
+ * @author zhouhao
+ */
+public class DynamicXaDataSourceImplTest {
+
+    DataSource primary;
+
+    ReplicaDataSource replica;
+
+    DynamicXaDataSourceImpl dataSource;
+
+    private DataSource createH2(String name) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        h2.setPassword("");
+        return h2;
+    }
+
+    @Before
+    public void setup() {
+        primary = createH2("routing_primary");
+        replica = new ReplicaDataSource(createH2("routing_replica"), "replica", null, "select 1");
+        //检查延迟后从库才可用
+        replica.checkLag();
+        dataSource = new DynamicXaDataSourceImpl(primary, DatabaseType.h2);
+        dataSource.setReplicaSet(new ReplicaSet(Collections.singletonList(replica), null));
+    }
+
+    @After
+    public void cleanup() {
+        ReplicaRouting.markStatement(null);
+        ReplicaRouting.setLagTolerance(null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+        TransactionSynchronizationManager.clear();
+    }
+
+    private void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    @Test
+    public void testReadUseReplica() {
+        ReplicaRouting.markStatement(true);
+        Assert.assertSame(replica, dataSource.getActiveDataSource());
+    }
+
+    @Test
+    public void testWriteUsePrimary() {
+        ReplicaRouting.markStatement(false);
+        Assert.assertSame(primary, dataSource.getActiveDataSource());
+        //未标记语句类型
+        ReplicaRouting.markStatement(null);
+        Assert.assertSame(primary, dataSource.getActiveDataSource());
+    }
+
+    @Test
+    public void testLagTolerance() {
+        ReplicaRouting.markStatement(true);
+        ReplicaRouting.setLagTolerance(0L);
+        Assert.assertSame(primary, dataSource.getActiveDataSource());
+    }
+
+    @Test
+    public void testReplicaUnavailable() {
+        dataSource.setReplicaSet(new ReplicaSet(Collections.singletonList(
+                new ReplicaDataSource(createH2("routing_unchecked"), "unchecked", null, "select 1")), null));
+        ReplicaRouting.markStatement(true);
+        Assert.assertSame(primary, dataSource.getActiveDataSource());
+    }
+
+    @Test
+    public void testReadOnlyTransaction() {
+        beginTransaction(true);
+        ReplicaRouting.markStatement(true);
+        Assert.assertSame(replica, dataSource.getActiveDataSource());
+        //事务中执行过修改后,查询也使用主库
+        ReplicaRouting.markStatement(false);
+        ReplicaRouting.markStatement(true);
+        Assert.assertSame(primary, dataSource.getActiveDataSource());
+    }
+
+    @Test
+    public void testReadWriteTransaction() {
+        beginTransaction(false);
+        ReplicaRouting.markStatement(true);
+        Assert.assertSame(primary, dataSource.getActiveDataSource());
+    }
+}
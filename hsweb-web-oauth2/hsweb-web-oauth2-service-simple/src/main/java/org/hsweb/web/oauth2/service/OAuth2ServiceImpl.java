@@ -16,7 +16,7 @@
 
 package org.hsweb.web.oauth2.service;
 
-import org.apache.commons.beanutils.BeanUtilsBean;
+import org.hsweb.web.bean.accessor.BeanAccessor;
 import org.hsweb.web.bean.common.DeleteParam;
 import org.hsweb.web.bean.common.InsertParam;
 import org.hsweb.web.bean.common.QueryParam;
@@ -129,12 +129,7 @@ public class OAuth2ServiceImpl implements OAuth2Service {
             User user = userService.selectByPk(auth2Access.getUserId());
             user.initRoleInfo();
             user.setPassword(null);
-            User newUser = new User();
-            try {
-                BeanUtilsBean.getInstance().getPropertyUtils()
-                        .copyProperties(newUser, user);
-            } catch (Exception e) {
-            }
+            User newUser = BeanAccessor.of(User.class).copy(user, new User());
             auth2Access.setUser(newUser);
             cache.put(cacheKey, auth2Access);
             return newUser;
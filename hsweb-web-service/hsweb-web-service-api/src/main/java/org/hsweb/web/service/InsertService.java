@@ -1,5 +1,8 @@
 package org.hsweb.web.service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author zhouhao
  */
@@ -12,4 +15,33 @@ public interface InsertService<Po,Pk> {
      * @return 添加后生成的主键
      */
     Pk insert(Po data);
+
+    /**
+     * 批量添加数据,默认逐条调用{@link #insert(Object)}
+     *
+     * @param data 要添加的数据集合
+     * @return 添加后生成的主键集合, 顺序与data一致
+     * @since 2.2
+     */
+    default List<Pk> insert(List<Po> data) {
+        List<Pk> ids = new ArrayList<>(data.size());
+        for (Po po : data) {
+            ids.add(insert(po));
+        }
+        return ids;
+    }
+
+    /**
+     * 批量添加数据,数据将分批通过一条多行insert语句提交.
+     * 与{@link #insert(List)}不同,此方法不会逐条调用{@link #insert(Object)},
+     * 单条添加时的额外逻辑(如关联数据,缓存清理)不会执行,由调用者确认可以使用后再调用.
+     * 默认实现调用{@link #insert(List)}逐条添加
+     *
+     * @param data 要添加的数据集合
+     * @return 添加后生成的主键集合, 顺序与data一致
+     * @since 2.2
+     */
+    default List<Pk> insertBatch(List<Po> data) {
+        return insert(data);
+    }
 }
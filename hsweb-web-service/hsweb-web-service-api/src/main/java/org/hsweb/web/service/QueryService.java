@@ -3,9 +3,12 @@ package org.hsweb.web.service;
 import org.hsweb.ezorm.core.dsl.Query;
 import org.hsweb.web.bean.common.PagerResult;
 import org.hsweb.web.bean.common.QueryParam;
+import org.hsweb.web.dao.Cursor;
 import org.hsweb.web.dao.GenericMapper;
+import org.hsweb.web.dao.ListCursor;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface QueryService<Po, Pk> {
     /**
@@ -29,6 +32,32 @@ public interface QueryService<Po, Pk> {
 
     List<Po> select();
 
+    /**
+     * 流式查询,逐条处理查询结果,不会将结果全部加载到内存中,查询不会进行分页.
+     * 适用于导出等需要处理大量数据的场景.注意:处理结果时不要在同一事务中执行其他查询.
+     * 默认实现复制查询参数后一次性查询全部数据再逐条处理,不会修改传入的查询参数
+     *
+     * @param param    查询参数
+     * @param consumer 结果处理器
+     * @since 2.2
+     */
+    default void stream(QueryParam param, Consumer<Po> consumer) {
+        select(param.copyQuery()).forEach(consumer);
+    }
+
+    /**
+     * 游标查询,遍历游标时逐条读取数据,查询不会进行分页.游标使用完毕后必须关闭.
+     * 默认实现复制查询参数后一次性查询全部数据,返回基于查询结果的{@link ListCursor}
+     *
+     * @param param 查询参数
+     * @return 查询游标
+     * @see #stream(QueryParam, Consumer)
+     * @since 2.2
+     */
+    default Cursor<Po> cursor(QueryParam param) {
+        return new ListCursor<>(select(param.copyQuery()));
+    }
+
     /**
      * 查询记录总数，用于分页等操作。查询条件同 {@link GenericService#select}
      *
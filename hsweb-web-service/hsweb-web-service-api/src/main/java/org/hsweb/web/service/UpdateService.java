@@ -26,6 +26,25 @@ public interface UpdateService<Po> {
      */
     int update(List<Po> data);
 
+    /**
+     * 批量修改记录,修改的字段相同的数据将通过jdbc batch一起提交.
+     * 与{@link #update(List)}不同,此方法不会逐条调用{@link #update(Object)},
+     * 单条修改时的额外逻辑(如关联数据,缓存清理)不会执行,由调用者确认可以使用后再调用
+     *
+     * 默认实现逐条调用{@link #update(Object)}
+     *
+     * @param data 要修改的记录集合
+     * @return 每条记录的影响行数, 顺序与data一致
+     * @since 2.2
+     */
+    default int[] updateBatch(List<Po> data) {
+        int[] rows = new int[data.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = update(data.get(i));
+        }
+        return rows;
+    }
+
     /**
      * 保存或修改
      *
@@ -34,6 +53,21 @@ public interface UpdateService<Po> {
      */
     int saveOrUpdate(Po po);
 
+    /**
+     * 根据主键新增或修改数据,使用数据库原生的upsert语句(mysql: on duplicate key update, h2,oracle: merge into)在一条sql中完成.
+     * 与{@link #saveOrUpdate(Object)}不同,此方法不会调用{@link #update(Object)}或新增方法,
+     * 单条新增或修改时的额外逻辑不会执行,由调用者确认可以使用后再调用.
+     * mysql中除主键外,其他唯一索引冲突时也会修改已存在的数据.
+     * 默认实现调用{@link #saveOrUpdate(Object)}
+     *
+     * @param po 要新增或修改的数据,必须指定主键
+     * @return 影响的记录数
+     * @since 2.2
+     */
+    default int upsert(Po po) {
+        return saveOrUpdate(po);
+    }
+
     /**
      * 指定一个dao映射接口,接口需继承{@link GenericMapper}创建dsl数据更新操作对象<br>
      * 可通过返回的Update对象进行dsl方式操作如:<br>
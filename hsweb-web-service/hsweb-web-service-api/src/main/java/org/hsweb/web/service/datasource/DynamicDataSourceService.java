@@ -27,6 +27,18 @@ public interface DynamicDataSourceService {
 
     String getDataBaseType(String id);
 
+    /**
+     * 获取数据源的一个从库
+     *
+     * @param id     数据源ID
+     * @param maxLag 可容忍的延迟(秒)
+     * @return 从库, 未配置从库或者没有可用的从库时返回null
+     * @since 2.2
+     */
+    default DataSource getReplicaDataSource(String id, long maxLag) {
+        return null;
+    }
+
     void destroyAll() throws Exception;
 
 }
@@ -3,9 +3,28 @@ package org.hsweb.web.service.form;
 
 import org.hsweb.ezorm.rdb.RDBTable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public interface DynamicFormDataValidator {
     String getRepeatDataId(RDBTable table, Map<String, Object> data);
 
+    /**
+     * 批量获取重复数据的主键,默认逐条调用{@link #getRepeatDataId(RDBTable, Map)}.
+     * 实现类可重写此方法,通过一次IN查询获取整批数据的重复数据
+     *
+     * @param table    表
+     * @param dataList 数据
+     * @return 与dataList一一对应的主键, 不存在重复数据时为null
+     * @since 2.2
+     */
+    default List<String> getRepeatDataIds(RDBTable table, List<Map<String, Object>> dataList) {
+        List<String> ids = new ArrayList<>(dataList.size());
+        for (Map<String, Object> data : dataList) {
+            ids.add(getRepeatDataId(table, data));
+        }
+        return ids;
+    }
+
 }
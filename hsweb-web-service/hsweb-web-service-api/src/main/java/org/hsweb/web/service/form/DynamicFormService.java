@@ -24,6 +24,14 @@ public interface DynamicFormService {
 
     void unDeploy(Form form);
 
+    /**
+     * 重新加载已发布表单的表结构,不修改数据库中的表
+     *
+     * @param metaData 表结构
+     * @since 2.2
+     */
+    void reloadTable(RDBTableMetaData metaData);
+
     <T> PagerResult<T> selectPager(String name, QueryParam param) throws SQLException;
 
     <T> List<T> select(String name, QueryParam param) throws SQLException;
@@ -38,6 +46,19 @@ public interface DynamicFormService {
 
     String saveOrUpdate(String name, List<Map<String, Object>> map) throws SQLException;
 
+    /**
+     * 批量新增或修改数据.包含主键的数据只根据主键修改,不会新增,与{@link #saveOrUpdate(String, Map)}一致,
+     * 其余数据通过{@link DynamicFormDataValidator#getRepeatDataIds}批量查找重复数据,存在则修改,不存在则新增.
+     * 新增和修改的数据分别批量执行,修改的数据缺少主键或没有需要修改的字段时抛出异常
+     *
+     * @param name     表单名称
+     * @param dataList 数据
+     * @return 与dataList一一对应的主键
+     * @throws SQLException sql执行异常
+     * @since 2.2
+     */
+    List<String> saveOrUpdateBatch(String name, List<Map<String, Object>> dataList) throws SQLException;
+
     int delete(String name, DeleteParam param) throws SQLException;
 
     boolean deleteByPk(String name, String pk) throws SQLException;
@@ -48,7 +69,48 @@ public interface DynamicFormService {
 
     <T> T selectByPk(String name, Object pk) throws SQLException;
 
+    /**
+     * 使用字段配置的数据字典(OptionConverter)转换值,转换结果按表单发布版本缓存,重新发布后失效
+     *
+     * @param name   表单名称
+     * @param field  字段名称或别名
+     * @param value  要转换的值
+     * @param toData true:调用converterData,false:调用converterValue
+     * @return 转换结果, 字段未配置数据字典时返回原值
+     * @since 2.2
+     */
+    Object convertOption(String name, String field, Object value, boolean toData);
+
+    /**
+     * 批量转换一页数据的数据字典,为配置了数据字典的字段设置转换后的值,已存在的值不覆盖
+     *
+     * @param name     表单名称
+     * @param dataList 数据
+     * @since 2.2
+     */
+    void convertOptions(String name, List<Map<String, Object>> dataList);
+
     void exportExcel(String name, QueryParam param, OutputStream outputStream) throws Exception;
 
     Map<String, Object> importExcel(String name, InputStream inputStream);
+
+    /**
+     * 导入excel,导入过程中可通过{@link #getImportProgress(String)}获取导入进度
+     *
+     * @param name        表单名称
+     * @param inputStream excel输入流
+     * @param importId    导入id,为null时不记录导入进度
+     * @return 导入结果, 格式参照:{@link #importExcel(String, InputStream)}
+     * @since 2.2
+     */
+    Map<String, Object> importExcel(String name, InputStream inputStream, String importId);
+
+    /**
+     * 获取excel导入进度,导入结束后进度将保留一段时间
+     *
+     * @param importId 导入id
+     * @return 导入进度, 不存在时返回null
+     * @since 2.2
+     */
+    ExcelImportProgress getImportProgress(String importId);
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.form;
+
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * excel导入进度,导入时由{@link DynamicFormService#importExcel(String, InputStream, String)}更新,
+ * 可通过{@link DynamicFormService#getImportProgress(String)}轮询.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class ExcelImportProgress {
+
+    public enum Status {
+        reading, importing, finished, failed
+    }
+
+    private final String id;
+
+    private final String formName;
+
+    private final long startTime = System.currentTimeMillis();
+
+    private volatile long endTime;
+
+    private volatile Status status = Status.reading;
+
+    private volatile String message;
+
+    //已解析的行数
+    private final AtomicInteger read = new AtomicInteger();
+
+    //已处理的行数
+    private final AtomicInteger processed = new AtomicInteger();
+
+    private final AtomicInteger success = new AtomicInteger();
+
+    private final AtomicInteger error = new AtomicInteger();
+
+    public ExcelImportProgress(String id, String formName) {
+        this.id = id;
+        this.formName = formName;
+    }
+
+    public void addRead(int rows) {
+        read.addAndGet(rows);
+    }
+
+    public void addSuccess(int rows) {
+        success.addAndGet(rows);
+        processed.addAndGet(rows);
+    }
+
+    public void addError(int rows) {
+        error.addAndGet(rows);
+        processed.addAndGet(rows);
+    }
+
+    public void importing() {
+        if (status == Status.reading) status = Status.importing;
+    }
+
+    public void finish() {
+        endTime = System.currentTimeMillis();
+        status = Status.finished;
+    }
+
+    public void fail(String message) {
+        this.message = message;
+        endTime = System.currentTimeMillis();
+        status = Status.failed;
+    }
+
+    public boolean isDone() {
+        return status == Status.finished || status == Status.failed;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFormName() {
+        return formName;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getRead() {
+        return read.get();
+    }
+
+    public int getProcessed() {
+        return processed.get();
+    }
+
+    public int getSuccess() {
+        return success.get();
+    }
+
+    public int getError() {
+        return error.get();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.form;
+
+import java.util.function.Consumer;
+
+/**
+ * 表单发布事件广播器,将事件发送到集群中的所有节点(包括当前节点).
+ * 默认为仅在当前jvm中广播的实现,存在RedisTemplate时使用redis的发布订阅
+ *
+ * @author zhouhao
+ * @see FormDeployEvent
+ * @since 2.2
+ */
+public interface FormDeployBroadcaster {
+
+    /**
+     * 广播事件
+     *
+     * @param event 事件
+     */
+    void broadcast(FormDeployEvent event);
+
+    /**
+     * 订阅事件,事件可能在其他线程中处理
+     *
+     * @param listener 事件监听器
+     */
+    void subscribe(Consumer<FormDeployEvent> listener);
+}
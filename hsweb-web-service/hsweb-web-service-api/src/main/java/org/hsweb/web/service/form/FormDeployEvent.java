@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.form;
+
+import java.io.Serializable;
+
+/**
+ * 表单发布事件,在集群中广播,其他节点收到后重新加载对应表单的表结构
+ *
+ * @author zhouhao
+ * @see FormDeployBroadcaster
+ * @since 2.2
+ */
+public class FormDeployEvent implements Serializable {
+    private static final long serialVersionUID = -3467926150385634452L;
+
+    public enum Type {
+        //发布表单
+        deploy,
+        //取消发布
+        unDeploy,
+        //节点已处理发布事件,用于统计各节点的发布延迟
+        applied
+    }
+
+    private Type type;
+
+    private String formName;
+
+    //发布的版本
+    private int version;
+
+    //发出事件的节点
+    private String nodeId;
+
+    //发布时间,只用于统计加载延迟,不用于判断事件先后
+    private long publishTime;
+
+    //节点处理完成的时间,仅type为applied时有值
+    private long applyTime;
+
+    //处理失败的原因,仅type为applied时有值
+    private String message;
+
+    public FormDeployEvent() {
+    }
+
+    public FormDeployEvent(Type type, String formName, int version, String nodeId) {
+        this.type = type;
+        this.formName = formName;
+        this.version = version;
+        this.nodeId = nodeId;
+        this.publishTime = System.currentTimeMillis();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getFormName() {
+        return formName;
+    }
+
+    public void setFormName(String formName) {
+        this.formName = formName;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public long getPublishTime() {
+        return publishTime;
+    }
+
+    public void setPublishTime(long publishTime) {
+        this.publishTime = publishTime;
+    }
+
+    public long getApplyTime() {
+        return applyTime;
+    }
+
+    public void setApplyTime(long applyTime) {
+        this.applyTime = applyTime;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + formName + "@" + version + " from " + nodeId;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.form;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 表单发布监控,获取集群中各节点加载已发布表单的状态和延迟
+ *
+ * @author zhouhao
+ * @see FormDeployBroadcaster
+ * @since 2.2
+ */
+public interface FormDeployMonitor {
+
+    /**
+     * @return 当前节点id
+     */
+    String getNodeId();
+
+    /**
+     * 获取集群中各节点的发布状态,只包含当前节点启动后发布过的表单
+     *
+     * @return 节点id->发布状态
+     */
+    Map<String, List<FormDeployStatus>> getStatus();
+}
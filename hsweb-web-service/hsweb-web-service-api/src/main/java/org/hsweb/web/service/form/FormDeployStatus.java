@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.form;
+
+/**
+ * 节点中表单的发布状态
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class FormDeployStatus {
+
+    private final String nodeId;
+
+    private final String formName;
+
+    private final int version;
+
+    private final long publishTime;
+
+    private final long applyTime;
+
+    private final String message;
+
+    public FormDeployStatus(String nodeId, FormDeployEvent event, long applyTime, String message) {
+        this.nodeId = nodeId;
+        this.formName = event.getFormName();
+        this.version = event.getVersion();
+        this.publishTime = event.getPublishTime();
+        this.applyTime = applyTime;
+        this.message = message;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getFormName() {
+        return formName;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public long getPublishTime() {
+        return publishTime;
+    }
+
+    public long getApplyTime() {
+        return applyTime;
+    }
+
+    /**
+     * @return 从发布到节点加载完成的延迟(毫秒), 包含节点间的时钟误差
+     */
+    public long getLag() {
+        return Math.max(0, applyTime - publishTime);
+    }
+
+    /**
+     * @return 是否加载成功
+     */
+    public boolean isSuccess() {
+        return message == null;
+    }
+
+    /**
+     * @return 加载失败的原因
+     */
+    public String getMessage() {
+        return message;
+    }
+}
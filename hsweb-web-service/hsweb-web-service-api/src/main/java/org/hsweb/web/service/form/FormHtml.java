@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.form;
+
+import java.io.Serializable;
+
+/**
+ * 已渲染的表单html,同一表单的同一修订版本渲染结果不变
+ *
+ * @author zhouhao
+ * @see FormService#renderDeployHtml(String)
+ * @since 2.2
+ */
+public class FormHtml implements Serializable {
+    private static final long serialVersionUID = -3925478140582436105L;
+
+    private final String formId;
+
+    private final int revision;
+
+    private final String html;
+
+    private final String etag;
+
+    public FormHtml(String formId, int revision, String html, String etag) {
+        this.formId = formId;
+        this.revision = revision;
+        this.html = html;
+        this.etag = etag;
+    }
+
+    public String getFormId() {
+        return formId;
+    }
+
+    public int getRevision() {
+        return revision;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    /**
+     * @return 根据html内容生成的强校验ETag, 已包含双引号, 可直接作为响应头
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.form;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 动态表单的索引声明,在表单meta的main中配置:
+ * <pre>
+ *     {"key":"indexes","value":"[{\"name\":\"idx_user_name\",\"columns\":[\"name\",\"status\"],\"unique\":false}]"}
+ * </pre>
+ * 也可以在字段中配置 {"key":"index","value":"true"} 或者 {"key":"index","value":"unique"} 声明单字段索引.
+ * 发布表单时根据上一次发布的索引声明创建或删除索引.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class FormIndex implements Serializable {
+    private static final long serialVersionUID = 2536215849761436530L;
+
+    private String name;
+
+    private List<String> columns = new ArrayList<>();
+
+    private boolean unique;
+
+    public FormIndex() {
+    }
+
+    public FormIndex(String name, List<String> columns, boolean unique) {
+        this.name = name;
+        this.columns = columns;
+        this.unique = unique;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return 索引字段, 顺序即索引中字段的顺序
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public void setUnique(boolean unique) {
+        this.unique = unique;
+    }
+
+    /**
+     * 判断索引定义是否相同(字段及顺序,是否唯一)
+     *
+     * @param index 另一个索引
+     * @return 是否相同
+     */
+    public boolean sameDefinition(FormIndex index) {
+        return index != null && unique == index.unique && columns.equals(index.columns);
+    }
+
+    @Override
+    public String toString() {
+        return (unique ? "unique " : "") + name + columns;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.form;
+
+import java.util.List;
+
+/**
+ * 索引建议
+ *
+ * @author zhouhao
+ * @see FormQueryMonitor
+ * @since 2.2
+ */
+public class FormIndexSuggestion {
+
+    private final String formName;
+
+    private final List<String> columns;
+
+    private final long queryCount;
+
+    private final long totalQueryCount;
+
+    public FormIndexSuggestion(String formName, List<String> columns, long queryCount, long totalQueryCount) {
+        this.formName = formName;
+        this.columns = columns;
+        this.queryCount = queryCount;
+        this.totalQueryCount = totalQueryCount;
+    }
+
+    public String getFormName() {
+        return formName;
+    }
+
+    /**
+     * @return 建议的索引字段, 按字段在查询中出现的次数倒序
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return 使用了这些字段作为条件的查询次数
+     */
+    public long getQueryCount() {
+        return queryCount;
+    }
+
+    /**
+     * @return 表单的查询总数
+     */
+    public long getTotalQueryCount() {
+        return totalQueryCount;
+    }
+
+    /**
+     * @return 使用了这些字段的查询占比
+     */
+    public double getRatio() {
+        return totalQueryCount == 0 ? 0 : (double) queryCount / totalQueryCount;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.form;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 动态表单查询统计,记录每个表单的查询条件中使用的字段,并根据已声明的索引给出索引建议
+ *
+ * @author zhouhao
+ * @see FormIndex
+ * @since 2.2
+ */
+public interface FormQueryMonitor {
+
+    /**
+     * 获取查询条件中各字段的使用次数
+     *
+     * @return 表单名称->字段名称->使用次数, 其中字段名称为*的值为表单的查询总数
+     */
+    Map<String, Map<String, Long>> getTermStats();
+
+    /**
+     * 获取缺失的索引建议,查询中经常使用但没有可用索引的字段组合
+     *
+     * @return 索引建议, 按查询次数倒序
+     */
+    List<FormIndexSuggestion> getIndexSuggestions();
+
+    /**
+     * 清空统计数据
+     */
+    void reset();
+}
@@ -60,6 +60,25 @@ public interface FormService extends GenericService<Form, String> {
      */
     void unDeploy(String formId);
 
+    /**
+     * 重新加载已发布的表单的表结构和验证器,不修改数据库中的表.
+     * 用于集群中其他节点发布表单后,在当前节点加载新的表结构
+     *
+     * @param name 表单名称
+     * @return 加载的表单版本
+     * @since 2.2
+     */
+    int reloadDeployed(String name);
+
+    /**
+     * 卸载当前节点中已发布的表单,不修改数据库中的数据.
+     * 用于集群中其他节点取消发布表单后,在当前节点卸载表单
+     *
+     * @param name 表单名称
+     * @since 2.2
+     */
+    void unloadDeployed(String name);
+
     /**
      * 创建当前已部署表单对应的html，用于前端渲染.
      * 要创建的表单必须已经发布
@@ -69,6 +88,15 @@ public interface FormService extends GenericService<Form, String> {
      */
     String createDeployHtml(String name);
 
+    /**
+     * 获取当前已部署表单渲染后的html,同一修订版本只渲染一次
+     *
+     * @param name 表单名称
+     * @return 渲染结果, 包含html和ETag
+     * @since 2.2
+     */
+    FormHtml renderDeployHtml(String name);
+
     /**
      * 根据名称查询已部署的表单
      *
@@ -105,6 +133,15 @@ public interface FormService extends GenericService<Form, String> {
     @Deprecated
     String createViewHtml(String id);
 
+    /**
+     * 获取表单当前修订版本渲染后的html,同一修订版本只渲染一次
+     *
+     * @param id 表单ID
+     * @return 渲染结果, 包含html和ETag
+     * @since 2.2
+     */
+    FormHtml renderViewHtml(String id);
+
     /**
      * 查询当前正在使用的表单
      *
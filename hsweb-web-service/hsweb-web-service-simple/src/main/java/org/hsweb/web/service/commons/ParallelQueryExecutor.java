@@ -0,0 +1,122 @@
+package org.hsweb.web.service.commons;
+
+import org.hsweb.web.core.datasource.DynamicDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行查询执行器,用于分页查询时将总数查询与分页查询并行执行.
+ * 任务在独立的线程中执行,使用连接池中的其他连接,并沿用提交任务时选中的数据源.
+ * 同时执行的任务数量受maxConcurrent限制,该值应小于连接池的最大连接数,超过限制的任务在提交者线程中执行.
+ *
+ * @author zhouhao
+ * @see SimpleQueryService#selectPager(org.hsweb.web.bean.common.QueryParam)
+ * @since 2.2
+ */
+public class ParallelQueryExecutor {
+
+    private final ExecutorService executorService;
+
+    private final Semaphore semaphore;
+
+    private DataSource dataSource;
+
+    public ParallelQueryExecutor(int threads) {
+        this(threads, threads);
+    }
+
+    public ParallelQueryExecutor(int threads, int maxConcurrent) {
+        this.semaphore = new Semaphore(maxConcurrent);
+        AtomicInteger counter = new AtomicInteger();
+        this.executorService = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "parallel-query-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                //队列已满时在当前线程中执行
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        ((ThreadPoolExecutor) executorService).allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 设置数据源,用于判断调用者是否已经持有事务中的连接
+     *
+     * @param dataSource 数据源
+     */
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * 当前是否可以并行查询.调用者处于事务中或者已经持有绑定到当前线程的连接时不能并行查询:
+     * 其他连接无法读取到当前事务中未提交的数据,并且调用者持有连接的同时再占用连接,连接池不足时可能导致死锁
+     *
+     * @return 是否可以并行查询
+     */
+    public boolean isParallelSupported() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        return dataSource == null || !TransactionSynchronizationManager.hasResource(dataSource);
+    }
+
+    public <T> Future<T> submit(Callable<T> callable) {
+        if (!semaphore.tryAcquire()) {
+            //并行执行的任务已达上限,在当前线程中执行
+            FutureTask<T> task = new FutureTask<>(callable);
+            task.run();
+            return task;
+        }
+        String dataSourceId = DynamicDataSource.getActiveDataSourceId();
+        try {
+            return executorService.submit(() -> {
+                //线程池已满时任务在提交者线程中执行,需要还原执行前的数据源
+                String before = DynamicDataSource.getActiveDataSourceId();
+                if (dataSourceId != null) DynamicDataSource.use(dataSourceId);
+                else DynamicDataSource.useDefault(false);
+                try {
+                    return callable.call();
+                } finally {
+                    semaphore.release();
+                    if (before != null) DynamicDataSource.use(before);
+                    else DynamicDataSource.useDefault(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取任务执行结果,任务执行异常时抛出原始异常
+     *
+     * @param future 任务
+     * @param <T>    结果类型
+     * @return 执行结果
+     */
+    public <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+    }
+}
@@ -4,18 +4,37 @@ import org.hsweb.web.bean.common.InsertParam;
 import org.hsweb.web.bean.po.GenericPo;
 import org.hsweb.web.dao.InsertMapper;
 import org.hsweb.web.service.InsertService;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author zhouhao
  */
 public interface SimpleInsertService<Po extends GenericPo<Pk>, Pk> extends InsertService<Po, Pk> {
 
+    /**
+     * 默认批量添加时每批提交的数据条数
+     */
+    int DEFAULT_INSERT_BATCH_SIZE = 500;
+
     InsertMapper<Po> getInsertMapper();
 
     void tryValidPo(Po data);
 
     Class<Pk> getPKType();
 
+    /**
+     * 批量添加时每批提交的数据条数,可重写此方法进行自定义
+     *
+     * @return 每批提交的数据条数
+     * @since 2.2
+     */
+    default int getInsertBatchSize() {
+        return DEFAULT_INSERT_BATCH_SIZE;
+    }
+
     @Override
     default Pk insert(Po data) {
         if (getPKType() == String.class && data.getId() == null) {
@@ -25,4 +44,52 @@ public interface SimpleInsertService<Po extends GenericPo<Pk>, Pk> extends Inser
         getInsertMapper().insert(InsertParam.build(data));
         return data.getId();
     }
+
+    /**
+     * 批量添加数据,逐条调用{@link #insert(GenericPo)},重写了单条添加逻辑的服务类无需重写此方法
+     *
+     * @param data 要添加的数据集合
+     * @return 添加后生成的主键集合
+     * @since 2.2
+     */
+    @Override
+    @Transactional(rollbackFor = Throwable.class)
+    default List<Pk> insert(List<Po> data) {
+        List<Pk> ids = new ArrayList<>(data.size());
+        for (Po po : data) {
+            ids.add(insert(po));
+        }
+        return ids;
+    }
+
+    /**
+     * 批量添加数据,按{@link #getInsertBatchSize()}分批执行{@link InsertMapper#insertBatch(List)}.
+     * 注意:此方法直接通过mapper写入,不会调用{@link #insert(GenericPo)},
+     * 仅适用于单条添加逻辑只有生成主键和验证的服务类
+     *
+     * @param data 要添加的数据集合
+     * @return 添加后生成的主键集合
+     * @since 2.2
+     */
+    @Override
+    @Transactional(rollbackFor = Throwable.class)
+    default List<Pk> insertBatch(List<Po> data) {
+        List<Pk> ids = new ArrayList<>(data.size());
+        int batchSize = Math.max(1, getInsertBatchSize());
+        List<InsertParam<Po>> batch = new ArrayList<>(Math.min(batchSize, data.size()));
+        for (Po po : data) {
+            if (getPKType() == String.class && po.getId() == null) {
+                ((GenericPo<String>) po).setId(GenericPo.createUID());
+            }
+            tryValidPo(po);
+            batch.add(InsertParam.build(po));
+            ids.add(po.getId());
+            if (batch.size() >= batchSize) {
+                getInsertMapper().insertBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) getInsertMapper().insertBatch(batch);
+        return ids;
+    }
 }
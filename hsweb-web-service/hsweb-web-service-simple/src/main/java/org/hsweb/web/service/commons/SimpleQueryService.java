@@ -1,13 +1,23 @@
 package org.hsweb.web.service.commons;
 
+import org.hsweb.web.bean.accessor.BeanAccessor;
 import org.hsweb.web.bean.common.PagerResult;
 import org.hsweb.web.bean.common.QueryParam;
+import org.hsweb.web.bean.common.TotalMode;
+import org.hsweb.web.bean.po.GenericPo;
+import org.hsweb.web.core.datasource.DataSourceHolder;
+import org.hsweb.web.core.datasource.DatabaseType;
+import org.hsweb.web.dao.Cursor;
 import org.hsweb.web.dao.QueryMapper;
+import org.hsweb.web.dao.QueryStreamExecutor;
 import org.hsweb.web.service.QueryService;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * @author zhouhao
@@ -15,18 +25,165 @@ import java.util.List;
 public interface SimpleQueryService<Po, Pk> extends QueryService<Po, Pk> {
     QueryMapper<Po, Pk> getQueryMapper();
 
+    /**
+     * 获取流式查询执行器,为null时流式查询将退化为普通查询
+     *
+     * @return 流式查询执行器
+     * @since 2.2
+     */
+    default QueryStreamExecutor getQueryStreamExecutor() {
+        return null;
+    }
+
+    /**
+     * 获取并行查询执行器,为null时(默认未开启,见hsweb.query.parallel.enabled)总数查询与分页查询依次执行
+     *
+     * @return 并行查询执行器
+     * @since 2.2
+     */
+    default ParallelQueryExecutor getParallelQueryExecutor() {
+        return null;
+    }
+
+    /**
+     * 分页查询,根据{@link QueryParam#getTotalMode()}决定获取总数的方式:
+     * 精确查询时,条件允许将与分页查询并行执行;估算时总数仅供参考,是否存在下一页通过探测确定;探测时不执行count查询.
+     */
     @Override
     default PagerResult<Po> selectPager(QueryParam param) {
+        if (param.isCursorPaging()) return selectCursorPager(param);
+        if (param.getTotalMode() == TotalMode.probe
+                || (param.getTotalMode() == TotalMode.estimate && !param.getTerms().isEmpty())) {
+            return selectProbePager(param);
+        }
+        if (param.getTotalMode() == TotalMode.estimate) return selectEstimatePager(param);
         PagerResult<Po> pagerResult = new PagerResult<>();
-        param.setPaging(false);
-        int total = getQueryMapper().total(param);
-        pagerResult.setTotal(total);
-        if (total == 0) {
-            pagerResult.setData(new ArrayList<>());
+        ParallelQueryExecutor executor = getParallelQueryExecutor();
+        if (executor != null && executor.isParallelSupported()) {
+            QueryParam totalParam = param.copyTerms();
+            Future<Integer> future = executor.submit(() -> getQueryMapper().total(totalParam));
+            List<Po> data = getQueryMapper().select(param);
+            int total = executor.get(future);
+            pagerResult.setTotal(total);
+            if (data.isEmpty() && total > 0 && param.getPageIndex() != 0) {
+                //当前页没有数据,根据实际记录数量重新指定分页参数
+                param.rePaging(total);
+                data = getQueryMapper().select(param);
+            }
+            pagerResult.setData(data);
         } else {
-            //根据实际记录数量重新指定分页参数
-            param.rePaging(total);
-            pagerResult.setData(getQueryMapper().select(param));
+            param.setPaging(false);
+            int total = getQueryMapper().total(param);
+            pagerResult.setTotal(total);
+            if (total == 0) {
+                pagerResult.setData(new ArrayList<>());
+            } else {
+                //根据实际记录数量重新指定分页参数
+                param.rePaging(total);
+                pagerResult.setData(getQueryMapper().select(param));
+            }
+        }
+        pagerResult.setHasNext((param.getPageIndex() + 1) * param.getPageSize() < pagerResult.getTotal());
+        return pagerResult;
+    }
+
+    /**
+     * 使用数据库统计信息估算总数的分页查询.统计信息可能过期(如刚导入数据的表估算值为0),
+     * 因此始终执行分页查询,并通过{@link #selectProbePager(QueryParam)}确定是否存在下一页,
+     * 返回的总数不小于已确认存在的数据数量.
+     *
+     * @param param 查询参数
+     * @return 分页结果
+     * @since 2.2
+     */
+    @Transactional(readOnly = true)
+    default PagerResult<Po> selectEstimatePager(QueryParam param) {
+        QueryParam totalParam = param.copyTerms();
+        ParallelQueryExecutor executor = getParallelQueryExecutor();
+        Future<Integer> future = null;
+        if (executor != null && executor.isParallelSupported()) {
+            future = executor.submit(() -> getQueryMapper().total(totalParam));
+        }
+        PagerResult<Po> pagerResult = selectProbePager(param);
+        int estimate = future != null ? executor.get(future) : getQueryMapper().total(totalParam);
+        //已经到达最后一页时探测得到的总数是精确的,否则以估算值为准
+        if (!pagerResult.isExactTotal()) {
+            pagerResult.setTotal(Math.max(estimate, pagerResult.getTotal()));
+        }
+        return pagerResult;
+    }
+
+    /**
+     * 不查询总数的分页查询,在当前页的基础上多查询一条数据,以此判断是否存在下一页,多查询的数据不会返回.
+     * 返回的总数为已查询到的数据数量,存在下一页时不是精确值
+     *
+     * @param param 查询参数
+     * @return 分页结果
+     * @since 2.2
+     */
+    @Transactional(readOnly = true)
+    default PagerResult<Po> selectProbePager(QueryParam param) {
+        PagerResult<Po> pagerResult = new PagerResult<>();
+        int pageSize = param.getPageSize();
+        int offset = param.getPageIndex() * pageSize;
+        List<Po> data;
+        param.doProbePaging(param.getPageIndex(), pageSize);
+        try {
+            data = getQueryMapper().select(param);
+        } finally {
+            param.resetProbePaging();
+        }
+        boolean hasNext = data.size() > pageSize;
+        if (hasNext) {
+            data = new ArrayList<>(data.subList(0, pageSize));
+        }
+        pagerResult.setData(data);
+        pagerResult.setHasNext(hasNext);
+        pagerResult.setExactTotal(!hasNext && (!data.isEmpty() || offset == 0));
+        pagerResult.setTotal(offset + data.size() + (hasNext ? 1 : 0));
+        return pagerResult;
+    }
+
+    /**
+     * 游标分页查询,根据{@link QueryParam#getCursor()}定位下一页数据,不使用offset.
+     * 只在查询第一页并且{@link QueryParam#getTotalMode()}为{@link TotalMode#exact}时查询总数,
+     * 其他情况额外查询一条数据判断是否存在下一页,返回的总数不是精确值.
+     * 排序字段需为数据的属性名称
+     *
+     * @param param 查询参数
+     * @return 分页结果, 包含下一页的游标
+     * @see QueryParam#applyCursor(String, boolean)
+     * @since 2.2
+     */
+    @Transactional(readOnly = true)
+    default PagerResult<Po> selectCursorPager(QueryParam param) {
+        PagerResult<Po> pagerResult = new PagerResult<>();
+        if (param.getCursor().isEmpty() && param.getTotalMode() == TotalMode.exact) {
+            param.setPaging(false);
+            pagerResult.setTotal(getQueryMapper().total(param));
+        } else {
+            pagerResult.setExactTotal(false);
+        }
+        DatabaseType databaseType = DataSourceHolder.getActiveDatabaseType();
+        param.applyCursor(GenericPo.Property.id, databaseType == null || databaseType.isNullsFirst());
+        int pageSize = param.getPageSize();
+        //多查询一条数据,判断是否存在下一页
+        param.doPaging(0, pageSize + 1);
+        List<Po> data = getQueryMapper().select(param);
+        param.doPaging(0, pageSize);
+        boolean hasNext = data.size() > pageSize;
+        if (hasNext) data = new ArrayList<>(data.subList(0, pageSize));
+        pagerResult.setData(data);
+        pagerResult.setHasNext(hasNext);
+        if (!pagerResult.isExactTotal()) pagerResult.setTotal(data.size() + (hasNext ? 1 : 0));
+        if (hasNext) {
+            Po last = data.get(data.size() - 1);
+            BeanAccessor<Po> accessor = BeanAccessor.of((Class<Po>) last.getClass());
+            pagerResult.setNextCursor(param.createNextCursor(name -> {
+                Function<Po, Object> getter = accessor.getter(name);
+                if (getter == null) throw new IllegalArgumentException("游标分页的排序字段[" + name + "]不存在");
+                return getter.apply(last);
+            }));
         }
         return pagerResult;
     }
@@ -37,6 +194,31 @@ public interface SimpleQueryService<Po, Pk> extends QueryService<Po, Pk> {
         return getQueryMapper().select(param);
     }
 
+    /**
+     * 流式查询,未配置{@link QueryStreamExecutor}时一次性查询全部数据再逐条处理.查询使用参数的副本,不会修改传入的参数
+     */
+    @Override
+    default void stream(QueryParam param, Consumer<Po> consumer) {
+        QueryStreamExecutor executor = getQueryStreamExecutor();
+        if (executor == null) {
+            QueryService.super.stream(param, consumer);
+        } else {
+            executor.stream(getQueryMapper(), param.copyQuery(), consumer);
+        }
+    }
+
+    /**
+     * 游标查询,未配置{@link QueryStreamExecutor}时一次性查询全部数据,返回基于查询结果的游标.查询使用参数的副本,不会修改传入的参数
+     */
+    @Override
+    default Cursor<Po> cursor(QueryParam param) {
+        QueryStreamExecutor executor = getQueryStreamExecutor();
+        if (executor == null) {
+            return QueryService.super.cursor(param);
+        }
+        return executor.cursor(getQueryMapper(), param.copyQuery());
+    }
+
     @Override
     @Transactional(readOnly = true)
     default int total(QueryParam param) {
@@ -1,13 +1,17 @@
 package org.hsweb.web.service.commons;
 
 import org.hsweb.ezorm.core.dsl.Update;
+import org.hsweb.web.bean.common.InsertParam;
 import org.hsweb.web.bean.common.UpdateParam;
 import org.hsweb.web.bean.po.GenericPo;
 import org.hsweb.web.dao.UpdateMapper;
+import org.hsweb.web.dao.UpsertMapper;
 import org.hsweb.web.service.InsertService;
 import org.hsweb.web.service.QueryService;
 import org.hsweb.web.service.UpdateService;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -25,6 +29,9 @@ public interface SimpleUpdateService<Po extends GenericPo<Pk>, Pk> extends Updat
         return createUpdate().fromBean(data).where(GenericPo.Property.id).exec();
     }
 
+    /**
+     * 批量修改,逐条调用{@link #update(GenericPo)},重写了单条修改逻辑的服务类无需重写此方法
+     */
     @Override
     default int update(List<Po> data) {
         int i = 0;
@@ -34,6 +41,31 @@ public interface SimpleUpdateService<Po extends GenericPo<Pk>, Pk> extends Updat
         return i;
     }
 
+    /**
+     * 根据主键批量修改数据,修改的字段相同的数据将通过jdbc batch一起提交.
+     * 注意:此方法直接通过mapper修改,不会调用{@link #update(GenericPo)},
+     * 仅适用于单条修改逻辑只有验证的服务类
+     *
+     * @param data 要修改的数据
+     * @return 每条数据的影响行数, 顺序与data一致
+     * @see UpdateMapper#updateBatch(List)
+     * @since 2.2
+     */
+    @Override
+    @Transactional(rollbackFor = Throwable.class)
+    default int[] updateBatch(List<Po> data) {
+        if (data.isEmpty()) return new int[0];
+        List<UpdateParam<Po>> params = new ArrayList<>(data.size());
+        for (Po po : data) {
+            tryValidPo(po);
+            UpdateParam<Po> param = UpdateParam.build(po);
+            param.where(GenericPo.Property.id, po.getId());
+            params.add(param);
+        }
+        getUpdateMapper().updateBatch(params);
+        return params.stream().mapToInt(UpdateParam::getAffectedRows).toArray();
+    }
+
     @Override
     default int saveOrUpdate(Po po) {
         if (this instanceof QueryService) {
@@ -50,6 +82,24 @@ public interface SimpleUpdateService<Po extends GenericPo<Pk>, Pk> extends Updat
         return 1;
     }
 
+    /**
+     * 使用数据库原生的upsert语句新增或修改数据,mapper需单独继承{@link UpsertMapper}.
+     * 注意:此方法直接通过mapper写入,不会调用{@link #update(GenericPo)}和新增方法,
+     * 仅适用于单条新增和修改逻辑只有验证的服务类
+     */
+    @Override
+    default int upsert(Po po) {
+        UpdateMapper<Po> mapper = getUpdateMapper();
+        if (po.getId() == null) {
+            throw new IllegalArgumentException("upsert必须指定主键");
+        }
+        if (!(mapper instanceof UpsertMapper)) {
+            throw new UnsupportedOperationException("不支持此操作");
+        }
+        tryValidPo(po);
+        return ((UpsertMapper<Po>) mapper).upsert(InsertParam.build(po)) > 0 ? 1 : 0;
+    }
+
     /**
      * 创建dsl更新操作对象，默认使用map进行数据填充,调用此方法,需要通过{@link Update#set(String, Object)}进行属性赋值
      *
@@ -7,6 +7,7 @@ import org.hsweb.web.core.exception.NotFoundException;
 import org.hsweb.web.core.exception.ValidationException;
 import org.hsweb.web.dao.*;
 import org.hsweb.web.service.GenericService;
+import org.hsweb.web.service.commons.ParallelQueryExecutor;
 import org.hsweb.web.service.commons.SimpleDeleteService;
 import org.hsweb.web.service.commons.SimpleInsertService;
 import org.hsweb.web.service.commons.SimpleQueryService;
@@ -40,6 +41,12 @@ public abstract class AbstractServiceImpl<Po extends GenericPo<PK>, PK> implemen
     @Autowired
     protected Validator validator;
 
+    @Autowired(required = false)
+    protected QueryStreamExecutor queryStreamExecutor;
+
+    @Autowired(required = false)
+    protected ParallelQueryExecutor parallelQueryExecutor;
+
     protected abstract GenericMapper<Po, PK> getMapper();
 
     @Override
@@ -52,6 +59,16 @@ public abstract class AbstractServiceImpl<Po extends GenericPo<PK>, PK> implemen
         return getMapper();
     }
 
+    @Override
+    public QueryStreamExecutor getQueryStreamExecutor() {
+        return queryStreamExecutor;
+    }
+
+    @Override
+    public ParallelQueryExecutor getParallelQueryExecutor() {
+        return parallelQueryExecutor;
+    }
+
     @Override
     public UpdateMapper<Po> getUpdateMapper() {
         return getMapper();
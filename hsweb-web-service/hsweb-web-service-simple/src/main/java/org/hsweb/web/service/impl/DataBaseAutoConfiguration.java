@@ -9,12 +9,14 @@ import org.hsweb.ezorm.rdb.meta.parser.H2TableMetaParser;
 import org.hsweb.ezorm.rdb.meta.parser.MysqlTableMetaParser;
 import org.hsweb.ezorm.rdb.meta.parser.OracleTableMetaParser;
 import org.hsweb.ezorm.rdb.meta.parser.TableMetaParser;
+import org.hsweb.ezorm.rdb.render.SqlRender;
 import org.hsweb.ezorm.rdb.render.dialect.H2RDBDatabaseMetaData;
 import org.hsweb.ezorm.rdb.render.dialect.MysqlRDBDatabaseMetaData;
 import org.hsweb.ezorm.rdb.render.dialect.OracleRDBDatabaseMetaData;
 import org.hsweb.ezorm.rdb.simple.SimpleDatabase;
 import org.hsweb.web.core.authorize.ExpressionScopeBean;
 import org.hsweb.web.core.datasource.DataSourceHolder;
+import org.hsweb.web.core.datasource.DatabaseType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureOrder;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -54,16 +56,31 @@ public class DataBaseAutoConfiguration {
         RDBDatabaseMetaData dataBaseMetaData;
         switch (DataSourceHolder.getDefaultDatabaseType()) {
             case mysql:
-                dataBaseMetaData = new MysqlRDBDatabaseMetaData();
+                dataBaseMetaData = new MysqlRDBDatabaseMetaData() {
+                    @Override
+                    public void init() {
+                        super.init();
+                        renderMap.put(SqlRender.TYPE.SELECT, new ProbePagingSelectRender(renderMap.get(SqlRender.TYPE.SELECT), DatabaseType.mysql));
+                    }
+                };
                 break;
             case oracle:
-                dataBaseMetaData = new OracleRDBDatabaseMetaData();
-                break;
-            case h2:
-                dataBaseMetaData = new H2RDBDatabaseMetaData();
+                dataBaseMetaData = new OracleRDBDatabaseMetaData() {
+                    @Override
+                    public void init() {
+                        super.init();
+                        renderMap.put(SqlRender.TYPE.SELECT, new ProbePagingSelectRender(renderMap.get(SqlRender.TYPE.SELECT), DatabaseType.oracle));
+                    }
+                };
                 break;
             default:
-                dataBaseMetaData = new H2RDBDatabaseMetaData();
+                dataBaseMetaData = new H2RDBDatabaseMetaData() {
+                    @Override
+                    public void init() {
+                        super.init();
+                        renderMap.put(SqlRender.TYPE.SELECT, new ProbePagingSelectRender(renderMap.get(SqlRender.TYPE.SELECT), DatabaseType.h2));
+                    }
+                };
                 break;
         }
         if (objectWrapperFactory != null)
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl;
+
+import org.hsweb.ezorm.core.param.QueryParam;
+import org.hsweb.ezorm.rdb.executor.SQL;
+import org.hsweb.ezorm.rdb.meta.RDBTableMetaData;
+import org.hsweb.ezorm.rdb.render.SqlRender;
+import org.hsweb.ezorm.rdb.render.support.simple.SimpleSQL;
+import org.hsweb.web.core.datasource.DatabaseType;
+import org.hsweb.web.core.datasource.PagingSqlRender;
+
+/**
+ * 支持{@link org.hsweb.web.bean.common.QueryParam#isProbePaging()}的查询sql渲染器,
+ * 多查询一条数据时按偏移量分页,其他情况交给原渲染器处理
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class ProbePagingSelectRender implements SqlRender<QueryParam> {
+
+    private final SqlRender<QueryParam> render;
+
+    private final DatabaseType databaseType;
+
+    public ProbePagingSelectRender(SqlRender<QueryParam> render, DatabaseType databaseType) {
+        this.render = render;
+        this.databaseType = databaseType;
+    }
+
+    public static boolean isSupport(DatabaseType databaseType) {
+        return PagingSqlRender.isSupport(databaseType);
+    }
+
+    @Override
+    public SQL render(RDBTableMetaData metaData, QueryParam param) {
+        if (!(param instanceof org.hsweb.web.bean.common.QueryParam)
+                || !((org.hsweb.web.bean.common.QueryParam) param).isProbePaging()) {
+            return render.render(metaData, param);
+        }
+        //不分页渲染,再按偏移量分页
+        param.setPaging(false);
+        SQL sql;
+        try {
+            sql = render.render(metaData, param);
+        } finally {
+            param.setPaging(true);
+        }
+        int offset = param.getPageIndex() * param.getPageSize();
+        return new SimpleSQL(PagingSqlRender.render(databaseType, sql.getSql(), offset, param.getPageSize() + 1), sql.getParams());
+    }
+}
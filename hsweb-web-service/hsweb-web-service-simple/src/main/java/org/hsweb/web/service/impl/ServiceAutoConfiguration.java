@@ -1,8 +1,16 @@
 package org.hsweb.web.service.impl;
 
+import org.hsweb.web.service.commons.ParallelQueryExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+
 /**
  * Created by zhouhao on 16-5-6.
  */
@@ -11,5 +19,21 @@ import org.springframework.context.annotation.Configuration;
         basePackages = {"org.hsweb.web.service.impl"}
 )
 public class ServiceAutoConfiguration {
-    
+
+    @Autowired(required = false)
+    private DataSource dataSource;
+
+    /**
+     * 分页查询时并行查询总数,需要配置hsweb.query.parallel.enabled=true开启.
+     * hsweb.query.parallel.max-concurrent为同时并行执行的查询数量,应小于连接池的最大连接数
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(ParallelQueryExecutor.class)
+    @ConditionalOnProperty(name = "hsweb.query.parallel.enabled", havingValue = "true")
+    public ParallelQueryExecutor parallelQueryExecutor(@Value("${hsweb.query.parallel.threads:0}") int threads,
+                                                       @Value("${hsweb.query.parallel.max-concurrent:4}") int maxConcurrent) {
+        ParallelQueryExecutor executor = new ParallelQueryExecutor(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), maxConcurrent);
+        executor.setDataSource(dataSource);
+        return executor;
+    }
 }
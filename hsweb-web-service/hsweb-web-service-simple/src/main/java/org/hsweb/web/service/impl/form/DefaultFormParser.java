@@ -16,6 +16,8 @@ import org.hsweb.ezorm.rdb.render.dialect.Dialect;
 import org.hsweb.ezorm.rdb.simple.trigger.ScriptTraggerSupport;
 import org.hsweb.web.bean.po.form.Form;
 import org.hsweb.web.core.datasource.DataSourceHolder;
+import org.hsweb.web.core.exception.BusinessException;
+import org.hsweb.web.service.form.FormIndex;
 import org.hsweb.web.service.form.FormParser;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -171,6 +173,7 @@ public class DefaultFormParser implements FormParser {
                 metaData.addColumn(columnMetaData);
             }
         });
+        metaData.setProperty("indexes", parseIndexes(metaData));
         if (listeners != null) {
             listeners.forEach(listener -> listener.afterParse(metaData));
         }
@@ -183,6 +186,64 @@ public class DefaultFormParser implements FormParser {
         return metaData;
     }
 
+    /**
+     * 解析表单声明的索引,包括main中的indexes配置和字段中的index配置.
+     * 索引字段可使用字段名或者别名,未指定索引名称时根据表名和字段名生成
+     *
+     * @param metaData 表结构
+     * @return 索引列表, 无索引时返回空列表
+     * @since 2.2
+     */
+    protected List<FormIndex> parseIndexes(RDBTableMetaData metaData) {
+        Map<String, FormIndex> indexes = new LinkedHashMap<>();
+        Object config = metaData.getProperty("indexes").getValue();
+        if (config instanceof String && !StringUtils.isNullOrEmpty(config)) {
+            config = JSON.parseArray((String) config);
+        }
+        if (config instanceof List) {
+            for (Object indexConfig : ((List) config)) {
+                FormIndex index = JSON.parseObject(JSON.toJSONString(indexConfig), FormIndex.class);
+                List<String> columns = new ArrayList<>();
+                for (String column : index.getColumns()) {
+                    RDBColumnMetaData columnMetaData = metaData.findColumn(column);
+                    if (columnMetaData == null) {
+                        throw new BusinessException("索引" + index.getColumns() + "的字段[" + column + "]不存在");
+                    }
+                    columns.add(columnMetaData.getName());
+                }
+                index.setColumns(columns);
+                addIndex(metaData, indexes, index);
+            }
+        }
+        for (RDBColumnMetaData column : metaData.getColumns()) {
+            Object index = column.getProperty("index").getValue();
+            if (index == null) continue;
+            boolean unique = "unique".equals(String.valueOf(index));
+            if (!unique && !Boolean.parseBoolean(String.valueOf(index))) continue;
+            addIndex(metaData, indexes, new FormIndex(null, new ArrayList<>(Collections.singletonList(column.getName())), unique));
+        }
+        return new ArrayList<>(indexes.values());
+    }
+
+    private void addIndex(RDBTableMetaData metaData, Map<String, FormIndex> indexes, FormIndex index) {
+        if (index.getColumns().isEmpty()) {
+            throw new BusinessException("索引[" + index.getName() + "]未指定字段");
+        }
+        if (StringUtils.isNullOrEmpty(index.getName())) {
+            //oracle中索引名称最长30个字符
+            String name = "idx_" + metaData.getName() + "_" + String.join("_", index.getColumns());
+            if (name.length() > 30) {
+                name = "idx_" + Integer.toHexString((metaData.getName() + index.getColumns()).hashCode());
+            }
+            index.setName(name.toLowerCase());
+        }
+        FormIndex old = indexes.get(index.getName());
+        if (old != null && !old.sameDefinition(index)) {
+            throw new BusinessException("索引[" + index.getName() + "]重复声明");
+        }
+        indexes.put(index.getName(), index);
+    }
+
     protected boolean validatorSupport(String validator) {
         return !StringUtils.isNullOrEmpty(validator);
     }
@@ -3,45 +3,71 @@ package org.hsweb.web.service.impl.form;
 import com.alibaba.fastjson.JSON;
 import org.hsweb.commons.StringUtils;
 import org.hsweb.concurrent.lock.annotation.LockName;
-import org.hsweb.concurrent.lock.annotation.ReadLock;
 import org.hsweb.concurrent.lock.annotation.WriteLock;
-import org.hsweb.expands.office.excel.ExcelIO;
 import org.hsweb.expands.office.excel.config.Header;
 import org.hsweb.ezorm.core.*;
 import org.hsweb.ezorm.rdb.RDBDatabase;
 import org.hsweb.ezorm.rdb.RDBQuery;
 import org.hsweb.ezorm.rdb.RDBTable;
+import org.hsweb.ezorm.rdb.executor.SqlExecutor;
 import org.hsweb.ezorm.rdb.meta.RDBColumnMetaData;
 import org.hsweb.ezorm.rdb.meta.RDBTableMetaData;
 import org.hsweb.ezorm.rdb.meta.builder.TableBuilder;
 import org.hsweb.ezorm.rdb.meta.builder.simple.SimpleTableBuilder;
 import org.hsweb.ezorm.rdb.meta.parser.TableMetaParser;
+import org.hsweb.ezorm.rdb.meta.expand.SimpleMapWrapper;
+import org.hsweb.ezorm.rdb.render.dialect.Dialect;
+import org.hsweb.ezorm.rdb.render.SqlRender;
+import org.hsweb.ezorm.rdb.render.support.simple.SimpleSQL;
 import org.hsweb.web.bean.common.DeleteParam;
 import org.hsweb.web.bean.common.PagerResult;
 import org.hsweb.web.bean.common.QueryParam;
+import org.hsweb.web.bean.common.TotalMode;
 import org.hsweb.web.bean.common.UpdateParam;
 import org.hsweb.web.bean.po.GenericPo;
 import org.hsweb.web.bean.po.form.Form;
 import org.hsweb.web.bean.po.history.History;
 import org.hsweb.web.core.authorize.ExpressionScopeBean;
+import org.hsweb.web.core.datasource.DataSourceHolder;
+import org.hsweb.web.core.datasource.DatabaseType;
+import org.hsweb.web.core.datasource.IndexSqlRender;
+import org.hsweb.web.core.datasource.ReplicaRouting;
+import org.hsweb.web.core.datasource.RowCountEstimateSqlRender;
 import org.hsweb.web.core.exception.BusinessException;
 import org.hsweb.web.core.exception.NotFoundException;
+import org.hsweb.web.core.monitor.sql.SqlProfiler;
 import org.hsweb.web.service.form.DynamicFormDataValidator;
 import org.hsweb.web.service.form.DynamicFormService;
+import org.hsweb.web.service.form.ExcelImportProgress;
+import org.hsweb.web.service.form.FormIndex;
 import org.hsweb.web.service.form.FormParser;
+import org.hsweb.web.service.commons.ParallelQueryExecutor;
 import org.hsweb.web.service.form.FormService;
 import org.hsweb.web.service.history.HistoryService;
+import org.hsweb.web.service.impl.ProbePagingSelectRender;
+import org.hsweb.web.service.impl.form.deploy.FormDeployScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
+import javax.sql.DataSource;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Created by zhouhao on 16-4-14.
@@ -73,6 +99,86 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
     @Autowired(required = false)
     protected TableMetaParser tableMetaParser;
 
+    @Autowired(required = false)
+    protected SqlExecutor sqlExecutor;
+
+    @Autowired(required = false)
+    protected ParallelQueryExecutor parallelQueryExecutor;
+
+    @Autowired(required = false)
+    protected DataSource dataSource;
+
+    @Autowired(required = false)
+    protected SqlProfiler sqlProfiler;
+
+    @Autowired(required = false)
+    @Lazy
+    protected FormDeployScheduler deployScheduler;
+
+    @Autowired(required = false)
+    protected FormQueryStatistics queryStatistics;
+
+    /**
+     * 表单定义了这些触发器时,不使用批量修改,以保证触发器正常执行
+     */
+    protected static final List<String> batchUpdateExcludeTriggers =
+            Arrays.asList("update.before", "update.done");
+
+    /**
+     * 批量修改时每批提交的行数
+     */
+    @Value("${hsweb.form.batch-size:500}")
+    protected int batchSize = 500;
+
+    /**
+     * excel导出时每次查询的行数
+     */
+    @Value("${hsweb.form.export.chunk-size:1000}")
+    protected int exportChunkSize = 1000;
+
+    /**
+     * excel导出时内存中保留的行数,其余行写入临时文件
+     */
+    @Value("${hsweb.form.export.window-size:100}")
+    protected int exportWindowSize = 100;
+
+    /**
+     * excel导入时每批处理的行数
+     */
+    @Value("${hsweb.form.import.chunk-size:500}")
+    protected int importChunkSize = 500;
+
+    /**
+     * excel导入时已解析,等待处理的最大块数
+     */
+    @Value("${hsweb.form.import.queue-size:4}")
+    protected int importQueueSize = 4;
+
+    /**
+     * excel导入结束后保留导入进度的时间(毫秒)
+     */
+    protected long importProgressRetention = TimeUnit.MINUTES.toMillis(10);
+
+    protected final Map<String, ExcelImportProgress> importProgress = new ConcurrentHashMap<>();
+
+    protected final FormTableSnapshots tableSnapshots = new FormTableSnapshots(this::createTriggerScope);
+
+    /**
+     * 创建表单触发器的基础变量,发布表单时创建一次
+     *
+     * @param table 表
+     * @return 基础变量
+     * @since 2.2
+     */
+    protected Map<String, Object> createTriggerScope(RDBTable table) {
+        Map<String, Object> scope = new HashMap<>();
+        if (expressionScopeBeanMap != null)
+            scope.putAll(expressionScopeBeanMap);
+        scope.put("database", database);
+        scope.put("table", table);
+        return scope;
+    }
+
     protected void initDefaultField(RDBTableMetaData metaData) {
         metaData.setDatabaseMetaData(database.getMeta());
         TableBuilder builder = new SimpleTableBuilder(metaData, database, null);
@@ -100,13 +206,16 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
         metaData.setProperty("version", form.getRevision());
         initDefaultField(metaData);
         RDBTableMetaData lastDeployMetaData;
+        List<FormIndex> lastDeployIndexes;
         if (tableMetaParser == null) {
             History history = historyService.selectLastHistoryByType("form.deploy." + form.getName());
             Form lastDeploy = JSON.parseObject(history.getChangeAfter(), Form.class);
             lastDeployMetaData = formParser.parse(lastDeploy);
             initDefaultField(lastDeployMetaData);
+            lastDeployIndexes = getIndexes(lastDeployMetaData);
         } else {
             lastDeployMetaData = tableMetaParser.parse(form.getName());
+            lastDeployIndexes = getLastDeployIndexes(form.getName());
         }
         //首次部署
         if (lastDeployMetaData == null || lastDeployMetaData.getColumns().isEmpty()) {
@@ -115,13 +224,90 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
             } catch (Exception e) {
                 throw new BusinessException("发布失败:" + e.getMessage());
             }
+            lastDeployIndexes = Collections.emptyList();
         } else {
             //向上发布
             database.reloadTable(lastDeployMetaData);//先放入旧的结构
             //更新结构
             database.alterTable(metaData);
         }
+        alterIndexes(form.getName(), lastDeployIndexes, getIndexes(metaData));
+        //表结构更新完成后再发布快照,发布前的请求使用旧的表结构
+        tableSnapshots.publish(form.getName(), database.getTable(form.getName()));
+        if (deployScheduler != null) deployScheduler.cancel(form.getName());
+    }
+
+    /**
+     * 获取表结构中声明的索引
+     *
+     * @param metaData 表结构
+     * @return 索引列表
+     * @see DefaultFormParser#parseIndexes(RDBTableMetaData)
+     * @since 2.2
+     */
+    @SuppressWarnings("unchecked")
+    protected List<FormIndex> getIndexes(RDBTableMetaData metaData) {
+        if (metaData == null) return Collections.emptyList();
+        Object indexes = metaData.getProperty("indexes").getValue();
+        if (!(indexes instanceof List)) return Collections.emptyList();
+        return ((List<Object>) indexes).stream()
+                .filter(FormIndex.class::isInstance)
+                .map(FormIndex.class::cast)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 从发布历史中获取上一次发布时声明的索引,从数据库读取的表结构中不包含索引声明
+     *
+     * @since 2.2
+     */
+    protected List<FormIndex> getLastDeployIndexes(String name) {
+        History history = historyService.selectLastHistoryByType("form.deploy." + name);
+        if (history == null) return Collections.emptyList();
+        try {
+            return getIndexes(formParser.parse(JSON.parseObject(history.getChangeAfter(), Form.class)));
+        } catch (Exception e) {
+            logger.warn("解析表单[{}]上一次发布的索引失败", name, e);
+            return Collections.emptyList();
+        }
+    }
 
+    /**
+     * 根据上一次发布和本次发布声明的索引,删除不再声明或者定义已变化的索引,并创建新的索引.
+     * 索引只影响查询性能,创建或者删除失败时(如数据库中已存在同名索引)仅记录日志,不影响发布
+     *
+     * @param name    表名
+     * @param before  上一次发布声明的索引
+     * @param after   本次发布声明的索引
+     * @since 2.2
+     */
+    protected void alterIndexes(String name, List<FormIndex> before, List<FormIndex> after) {
+        if (before.isEmpty() && after.isEmpty()) return;
+        DatabaseType databaseType = DataSourceHolder.getActiveDatabaseType();
+        if (sqlExecutor == null || !IndexSqlRender.isSupport(databaseType)) {
+            logger.warn("当前数据库[{}]不支持自动维护表单[{}]的索引", databaseType, name);
+            return;
+        }
+        Map<String, FormIndex> afterMap = after.stream().collect(Collectors.toMap(FormIndex::getName, Function.identity()));
+        Map<String, FormIndex> beforeMap = before.stream().collect(Collectors.toMap(FormIndex::getName, Function.identity()));
+        for (FormIndex index : before) {
+            if (index.sameDefinition(afterMap.get(index.getName()))) continue;
+            try {
+                sqlExecutor.exec(new SimpleSQL(IndexSqlRender.renderDrop(databaseType, name, index.getName())));
+                logger.info("删除表单[{}]的索引{}", name, index);
+            } catch (Exception e) {
+                logger.warn("删除表单[{}]的索引{}失败", name, index, e);
+            }
+        }
+        for (FormIndex index : after) {
+            if (index.sameDefinition(beforeMap.get(index.getName()))) continue;
+            try {
+                sqlExecutor.exec(new SimpleSQL(IndexSqlRender.renderCreate(databaseType, name, index.getName(), index.getColumns(), index.isUnique())));
+                logger.info("创建表单[{}]的索引{}", name, index);
+            } catch (Exception e) {
+                logger.warn("创建表单[{}]的索引{}失败", name, index, e);
+            }
+        }
     }
 
     @Override
@@ -129,30 +315,89 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
     @LockName(value = "'form.lock.'+#form.name", isExpression = true)
     public void unDeploy(Form form) {
         database.removeTable(form.getName());
+        tableSnapshots.remove(form.getName());
+        if (deployScheduler != null) deployScheduler.cancel(form.getName());
+    }
+
+    @Override
+    @WriteLock
+    @LockName(value = "'form.lock.'+#metaData.name", isExpression = true)
+    public void reloadTable(RDBTableMetaData metaData) {
+        database.reloadTable(metaData);
+        tableSnapshots.publish(metaData.getName(), database.getTable(metaData.getName()));
     }
 
     public <T> RDBTable<T> getTableByName(String name) {
+        return getSnapshot(name).getTable();
+    }
+
+    /**
+     * 获取表单的表结构快照,不加锁.发布表单期间获取到的是发布前的表结构
+     *
+     * @param name 表单名称
+     * @return 表结构快照
+     * @throws NotFoundException 表单不存在或在未发布
+     * @since 2.2
+     */
+    protected FormTableSnapshots.Snapshot getSnapshot(String name) {
+        FormTableSnapshots.Snapshot snapshot = tableSnapshots.get(name);
+        if (snapshot != null) return snapshot;
+        //延迟加载的表单
+        if (deployScheduler != null && deployScheduler.materialize(name)) {
+            snapshot = tableSnapshots.get(name);
+            if (snapshot != null) return snapshot;
+        }
+        //不是通过deploy发布的表,如启动时直接加载的表
+        RDBTable table;
         try {
-            RDBTable<T> table = database.getTable(name);
-            if (table == null) {
-                throw new NotFoundException("表单[" + name + "]不存在");
-            }
-            return table;
+            table = database.getTable(name);
         } catch (Exception e) {
             throw new NotFoundException("表单[" + name + "]不存在");
         }
+        if (table == null) {
+            throw new NotFoundException("表单[" + name + "]不存在");
+        }
+        return tableSnapshots.publishIfAbsent(name, table);
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     @Transactional(readOnly = true)
     public <T> PagerResult<T> selectPager(String name, QueryParam param) throws SQLException {
         PagerResult<T> result = new PagerResult<>();
         RDBTable<T> table = getTableByName(name);
+        recordQuery(table, param);
+        if (param.isCursorPaging()) {
+            return selectCursorPager(name, table, param);
+        }
+        DatabaseType databaseType = DataSourceHolder.getActiveDatabaseType();
+        boolean estimate = param.getTotalMode() == TotalMode.estimate && param.getTerms().isEmpty()
+                && sqlExecutor != null && RowCountEstimateSqlRender.isSupport(databaseType);
+        if (param.getTotalMode() == TotalMode.probe || (param.getTotalMode() == TotalMode.estimate && !estimate)) {
+            return selectProbePager(table, param);
+        }
+        if (estimate) {
+            return selectEstimatePager(table, param, databaseType);
+        }
         RDBQuery<T> query = table.createQuery();
         query.setParam(param);
-        int total = query.total();
+        int total;
+        if (parallelQueryExecutor != null && parallelQueryExecutor.isParallelSupported()) {
+            //总数查询与分页查询并行执行
+            QueryParam totalParam = param.copyTerms();
+            Future<Integer> future = parallelQueryExecutor.submit(() -> table.createQuery().setParam(totalParam).total());
+            List<T> data = query.list(param.getPageIndex(), param.getPageSize());
+            total = parallelQueryExecutor.get(future);
+            if (data.isEmpty() && total > 0 && param.getPageIndex() != 0) {
+                param.rePaging(total);
+                data = query.list(param.getPageIndex(), param.getPageSize());
+            }
+            result.setTotal(total);
+            result.setData(data);
+            result.setHasNext((param.getPageIndex() + 1) * param.getPageSize() < total);
+            return result;
+        } else {
+            total = query.total();
+        }
         result.setTotal(total);
         if (total == 0) {
             result.setData(new ArrayList<>());
@@ -161,22 +406,105 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
             param.rePaging(total);
             result.setData(query.list(param.getPageIndex(), param.getPageSize()));
         }
+        result.setHasNext((param.getPageIndex() + 1) * param.getPageSize() < total);
+        return result;
+    }
+
+    /**
+     * 使用数据库统计信息估算总数的分页查询.统计信息可能过期,估算值只作为总数返回,
+     * 分页数据始终查询,是否存在下一页通过{@link #selectProbePager(RDBTable, QueryParam)}确定
+     *
+     * @since 2.2
+     */
+    protected <T> PagerResult<T> selectEstimatePager(RDBTable<T> table, QueryParam param, DatabaseType databaseType) throws SQLException {
+        PagerResult<T> result = selectProbePager(table, param);
+        //已经到达最后一页时探测得到的总数是精确的
+        if (!result.isExactTotal()) {
+            List<Map<String, Object>> rows = sqlExecutor.list(
+                    new SimpleSQL(RowCountEstimateSqlRender.render(databaseType, table.getMeta().getName())), new SimpleMapWrapper());
+            int estimate = rows.isEmpty() ? 0 : ((Number) rows.get(0).values().iterator().next()).intValue();
+            result.setTotal(Math.max(estimate, result.getTotal()));
+        }
+        return result;
+    }
+
+    /**
+     * 游标分页查询,根据上一页最后一条数据的排序字段值定位下一页.
+     * 只在查询第一页并且总数模式为{@link TotalMode#exact}时查询总数,其他情况额外查询一条数据判断是否存在下一页
+     *
+     * @since 2.2
+     */
+    protected <T> PagerResult<T> selectCursorPager(String name, RDBTable<T> table, QueryParam param) throws SQLException {
+        PagerResult<T> result = new PagerResult<>();
+        if (param.getCursor().isEmpty() && param.getTotalMode() == TotalMode.exact) {
+            result.setTotal(table.createQuery().setParam(param).total());
+        } else {
+            result.setExactTotal(false);
+        }
+        DatabaseType databaseType = DataSourceHolder.getActiveDatabaseType();
+        param.applyCursor(getPrimaryKeyName(name), databaseType == null || databaseType.isNullsFirst());
+        int pageSize = param.getPageSize();
+        List<T> data = table.createQuery().setParam(param).list(0, pageSize + 1);
+        boolean hasNext = data.size() > pageSize;
+        if (hasNext) data = new ArrayList<>(data.subList(0, pageSize));
+        result.setData(data);
+        result.setHasNext(hasNext);
+        if (!result.isExactTotal()) result.setTotal(data.size() + (hasNext ? 1 : 0));
+        if (hasNext) {
+            T last = data.get(data.size() - 1);
+            result.setNextCursor(param.createNextCursor(field -> getCursorValue(table.getMeta(), last, field)));
+        }
+        return result;
+    }
+
+    /**
+     * 不查询总数的分页查询,在当前页的基础上多查询一条数据判断是否存在下一页,多查询的数据不会返回.
+     * 查询渲染器不支持时(见{@link ProbePagingSelectRender}),额外查询下一页的第一条数据
+     *
+     * @since 2.2
+     */
+    protected <T> PagerResult<T> selectProbePager(RDBTable<T> table, QueryParam param) throws SQLException {
+        PagerResult<T> result = new PagerResult<>();
+        int pageSize = param.getPageSize();
+        int offset = param.getPageIndex() * pageSize;
+        List<T> data;
+        boolean hasNext;
+        if (table.getMeta().getDatabaseMetaData().getRenderer(SqlRender.TYPE.SELECT) instanceof ProbePagingSelectRender) {
+            param.doProbePaging(param.getPageIndex(), pageSize);
+            try {
+                data = table.createQuery().setParam(param).list(param.getPageIndex(), pageSize);
+            } finally {
+                param.resetProbePaging();
+            }
+            hasNext = data.size() > pageSize;
+            if (hasNext) data = new ArrayList<>(data.subList(0, pageSize));
+        } else {
+            QueryParam probe = param.copyTerms();
+            data = table.createQuery().setParam(param).list(param.getPageIndex(), pageSize);
+            hasNext = data.size() >= pageSize
+                    && !table.createQuery().setParam(probe).list(offset + pageSize, 1).isEmpty();
+        }
+        result.setData(data);
+        result.setHasNext(hasNext);
+        result.setExactTotal(!hasNext && (!data.isEmpty() || offset == 0));
+        result.setTotal(offset + data.size() + (hasNext ? 1 : 0));
         return result;
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     @Transactional(readOnly = true)
     public <T> List<T> select(String name, QueryParam param) throws SQLException {
         RDBTable<T> table = getTableByName(name);
+        recordQuery(table, param);
         RDBQuery<T> query = table.createQuery().setParam(param);
         return query.list();
     }
 
+    protected void recordQuery(RDBTable table, QueryParam param) {
+        if (queryStatistics != null) queryStatistics.record(table.getMeta(), param);
+    }
+
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     @Transactional(readOnly = true)
     public int total(String name, QueryParam param) throws SQLException {
         RDBTable table = getTableByName(name);
@@ -185,8 +513,6 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     public String insert(String name, Map<String, Object> data) throws SQLException {
         RDBTable table = getTableByName(name);
         String primaryKeyName = getPrimaryKeyName(name);
@@ -198,8 +524,6 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     public List<String> insert(String name, List<Map<String, Object>> dataList) throws SQLException {
         RDBTable table = getTableByName(name);
         String primaryKeyName = getPrimaryKeyName(name);
@@ -213,6 +537,10 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
         return idList;
     }
 
+    /**
+     * 保存或修改数据.指定了主键时只根据主键修改,不会新增数据;
+     * 未指定主键时通过{@link DynamicFormDataValidator}查找重复数据,存在则修改,否则新增
+     */
     @Override
     public String saveOrUpdate(String name, Map<String, Object> data) throws SQLException {
         String id = (String) data.get(getPrimaryKeyName(name));
@@ -229,13 +557,189 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
     @Override
     public String saveOrUpdate(String name, List<Map<String, Object>> map) throws SQLException {
         StringBuilder builder = new StringBuilder();
-        for (Map<String, Object> objectMap : map) {
-            String id = saveOrUpdate(name, objectMap);
+        for (String id : saveOrUpdateBatch(name, map)) {
             builder.append(id).append(",");
         }
         return builder.substring(0, builder.length());
     }
 
+    @Override
+    public List<String> saveOrUpdateBatch(String name, List<Map<String, Object>> dataList) throws SQLException {
+        FormTableSnapshots.Snapshot snapshot = getSnapshot(name);
+        RDBTable<Map<String, Object>> table = snapshot.getTable();
+        String primaryKeyName = snapshot.getPrimaryKeyName();
+        String[] ids = new String[dataList.size()];
+        List<Map<String, Object>> updateList = new ArrayList<>();
+        List<Integer> unresolved = new ArrayList<>();
+        for (int i = 0; i < dataList.size(); i++) {
+            Object id = dataList.get(i).get(primaryKeyName);
+            if (id != null) {
+                //指定了主键时只修改,与saveOrUpdate(String, Map)一致
+                ids[i] = String.valueOf(id);
+                updateList.add(dataList.get(i));
+            } else {
+                unresolved.add(i);
+            }
+        }
+        //每个验证器对整批数据查找一次重复数据
+        if (dynamicFormDataValidator != null) {
+            for (DynamicFormDataValidator validator : dynamicFormDataValidator) {
+                if (unresolved.isEmpty()) break;
+                List<Map<String, Object>> unresolvedData = unresolved.stream().map(dataList::get).collect(Collectors.toList());
+                List<String> repeatIds = validator.getRepeatDataIds(table, unresolvedData);
+                List<Integer> next = new ArrayList<>();
+                for (int i = 0; i < unresolved.size(); i++) {
+                    int index = unresolved.get(i);
+                    String id = repeatIds.get(i);
+                    if (id == null) {
+                        next.add(index);
+                        continue;
+                    }
+                    ids[index] = id;
+                    dataList.get(index).put(primaryKeyName, id);
+                    updateList.add(dataList.get(index));
+                }
+                unresolved = next;
+            }
+        }
+        if (!batchUpdate(table, primaryKeyName, updateList)) {
+            for (Map<String, Object> data : updateList) {
+                updateByPk(name, String.valueOf(data.get(primaryKeyName)), UpdateParam.build(data));
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            List<String> newIds = insert(name, unresolved.stream().map(dataList::get).collect(Collectors.toList()));
+            for (int i = 0; i < unresolved.size(); i++) {
+                ids[unresolved.get(i)] = newIds.get(i);
+            }
+        }
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * 根据主键批量修改数据,与{@link #updateByPk(String, String, UpdateParam)}一样忽略值为null的字段.
+     * 修改的字段相同的数据共用一个{@link PreparedStatement},通过jdbc批量提交,使用当前事务中的连接执行.
+     * 数据库不支持,表单配置了验证器或者修改触发器时不执行,返回false,由调用者逐条修改
+     *
+     * @param table          表
+     * @param primaryKeyName 主键
+     * @param dataList       包含主键的数据
+     * @return 是否已执行
+     * @throws SQLException      sql执行异常
+     * @throws BusinessException 数据没有主键或者没有需要修改的字段
+     * @since 2.2
+     */
+    protected boolean batchUpdate(RDBTable table, String primaryKeyName, List<Map<String, Object>> dataList) throws SQLException {
+        if (dataList.isEmpty()) return true;
+        DatabaseType databaseType = DataSourceHolder.getActiveDatabaseType();
+        RDBTableMetaData metaData = table.getMeta();
+        if (dataSource == null || databaseType == null || databaseType == DatabaseType.unknown
+                || metaData.getValidator() != null
+                || batchUpdateExcludeTriggers.stream().anyMatch(metaData::triggerIsSupport)) {
+            return false;
+        }
+        Map<List<String>, List<Object[]>> batches = new LinkedHashMap<>();
+        for (int i = 0; i < dataList.size(); i++) {
+            Map<String, Object> param = new LinkedHashMap<>();
+            dataList.get(i).forEach((key, value) -> {
+                RDBColumnMetaData column = metaData.findColumn(key);
+                if (column == null || value == null || param.containsKey(column.getName())) return;
+                if (column.getValueConverter() != null) value = column.getValueConverter().getData(value);
+                param.put(column.getName(), toJdbcValue(value));
+            });
+            Object primaryKey = param.remove(primaryKeyName);
+            if (primaryKey == null) {
+                throw new BusinessException("第" + (i + 1) + "条数据缺少主键[" + primaryKeyName + "]");
+            }
+            if (param.isEmpty()) {
+                throw new BusinessException("第" + (i + 1) + "条数据没有需要修改的字段");
+            }
+            //参数顺序为: 修改的字段...,主键
+            List<Object> values = new ArrayList<>(param.values());
+            values.add(primaryKey);
+            batches.computeIfAbsent(new ArrayList<>(param.keySet()), c -> new ArrayList<>()).add(values.toArray());
+        }
+        for (Map.Entry<List<String>, List<Object[]>> batch : batches.entrySet()) {
+            StringJoiner sets = new StringJoiner(",");
+            batch.getKey().forEach(column -> sets.add(encodeColumn(databaseType, column) + "=?"));
+            String sql = "UPDATE " + encodeColumn(databaseType, metaData.getName()) + " SET " + sets
+                    + " WHERE " + encodeColumn(databaseType, primaryKeyName) + "=?";
+            executeBatch(sql, batch.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * 转换为jdbc支持的值,{@link java.util.Date}转换为{@link Timestamp}
+     */
+    protected Object toJdbcValue(Object value) {
+        if (value instanceof java.util.Date && !(value instanceof Timestamp)
+                && !(value instanceof java.sql.Date) && !(value instanceof java.sql.Time)) {
+            return new Timestamp(((java.util.Date) value).getTime());
+        }
+        return value;
+    }
+
+    /**
+     * 使用同一个{@link PreparedStatement}批量执行sql,每{@link #batchSize}条提交一次.
+     * 不经过{@link SqlExecutor},执行耗时和影响行数直接记录到{@link SqlProfiler}
+     *
+     * @param sql    sql
+     * @param params 每条数据的参数
+     * @throws SQLException sql执行异常
+     */
+    protected void executeBatch(String sql, List<Object[]> params) throws SQLException {
+        //修改语句始终使用主库
+        Boolean routing = ReplicaRouting.markStatement(false);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        long rows = 0;
+        Throwable error = null;
+        long start = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int size = 0;
+            for (Object[] param : params) {
+                for (int i = 0; i < param.length; i++) {
+                    statement.setObject(i + 1, param[i]);
+                }
+                statement.addBatch();
+                if (++size % batchSize == 0 || size == params.size()) {
+                    for (int count : statement.executeBatch()) {
+                        //部分驱动批量执行时不返回影响行数
+                        rows += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+            ReplicaRouting.markStatement(routing);
+            if (sqlProfiler != null && sqlProfiler.isEnabled()) {
+                SqlProfiler.NormalizedSql normalized = SqlProfiler.normalize(sql);
+                sqlProfiler.record("JdbcBatch:".concat(normalized.getSql()), sql, normalized.getBinds(),
+                        System.nanoTime() - start, rows, error);
+            }
+        }
+    }
+
+    protected String encodeColumn(DatabaseType databaseType, String column) {
+        Dialect dialect = databaseType.getDialect();
+        return dialect.getQuoteStart() + (dialect.columnToUpperCase() ? column.toUpperCase() : column) + dialect.getQuoteEnd();
+    }
+
+    protected Object getCursorValue(RDBTableMetaData metaData, Object data, String field) {
+        if (!(data instanceof Map)) return null;
+        Map<String, Object> map = ((Map) data);
+        Object value = map.get(field);
+        RDBColumnMetaData column = metaData.findColumn(field);
+        if (value == null && column != null) {
+            value = map.get(column.getAlias());
+            if (value == null) value = map.get(column.getName());
+        }
+        return value;
+    }
+
     protected String getRepeatDataId(String name, Map<String, Object> data) {
         RDBTable table = getTableByName(name);
         if (dynamicFormDataValidator != null) {
@@ -250,8 +754,6 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     public boolean deleteByPk(String name, String pk) throws SQLException {
         String primaryKeyName = getPrimaryKeyName(name);
         RDBTable table = getTableByName(name);
@@ -260,8 +762,6 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     public int delete(String name, DeleteParam where) throws SQLException {
         RDBTable table = getTableByName(name);
         Delete delete = table.createDelete();
@@ -270,8 +770,6 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     public int updateByPk(String name, String pk, UpdateParam<Map<String, Object>> param) throws SQLException {
         RDBTable table = getTableByName(name);
         String pkName = getPrimaryKeyName(name);
@@ -282,24 +780,35 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     public int update(String name, UpdateParam<Map<String, Object>> param) throws SQLException {
         RDBTable table = getTableByName(name);
         Update update = table.createUpdate().setParam(param);
         return update.exec();
     }
 
-    @ReadLock
-    @LockName(value = "'form.lock.'+#tableName", isExpression = true)
     public String getPrimaryKeyName(String tableName) {
-        RDBTable table = getTableByName(tableName);
-        return table.getMeta().getProperty("primaryKey", "u_id").toString();
+        return getSnapshot(tableName).getPrimaryKeyName();
+    }
+
+    @Override
+    public Object convertOption(String name, String field, Object value, boolean toData) {
+        FormTableSnapshots.Snapshot snapshot = getSnapshot(name);
+        RDBColumnMetaData column = snapshot.getTable().getMeta().findColumn(field);
+        if (column == null) throw new NotFoundException("字段不存在");
+        return snapshot.getOptionDictionary().convert(column.getName(), value, toData);
+    }
+
+    @Override
+    public void convertOptions(String name, List<Map<String, Object>> dataList) {
+        getSnapshot(name).getOptionDictionary().convert(dataList);
+    }
+
+    @Value("${hsweb.form.option-cache-size:10000}")
+    public void setOptionCacheSize(int optionCacheSize) {
+        tableSnapshots.setOptionCacheSize(optionCacheSize);
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     public <T> T selectByPk(String name, Object pk) throws SQLException {
         Table<T> table = getTableByName(name);
         Query<T> query = table.createQuery().where(getPrimaryKeyName(name), pk);
@@ -327,16 +836,44 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
         }
     }
 
+    /**
+     * 流式导出excel,按块查询数据并写入{@link ExcelStreamWriter},内存占用与导出的数据量无关.
+     * 分块查询使用游标分页(keyset分页),每块数据执行一次export.excel触发器,
+     * 表头根据第一条数据生成,第一块数据的触发器中可修改表头.
+     */
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     @Transactional(readOnly = true)
     public void exportExcel(String name, QueryParam param, OutputStream outputStream) throws Exception {
-        List<Object> dataList = select(name, param);
-        RDBTable table = getTableByName(name);
+        FormTableSnapshots.Snapshot snapshot = getSnapshot(name);
+        RDBTable<Map<String, Object>> table = snapshot.getTable();
         RDBTableMetaData metaData = table.getMeta();
+        ExportChunkQuery chunkQuery = new ExportChunkQuery(table, param, snapshot.getPrimaryKeyName());
+        boolean trigger = metaData.triggerIsSupport("export.excel");
+        Map<String, Object> var = snapshot.getTriggerScope().newContext();
+        try (ExcelStreamWriter writer = new ExcelStreamWriter(exportWindowSize)) {
+            List<Header> headers = null;
+            List<Map<String, Object>> dataList;
+            do {
+                dataList = chunkQuery.next();
+                //整块数据一次转换数据字典,相同的值只转换一次
+                snapshot.getOptionDictionary().convert(dataList);
+                if (headers == null) {
+                    headers = createExcelHeaders(metaData, dataList.isEmpty() ? new HashMap<>() : dataList.get(0));
+                }
+                if (trigger) {
+                    var.put("dataList", dataList);
+                    var.put("headers", headers);
+                    metaData.on("export.excel", var);
+                }
+                if (writer.getRowCount() == 0) writer.writeHeader(new ArrayList<>(headers));
+                writer.write(dataList);
+            } while (chunkQuery.hasNext());
+            writer.finish(outputStream);
+        }
+    }
+
+    protected List<Header> createExcelHeaders(RDBTableMetaData metaData, Map<String, Object> sample) {
         List<Header> headers = new LinkedList<>();
-        Map<String, Object> sample = dataList.isEmpty() ? new HashMap<>() : (Map) dataList.get(0);
         sample.forEach((key, value) -> {
             if (value instanceof Map) {
                 ((Map) value).forEach((k, v) -> {
@@ -349,35 +886,217 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
                 putExcelHeader("", field, headers);
             }
         });
-        if (metaData.triggerIsSupport("export.excel")) {
-            Map<String, Object> var = new HashMap<>();
-            if (expressionScopeBeanMap != null)
-                var.putAll(expressionScopeBeanMap);
-            var.put("database", database);
-            var.put("table", table);
-            var.put("dataList", dataList);
-            var.put("headers", headers);
-            metaData.on("export.excel", var);
+        return headers;
+    }
+
+    /**
+     * 导出时的分块查询.使用游标分页逐块查询,每块的查询开销相同.
+     * 游标条件会处理排序字段值为null的数据,因此排序字段允许为null,
+     * 排序字段需要包含在查询结果中,否则无法生成下一块的游标
+     */
+    protected class ExportChunkQuery {
+        final RDBTable<Map<String, Object>> table;
+
+        final String primaryKeyName;
+
+        final boolean nullsFirst;
+
+        //不包含游标条件的查询参数
+        final QueryParam base;
+
+        String cursor = "";
+
+        boolean hasNext = true;
+
+        ExportChunkQuery(RDBTable<Map<String, Object>> table, QueryParam param, String primaryKeyName) {
+            this.table = table;
+            this.primaryKeyName = primaryKeyName;
+            DatabaseType databaseType = DataSourceHolder.getActiveDatabaseType();
+            this.nullsFirst = databaseType == null || databaseType.isNullsFirst();
+            //使用参数的副本,不修改调用者传入的参数
+            base = param.copyQuery();
+            base.setCursor("");
+            base.applyCursor(primaryKeyName, nullsFirst);
+            if (!base.getIncludes().isEmpty()) {
+                base.getSorts().forEach(sort -> base.getIncludes().add(sort.getName()));
+            }
+            base.getSorts().forEach(sort -> base.getExcludes().remove(sort.getName()));
+        }
+
+        boolean hasNext() {
+            return hasNext;
+        }
+
+        List<Map<String, Object>> next() throws SQLException {
+            QueryParam param = base.copyQuery();
+            param.setCursor(cursor);
+            param.applyCursor(primaryKeyName, nullsFirst);
+            //多查询一条数据,判断是否存在下一块
+            List<Map<String, Object>> data = table.createQuery().setParam(param).list(0, exportChunkSize + 1);
+            hasNext = data.size() > exportChunkSize;
+            if (hasNext) {
+                data = new ArrayList<>(data.subList(0, exportChunkSize));
+                Map<String, Object> last = data.get(data.size() - 1);
+                cursor = param.createNextCursor(field -> getCursorValue(table.getMeta(), last, field));
+            }
+            return data;
         }
-        ExcelIO.write(outputStream, headers, dataList);
     }
 
     @Override
-    @ReadLock
-    @LockName(value = "'form.lock.'+#name", isExpression = true)
     public Map<String, Object> importExcel(String name, InputStream inputStream) {
-        RDBTable<Map<String, Object>> table = getTableByName(name);
+        return importExcel(name, inputStream, null);
+    }
+
+    /**
+     * 表头映射,export.import.each触发器,通过{@link #saveOrUpdateBatch(String, List)}批量新增或者修改.
+     * 某条数据导入失败时不会回滚,而是记录错误原因.
+     */
+    @Override
+    public Map<String, Object> importExcel(String name, InputStream inputStream, String importId) {
+        FormTableSnapshots.Snapshot snapshot = getSnapshot(name);
+        RDBTable<Map<String, Object>> table = snapshot.getTable();
+        ExcelImportProgress progress = new ExcelImportProgress(importId, name);
+        if (importId != null) registerImportProgress(progress);
+        BlockingQueue<ImportChunk> queue = new ArrayBlockingQueue<>(importQueueSize);
+        Thread reader = new Thread(() -> {
+            ImportChunk end = ImportChunk.END;
+            try {
+                ExcelStreamReader.read(inputStream, importChunkSize, rows -> {
+                    progress.addRead(rows.size());
+                    putChunk(queue, new ImportChunk(rows, null), progress);
+                });
+            } catch (ImportAbortedException ignore) {
+                return;
+            } catch (Throwable e) {
+                end = new ImportChunk(null, e);
+            }
+            try {
+                putChunk(queue, end, progress);
+            } catch (ImportAbortedException ignore) {
+            }
+        }, "excel-import-" + name);
+        reader.setDaemon(true);
+        reader.start();
+        ImportContext context = new ImportContext(name, snapshot);
+        try {
+            while (true) {
+                ImportChunk chunk = queue.take();
+                if (chunk.error != null) {
+                    throw new BusinessException("解析excel失败,请确定文件格式正确!", chunk.error, 500);
+                }
+                if (chunk.rows == null) break;
+                progress.importing();
+                importChunk(context, chunk.rows, progress);
+            }
+            progress.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.fail("导入被中断");
+            throw new BusinessException("导入被中断", e, 500);
+        } catch (RuntimeException e) {
+            progress.fail(e.getMessage());
+            throw e;
+        } finally {
+            //导入失败时通知解析线程停止,并等待其释放输入流
+            if (!progress.isDone()) progress.fail(null);
+            reader.interrupt();
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         Map<String, Object> result = new HashMap<>();
-        long startTime = System.currentTimeMillis();
-        List<Map<String, Object>> excelData;
+        result.put("startTime", progress.getStartTime());
+        result.put("endTime", progress.getEndTime());
+        result.put("total", context.index);
+        result.put("success", progress.getSuccess());
+        result.put("errorMessage", context.errorMessage);
+        return result;
+    }
+
+    @Override
+    public ExcelImportProgress getImportProgress(String importId) {
+        return importProgress.get(importId);
+    }
+
+    protected void registerImportProgress(ExcelImportProgress progress) {
+        long expired = System.currentTimeMillis() - importProgressRetention;
+        importProgress.values().removeIf(old -> old.isDone() && old.getEndTime() < expired);
+        importProgress.put(progress.getId(), progress);
+    }
+
+    protected void putChunk(BlockingQueue<ImportChunk> queue, ImportChunk chunk, ExcelImportProgress progress) {
         try {
-            excelData = ExcelIO.read2Map(inputStream);
-        } catch (Exception e) {
-            throw new BusinessException("解析excel失败,请确定文件格式正确!", e, 500);
+            while (!queue.offer(chunk, 1, TimeUnit.SECONDS)) {
+                if (progress.isDone()) throw new ImportAbortedException();
+            }
+        } catch (InterruptedException e) {
+            throw new ImportAbortedException();
+        }
+    }
+
+    protected void importChunk(ImportContext context, List<Map<String, Object>> excelData, ExcelImportProgress progress) {
+        RDBTableMetaData metaData = context.table.getMeta();
+        List<Map<String, Object>> dataList = new ArrayList<>(excelData.size());
+        context.var.put("excelData", excelData);
+        context.var.put("dataList", dataList);
+        if (context.first) {
+            context.first = false;
+            if (metaData.triggerIsSupport("export.import.before")) {
+                metaData.on("export.import.before", context.var);
+            }
+        }
+        for (Map<String, Object> data : excelData) {
+            Map<String, Object> newData = new HashMap<>();
+            data.forEach((k, v) -> {
+                String field = context.headerMapper.get(k);
+                newData.put(field != null ? field : k, v);
+            });
+            dataList.add(newData);
+        }
+        boolean eachTrigger = metaData.triggerIsSupport("export.import.each");
+        List<Map<String, Object>> saveList = new ArrayList<>();
+        List<Integer> saveIndex = new ArrayList<>();
+        //未指定主键的数据,批量保存失败时需要移除批量新增时生成的主键
+        Set<Integer> noPrimaryKey = new HashSet<>();
+        for (Map<String, Object> data : dataList) {
+            int index = ++context.index;
+            try {
+                if (eachTrigger) {
+                    context.var.put("data", data);
+                    metaData.on("export.import.each", context.var);
+                }
+                if (data.get(context.primaryKeyName) == null) noPrimaryKey.add(saveList.size());
+                saveList.add(data);
+                saveIndex.add(index);
+            } catch (Exception e) {
+                context.addError(index, e, progress);
+            }
         }
-        List<Map<String, Object>> dataList = new LinkedList<>();
+        if (saveList.isEmpty()) return;
+        try {
+            //整块数据批量查找重复数据,批量新增或修改
+            saveOrUpdateBatch(context.name, saveList);
+            progress.addSuccess(saveList.size());
+        } catch (Exception batchError) {
+            //批量保存失败时逐条保存,记录每条数据的错误原因
+            for (int i = 0; i < saveList.size(); i++) {
+                Map<String, Object> data = saveList.get(i);
+                if (noPrimaryKey.contains(i)) data.remove(context.primaryKeyName);
+                try {
+                    saveOrUpdate(context.name, data);
+                    progress.addSuccess(1);
+                } catch (Exception e) {
+                    context.addError(saveIndex.get(i), e, progress);
+                }
+            }
+        }
+    }
+
+    protected Map<String, String> createImportHeaderMapper(RDBTableMetaData metaData) {
         Map<String, String> headerMapper = new HashMap<>();
-        RDBTableMetaData metaData = table.getMeta();
         metaData.getColumns().forEach(fieldMetaData -> {
             PropertyWrapper valueWrapper = fieldMetaData.getProperty("importExcel", true);
             if (valueWrapper.isTrue()) {
@@ -392,62 +1111,62 @@ public class DynamicFormServiceImpl implements DynamicFormService, ExpressionSco
                 headerMapper.put(title, field);
             }
         });
-        if (metaData.triggerIsSupport("export.import.before")) {
-            Map<String, Object> var = new HashMap<>();
+        return headerMapper;
+    }
+
+    protected class ImportContext {
+        final String name;
+
+        final RDBTable<Map<String, Object>> table;
+
+        final String primaryKeyName;
+
+        final Map<String, String> headerMapper;
+
+        //触发器变量,共享表单发布时创建的基础变量,每块数据只替换excelData,dataList,data
+        final Map<String, Object> var;
+
+        final List<Map<String, Object>> errorMessage = new LinkedList<>();
+
+        boolean first = true;
+
+        int index;
+
+        ImportContext(String name, FormTableSnapshots.Snapshot snapshot) {
+            this.name = name;
+            this.table = snapshot.getTable();
+            this.primaryKeyName = snapshot.getPrimaryKeyName();
+            this.headerMapper = createImportHeaderMapper(table.getMeta());
+            this.var = snapshot.getTriggerScope().newContext();
             var.put("headerMapper", headerMapper);
-            var.put("excelData", excelData);
-            var.put("dataList", dataList);
-            var.put("database", database);
-            var.put("table", table);
-            if (expressionScopeBeanMap != null)
-                var.putAll(expressionScopeBeanMap);
-            metaData.on("export.import.before", var);
-        }
-        excelData.forEach(data -> {
-            Map<String, Object> newData = new HashMap<>();
-            data.forEach((k, v) -> {
-                String field = headerMapper.get(k);
-                if (field != null) {
-                    newData.put(field, v);
-                } else {
-                    newData.put(k, v);
-                }
-            });
-            dataList.add(newData);
-        });
-        List<Map<String, Object>> errorMessage = new LinkedList<>();
-        int index = 0, success = 0;
-        for (Map<String, Object> map : dataList) {
-            index++;
-            try {
-                if (metaData.triggerIsSupport("export.import.each")) {
-                    Map<String, Object> var = new HashMap<>();
-                    var.put("headerMapper", headerMapper);
-                    var.put("excelData", excelData);
-                    var.put("dataList", dataList);
-                    var.put("data", map);
-                    var.put("database", database);
-                    var.put("table", table);
-                    if (expressionScopeBeanMap != null)
-                        var.putAll(expressionScopeBeanMap);
-                    metaData.on("export.import.each", var);
-                }
-                saveOrUpdate(name, map);
-                success++;
-            } catch (Exception e) {
-                Map<String, Object> errorMsg = new HashMap<>();
-                errorMsg.put("index", index);
-                errorMsg.put("message", e.getMessage());
-                errorMessage.add(errorMsg);
-            }
         }
-        long endTime = System.currentTimeMillis();
-        result.put("startTime", startTime);
-        result.put("endTime", endTime);
-        result.put("total", dataList.size());
-        result.put("success", success);
-        result.put("errorMessage", errorMessage);
-        return result;
+
+        void addError(int index, Exception e, ExcelImportProgress progress) {
+            Map<String, Object> errorMsg = new HashMap<>();
+            errorMsg.put("index", index);
+            errorMsg.put("message", e.getMessage());
+            errorMessage.add(errorMsg);
+            progress.addError(1);
+        }
+    }
+
+    static class ImportChunk {
+        static final ImportChunk END = new ImportChunk(null, null);
+
+        final List<Map<String, Object>> rows;
+
+        final Throwable error;
+
+        ImportChunk(List<Map<String, Object>> rows, Throwable error) {
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+
+    static class ImportAbortedException extends RuntimeException {
+        ImportAbortedException() {
+            super(null, null, false, false);
+        }
     }
 
 }
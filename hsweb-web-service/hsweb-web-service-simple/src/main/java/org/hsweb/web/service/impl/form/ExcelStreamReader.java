@@ -0,0 +1,271 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.hsweb.expands.office.excel.ExcelIO;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * excel流式读取,按块读取第一个sheet中的数据,第一行为表头,之后的每一行转为 表头->值 的map.
+ * xlsx文件通过SAX逐行解析,不会将整个工作簿加载到内存中;xls文件使用{@link ExcelIO#read2Map(InputStream)}读取后分块.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class ExcelStreamReader {
+
+    private static final byte[] ZIP_MAGIC = {0x50, 0x4B, 0x03, 0x04};
+
+    public interface ChunkConsumer {
+        void accept(List<Map<String, Object>> rows) throws Exception;
+    }
+
+    /**
+     * 读取excel
+     *
+     * @param inputStream excel输入流,不会被关闭
+     * @param chunkSize   每块的行数
+     * @param consumer    数据块消费者,抛出异常时停止读取
+     * @throws Exception 读取或者消费异常
+     */
+    public static void read(InputStream inputStream, int chunkSize, ChunkConsumer consumer) throws Exception {
+        BufferedInputStream in = new BufferedInputStream(inputStream);
+        if (isXlsx(in)) {
+            readXlsx(in, chunkSize, consumer);
+        } else {
+            List<Map<String, Object>> data = ExcelIO.read2Map(in);
+            for (int i = 0; i < data.size(); i += chunkSize) {
+                consumer.accept(new ArrayList<>(data.subList(i, Math.min(i + chunkSize, data.size()))));
+            }
+        }
+    }
+
+    protected static boolean isXlsx(BufferedInputStream in) throws IOException {
+        in.mark(ZIP_MAGIC.length);
+        try {
+            for (byte b : ZIP_MAGIC) {
+                if (in.read() != b) return false;
+            }
+            return true;
+        } finally {
+            in.reset();
+        }
+    }
+
+    protected static void readXlsx(InputStream in, int chunkSize, ChunkConsumer consumer) throws Exception {
+        //OPCPackage.open(InputStream)会将整个压缩包解压到内存,先写入临时文件
+        Path tmp = Files.createTempFile("excel-import-", ".xlsx");
+        try {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            try (OPCPackage pkg = OPCPackage.open(tmp.toFile(), PackageAccess.READ)) {
+                XSSFReader reader = new XSSFReader(pkg);
+                SheetHandler handler = new SheetHandler(new ReadOnlySharedStringsTable(pkg), reader.getStylesTable(), chunkSize, consumer);
+                Iterator<InputStream> sheets = reader.getSheetsData();
+                if (!sheets.hasNext()) return;
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true);
+                XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+                xmlReader.setContentHandler(handler);
+                try (InputStream sheet = sheets.next()) {
+                    xmlReader.parse(new InputSource(sheet));
+                } catch (SAXException e) {
+                    if (e.getException() != null) throw e.getException();
+                    throw e;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+
+        private final StylesTable styles;
+
+        private final int chunkSize;
+
+        private final ChunkConsumer consumer;
+
+        private final List<String> headers = new ArrayList<>();
+
+        private List<Map<String, Object>> chunk = new ArrayList<>();
+
+        private final StringBuilder text = new StringBuilder();
+
+        private final Map<Integer, Object> row = new HashMap<>();
+
+        private boolean firstRow = true, inValue;
+
+        private String cellType, cellStyle;
+
+        private int column;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, int chunkSize, ChunkConsumer consumer) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.chunkSize = chunkSize;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    row.clear();
+                    column = -1;
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    column = ref == null ? column + 1 : columnIndex(ref);
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    text.setLength(0);
+                    break;
+                case "v":
+                case "t":
+                    inValue = true;
+                    break;
+                default:
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t":
+                    inValue = false;
+                    break;
+                case "c":
+                    Object value = cellValue(text.toString());
+                    if (value != null) row.put(column, value);
+                    break;
+                case "row":
+                    endRow();
+                    break;
+                default:
+            }
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            flush();
+        }
+
+        protected void endRow() throws SAXException {
+            if (firstRow) {
+                firstRow = false;
+                row.forEach((index, title) -> {
+                    while (headers.size() <= index) headers.add(null);
+                    headers.set(index, String.valueOf(title).trim());
+                });
+                return;
+            }
+            if (row.isEmpty()) return;
+            Map<String, Object> data = new LinkedHashMap<>();
+            row.forEach((index, value) -> {
+                String header = index < headers.size() ? headers.get(index) : null;
+                if (header != null && !header.isEmpty()) data.put(header, value);
+            });
+            if (data.isEmpty()) return;
+            chunk.add(data);
+            if (chunk.size() >= chunkSize) flush();
+        }
+
+        protected void flush() throws SAXException {
+            if (chunk.isEmpty()) return;
+            List<Map<String, Object>> rows = chunk;
+            chunk = new ArrayList<>(chunkSize);
+            try {
+                consumer.accept(rows);
+            } catch (Exception e) {
+                throw new SAXException(e);
+            }
+        }
+
+        protected Object cellValue(String value) {
+            if (cellType == null || "n".equals(cellType)) {
+                if (value.isEmpty()) return null;
+                return numericValue(value);
+            }
+            switch (cellType) {
+                case "s":
+                    return new XSSFRichTextString(sharedStrings.getEntryAt(Integer.parseInt(value))).toString();
+                case "b":
+                    return "1".equals(value);
+                case "e":
+                    return null;
+                default:
+                    //inlineStr,str
+                    return value.isEmpty() ? null : value;
+            }
+        }
+
+        protected Object numericValue(String value) {
+            double number = Double.parseDouble(value);
+            if (cellStyle != null && styles != null) {
+                XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(cellStyle));
+                if (style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())
+                        && DateUtil.isValidExcelDate(number)) {
+                    return DateUtil.getJavaDate(number);
+                }
+            }
+            BigDecimal decimal = new BigDecimal(value);
+            try {
+                return decimal.longValueExact();
+            } catch (ArithmeticException e) {
+                return decimal;
+            }
+        }
+
+        static int columnIndex(String ref) {
+            int index = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char c = ref.charAt(i);
+                if (c < 'A' || c > 'Z') break;
+                index = index * 26 + (c - 'A' + 1);
+            }
+            return index - 1;
+        }
+    }
+}
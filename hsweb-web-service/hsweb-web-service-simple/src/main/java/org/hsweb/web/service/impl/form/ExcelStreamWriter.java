@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.hsweb.expands.office.excel.config.Header;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * excel流式写出,基于{@link SXSSFWorkbook},内存中只保留最近写入的若干行,其余行写入临时文件.
+ * 可多次调用{@link #write(List)}分块写入数据,最后调用{@link #finish(OutputStream)}输出到输出流.
+ * <pre>
+ *     try (ExcelStreamWriter writer = new ExcelStreamWriter(100)) {
+ *         writer.writeHeader(headers);
+ *         writer.write(dataList);
+ *         writer.finish(outputStream);
+ *     }
+ * </pre>
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class ExcelStreamWriter implements Closeable {
+
+    private final SXSSFWorkbook workbook;
+
+    private final Sheet sheet;
+
+    private final CellStyle dateStyle;
+
+    private List<Header> headers;
+
+    private int rowIndex;
+
+    /**
+     * @param windowSize 内存中保留的行数
+     */
+    public ExcelStreamWriter(int windowSize) {
+        workbook = new SXSSFWorkbook(windowSize);
+        workbook.setCompressTempFiles(true);
+        sheet = workbook.createSheet();
+        dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-MM-dd HH:mm:ss"));
+    }
+
+    /**
+     * 写出表头,之后写入的数据按表头的字段取值
+     *
+     * @param headers 表头
+     */
+    public void writeHeader(List<Header> headers) {
+        this.headers = headers;
+        Row row = sheet.createRow(rowIndex++);
+        for (int i = 0; i < headers.size(); i++) {
+            row.createCell(i).setCellValue(headers.get(i).getTitle());
+        }
+    }
+
+    /**
+     * 写出数据,字段名包含.时,如 user.name,先获取名为user.name的值,不存在时获取user中name的值
+     *
+     * @param dataList 数据
+     */
+    public void write(List<? extends Map<String, Object>> dataList) {
+        if (headers == null) throw new IllegalStateException("请先写出表头");
+        for (Map<String, Object> data : dataList) {
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < headers.size(); i++) {
+                Object value = getValue(data, headers.get(i).getField());
+                if (value != null) setValue(row.createCell(i), value);
+            }
+        }
+    }
+
+    /**
+     * 将工作簿写出到输出流,临时文件中的数据将依次复制到输出流中
+     *
+     * @param outputStream 输出流,不会被关闭
+     * @throws IOException 写出异常
+     */
+    public void finish(OutputStream outputStream) throws IOException {
+        workbook.write(outputStream);
+        outputStream.flush();
+    }
+
+    public int getRowCount() {
+        return rowIndex;
+    }
+
+    @Override
+    public void close() {
+        //删除临时文件
+        workbook.dispose();
+    }
+
+    protected void setValue(Cell cell, Object value) {
+        //超过15位的数字在excel中会丢失精度,如身份证号,以文本写出
+        if (value instanceof Number && value.toString().length() <= 15) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+            cell.setCellStyle(dateStyle);
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else {
+            cell.setCellValue(String.valueOf(value));
+        }
+    }
+
+    protected static Object getValue(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (value != null || !field.contains(".")) return value;
+        String[] path = field.split("[.]");
+        Object current = data;
+        for (String key : path) {
+            if (!(current instanceof Map)) return null;
+            current = ((Map) current).get(key);
+        }
+        return current;
+    }
+}
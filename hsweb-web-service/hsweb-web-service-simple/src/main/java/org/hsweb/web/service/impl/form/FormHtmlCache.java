@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import org.hsweb.web.bean.po.form.Form;
+import org.hsweb.web.service.form.FormHtml;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 表单html渲染缓存,按表单id和修订版本(revision)缓存渲染结果.
+ * 每个表单id只保留最近渲染的修订版本,表单修改后修订版本变化,下次获取时重新渲染,无需额外清除缓存.
+ * 已发布表单的html同时按表单名称缓存,获取时无需查询和解析发布历史,发布或者卸载表单时需要清除.
+ * 每次清除时递增该名称的清除次数,加载期间发生过清除时不放入缓存,避免加载到的旧版本在清除之后才放入缓存.
+ *
+ * @author zhouhao
+ * @see FormServiceImpl
+ * @since 2.2
+ */
+public class FormHtmlCache {
+
+    private final Map<String, FormHtml> cache = new ConcurrentHashMap<>();
+
+    //表单名称->已发布表单的html
+    private final Map<String, FormHtml> deployed = new ConcurrentHashMap<>();
+
+    //表单名称->已发布表单的html被清除的次数
+    private final Map<String, Long> evictions = new ConcurrentHashMap<>();
+
+    private final Function<Form, String> renderer;
+
+    /**
+     * @param renderer html渲染器,如{@link org.hsweb.web.service.form.FormParser#parseHtml(Form)}
+     */
+    public FormHtmlCache(Function<Form, String> renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * 获取表单的html,缓存中的修订版本与表单不一致时重新渲染
+     *
+     * @param form 表单
+     * @return 渲染结果
+     */
+    public FormHtml get(Form form) {
+        FormHtml html = cache.get(form.getId());
+        if (html != null && html.getRevision() == form.getRevision()) return html;
+        return render(form);
+    }
+
+    /**
+     * 渲染表单并放入缓存,用于发布表单时预先渲染
+     *
+     * @param form 表单
+     * @return 渲染结果
+     */
+    public FormHtml render(Form form) {
+        String content = renderer.apply(form);
+        String etag = "\"" + form.getRevision() + "-"
+                + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+        FormHtml html = new FormHtml(form.getId(), form.getRevision(), content, etag);
+        cache.put(form.getId(), html);
+        return html;
+    }
+
+    /**
+     * 获取已发布表单的html.加载期间该表单的缓存被清除(重新发布或者卸载)时,返回加载的结果但不放入缓存
+     *
+     * @param name   表单名称
+     * @param loader 未缓存时获取已发布的表单
+     * @return 渲染结果
+     */
+    public FormHtml getDeployed(String name, Supplier<Form> loader) {
+        FormHtml html = deployed.get(name);
+        if (html != null) return html;
+        long evicted = evictions.getOrDefault(name, 0L);
+        FormHtml loaded = get(loader.get());
+        //清除时先递增清除次数再移除缓存,因此这里检查通过后放入的缓存一定会被之后的清除移除
+        deployed.compute(name, (key, old) -> evictions.getOrDefault(name, 0L) == evicted ? loaded : old);
+        return loaded;
+    }
+
+    public void evictDeployed(String name) {
+        evictions.merge(name, 1L, Long::sum);
+        deployed.remove(name);
+    }
+
+    public void evict(String formId) {
+        cache.remove(formId);
+    }
+}
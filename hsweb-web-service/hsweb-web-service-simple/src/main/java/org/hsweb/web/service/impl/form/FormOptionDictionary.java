@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import org.hsweb.ezorm.core.OptionConverter;
+import org.hsweb.ezorm.rdb.meta.RDBColumnMetaData;
+import org.hsweb.ezorm.rdb.meta.RDBTableMetaData;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 表单字段的数据字典缓存.发布表单时为配置了{@link OptionConverter}的字段安装带缓存的转换器,
+ * 相同的值只转换一次,查询,导出时不再逐行逐个单元格查找字典.
+ * 字典随表结构快照按表单发布版本创建,重新发布后使用新的字典,旧的字典随快照失效.
+ * <p>
+ * 转换器通过动态代理包装,只缓存converterData和converterValue,其他方法直接调用原转换器.
+ *
+ * @author zhouhao
+ * @see FormTableSnapshots
+ * @since 2.2
+ */
+public class FormOptionDictionary {
+
+    private static final Object NULL = new Object();
+
+    //字段名称->字典
+    private final Map<String, FieldDictionary> fields;
+
+    private FormOptionDictionary(Map<String, FieldDictionary> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * 为表结构中配置了转换器的字段安装带缓存的转换器,已安装的字段使用原有的缓存
+     *
+     * @param metaData   表结构
+     * @param maxEntries 每个字段最多缓存的值的数量
+     * @return 数据字典
+     */
+    public static FormOptionDictionary install(RDBTableMetaData metaData, int maxEntries) {
+        Map<String, FieldDictionary> fields = new HashMap<>();
+        for (RDBColumnMetaData column : metaData.getColumns()) {
+            OptionConverter converter = column.getOptionConverter();
+            if (converter == null) continue;
+            FieldDictionary dictionary;
+            if (Proxy.isProxyClass(converter.getClass())
+                    && Proxy.getInvocationHandler(converter) instanceof FieldDictionary) {
+                dictionary = (FieldDictionary) Proxy.getInvocationHandler(converter);
+            } else {
+                dictionary = new FieldDictionary(converter, maxEntries);
+                column.setOptionConverter((OptionConverter) Proxy.newProxyInstance(OptionConverter.class.getClassLoader(),
+                        new Class[]{OptionConverter.class}, dictionary));
+            }
+            dictionary.column = column;
+            fields.put(column.getName(), dictionary);
+        }
+        return new FormOptionDictionary(Collections.unmodifiableMap(fields));
+    }
+
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    /**
+     * 使用字段的转换器转换值
+     *
+     * @param field  字段名称
+     * @param value  值
+     * @param toData true:调用{@link OptionConverter#converterData(Object)},false:调用{@link OptionConverter#converterValue(Object)}
+     * @return 转换结果, 字段未配置转换器时返回原值
+     */
+    public Object convert(String field, Object value, boolean toData) {
+        FieldDictionary dictionary = fields.get(field);
+        if (dictionary == null) return value;
+        return toData ? dictionary.converterData(value) : dictionary.converterValue(value);
+    }
+
+    /**
+     * 批量转换一页数据,为每条数据设置{@link OptionConverter#getFieldName()}的值,已存在的值不覆盖.
+     * 同一批数据中相同的值只转换一次
+     *
+     * @param dataList 数据
+     */
+    public void convert(List<Map<String, Object>> dataList) {
+        if (fields.isEmpty() || dataList.isEmpty()) return;
+        for (FieldDictionary dictionary : fields.values()) {
+            String fieldName = dictionary.target.getFieldName();
+            if (fieldName == null) continue;
+            Map<Object, Object> converted = new HashMap<>();
+            for (Map<String, Object> data : dataList) {
+                if (data.containsKey(fieldName)) continue;
+                Object value = data.get(dictionary.column.getAlias());
+                if (value == null) value = data.get(dictionary.column.getName());
+                if (value == null) continue;
+                data.put(fieldName, converted.computeIfAbsent(value, dictionary::converterValue));
+            }
+        }
+    }
+
+    static class FieldDictionary implements InvocationHandler {
+        final OptionConverter target;
+
+        final int maxEntries;
+
+        //converterData的结果
+        final Map<Object, Object> data = new ConcurrentHashMap<>();
+
+        //converterValue的结果
+        final Map<Object, Object> values = new ConcurrentHashMap<>();
+
+        volatile RDBColumnMetaData column;
+
+        FieldDictionary(OptionConverter target, int maxEntries) {
+            this.target = target;
+            this.maxEntries = maxEntries;
+        }
+
+        Object converterData(Object value) {
+            return cached(data, value, target::converterData);
+        }
+
+        Object converterValue(Object value) {
+            return cached(values, value, target::converterValue);
+        }
+
+        private Object cached(Map<Object, Object> cache, Object key, Function<Object, Object> converter) {
+            if (key == null) return converter.apply(null);
+            Object result = cache.get(key);
+            if (result == null) {
+                result = converter.apply(key);
+                //超过数量后不再缓存,避免字典过大时占用过多内存
+                if (cache.size() < maxEntries) cache.put(key, result == null ? NULL : result);
+                return result;
+            }
+            return result == NULL ? null : result;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (args != null && args.length == 1) {
+                if ("converterData".equals(method.getName())) return converterData(args[0]);
+                if ("converterValue".equals(method.getName())) return converterValue(args[0]);
+                if ("equals".equals(method.getName())) return proxy == args[0];
+            }
+            if (args == null && "hashCode".equals(method.getName())) return System.identityHashCode(proxy);
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import org.hsweb.ezorm.core.param.Term;
+import org.hsweb.ezorm.rdb.meta.RDBColumnMetaData;
+import org.hsweb.ezorm.rdb.meta.RDBTableMetaData;
+import org.hsweb.web.bean.common.QueryParam;
+import org.hsweb.web.service.form.FormIndex;
+import org.hsweb.web.service.form.FormIndexSuggestion;
+import org.hsweb.web.service.form.FormQueryMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 动态表单查询统计,由{@link DynamicFormServiceImpl}在查询时记录查询条件中使用的字段.
+ * 查询占比达到{@link #minRatio}且没有以其中任一字段开头的索引(包括主键)的字段组合将作为缺失的索引建议.
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+@Component
+public class FormQueryStatistics implements FormQueryMonitor {
+
+    public static final String TOTAL = "*";
+
+    /**
+     * 查询次数达到此值后才给出索引建议
+     */
+    @Value("${hsweb.form.query-stats.min-queries:100}")
+    protected long minQueries = 100;
+
+    /**
+     * 字段组合的查询占比达到此值时给出索引建议
+     */
+    @Value("${hsweb.form.query-stats.min-ratio:0.1}")
+    protected double minRatio = 0.1;
+
+    /**
+     * 每个表单最多统计的字段组合数量
+     */
+    @Value("${hsweb.form.query-stats.max-combinations:100}")
+    protected int maxCombinations = 100;
+
+    /**
+     * 建议的索引最多包含的字段数量
+     */
+    protected int maxIndexColumns = 3;
+
+    private final ConcurrentMap<String, FormStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次查询
+     *
+     * @param metaData 表结构
+     * @param param    查询参数
+     */
+    public void record(RDBTableMetaData metaData, QueryParam param) {
+        FormStats formStats = stats.computeIfAbsent(metaData.getName(), name -> new FormStats());
+        formStats.metaData = metaData;
+        formStats.total.increment();
+        Set<String> columns = new TreeSet<>();
+        collectColumns(metaData, param.getTerms(), columns);
+        if (columns.isEmpty()) return;
+        columns.forEach(column -> formStats.columns.computeIfAbsent(column, c -> new LongAdder()).increment());
+        String key = String.join(",", columns);
+        LongAdder counter = formStats.combinations.get(key);
+        if (counter == null) {
+            if (formStats.combinations.size() >= maxCombinations) return;
+            counter = formStats.combinations.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    protected void collectColumns(RDBTableMetaData metaData, List<Term> terms, Set<String> columns) {
+        if (terms == null) return;
+        for (Term term : terms) {
+            if (term.getColumn() != null) {
+                RDBColumnMetaData column = metaData.findColumn(term.getColumn());
+                if (column != null) columns.add(column.getName());
+            }
+            collectColumns(metaData, term.getTerms(), columns);
+        }
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getTermStats() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        stats.forEach((name, formStats) -> {
+            Map<String, Long> columns = new LinkedHashMap<>();
+            columns.put(TOTAL, formStats.total.sum());
+            formStats.columns.entrySet().stream()
+                    .sorted((c1, c2) -> Long.compare(c2.getValue().sum(), c1.getValue().sum()))
+                    .forEach(entry -> columns.put(entry.getKey(), entry.getValue().sum()));
+            result.put(name, columns);
+        });
+        return result;
+    }
+
+    @Override
+    public List<FormIndexSuggestion> getIndexSuggestions() {
+        List<FormIndexSuggestion> suggestions = new ArrayList<>();
+        stats.forEach((name, formStats) -> {
+            long total = formStats.total.sum();
+            if (total < minQueries) return;
+            Set<String> leadingColumns = getLeadingColumns(formStats.metaData);
+            Map<List<String>, Long> formSuggestions = new LinkedHashMap<>();
+            formStats.combinations.forEach((key, counter) -> {
+                long count = counter.sum();
+                if ((double) count / total < minRatio) return;
+                List<String> columns = Arrays.asList(key.split(","));
+                if (columns.stream().anyMatch(leadingColumns::contains)) return;
+                List<String> indexColumns = columns.stream()
+                        .sorted((c1, c2) -> Long.compare(formStats.count(c2), formStats.count(c1)))
+                        .limit(maxIndexColumns)
+                        .collect(Collectors.toList());
+                formSuggestions.merge(indexColumns, count, Math::max);
+            });
+            formSuggestions.forEach((columns, count) -> suggestions.add(new FormIndexSuggestion(name, columns, count, total)));
+        });
+        suggestions.sort((s1, s2) -> Long.compare(s2.getQueryCount(), s1.getQueryCount()));
+        return suggestions;
+    }
+
+    /**
+     * 获取表单已有索引(包括主键)的第一个字段
+     */
+    @SuppressWarnings("unchecked")
+    protected Set<String> getLeadingColumns(RDBTableMetaData metaData) {
+        Set<String> columns = new HashSet<>();
+        columns.add(String.valueOf(metaData.getProperty("primaryKey", "u_id")));
+        Object indexes = metaData.getProperty("indexes").getValue();
+        if (indexes instanceof List) {
+            for (Object index : ((List) indexes)) {
+                if (index instanceof FormIndex && !((FormIndex) index).getColumns().isEmpty())
+                    columns.add(((FormIndex) index).getColumns().get(0));
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public void reset() {
+        stats.clear();
+    }
+
+    static class FormStats {
+        //最近一次查询使用的表结构,表单重新发布后更新
+        volatile RDBTableMetaData metaData;
+
+        final LongAdder total = new LongAdder();
+
+        final ConcurrentMap<String, LongAdder> columns = new ConcurrentHashMap<>();
+
+        //排序后以逗号分隔的字段组合->查询次数
+        final ConcurrentMap<String, LongAdder> combinations = new ConcurrentHashMap<>();
+
+        long count(String column) {
+            LongAdder counter = columns.get(column);
+            return counter == null ? 0 : counter.sum();
+        }
+    }
+}
@@ -11,16 +11,21 @@ import org.hsweb.web.bean.po.history.History;
 import org.hsweb.web.core.utils.RandomUtil;
 import org.hsweb.web.dao.form.FormMapper;
 import org.hsweb.web.service.form.DynamicFormService;
+import org.hsweb.web.service.form.FormHtml;
 import org.hsweb.web.service.form.FormParser;
 import org.hsweb.web.service.form.FormService;
 import org.hsweb.web.service.history.HistoryService;
 import org.hsweb.web.service.impl.AbstractServiceImpl;
+import org.hsweb.web.service.impl.form.deploy.FormDeployEventBus;
+import org.hsweb.web.service.impl.form.deploy.FormDeployScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 import javax.annotation.Resource;
@@ -54,6 +59,14 @@ public class FormServiceImpl extends AbstractServiceImpl<Form, String> implement
     @Resource
     protected DynamicFormService dynamicFormService;
 
+    @Autowired(required = false)
+    protected FormDeployEventBus deployEventBus;
+
+    @Autowired
+    protected FormDeployScheduler deployScheduler;
+
+    protected final FormHtmlCache htmlCache = new FormHtmlCache(form -> formParser.parseHtml(form));
+
     @Override
 //    @Cacheable(value = CACHE_KEY, key = "#id")
     public Form selectByPk(String id) {
@@ -110,6 +123,7 @@ public class FormServiceImpl extends AbstractServiceImpl<Form, String> implement
         Form old = this.selectByPk(id);
         assertNotNull(old, "表单不存在!");
         Assert.isTrue(!old.isUsing(), "表单正在使用，无法删除!");
+        htmlCache.evict(id);
         return super.delete(id);
     }
 
@@ -149,25 +163,12 @@ public class FormServiceImpl extends AbstractServiceImpl<Form, String> implement
             @CacheEvict(value = {CACHE_KEY}, allEntries = true)
     })
     public void tryDeployAll() {
-        createQuery().where(Form.Property.using, 1).listNoPaging().forEach(form -> {
-            try {
-                Form deployed = selectDeployed(form.getName());
-                if (null != deployed) {
-                    RDBTableMetaData metaData = dynamicFormService.parseMeta(deployed);
-                    dynamicFormService.getDefaultDatabase().reloadTable(metaData);
-                } else {
-                    dynamicFormService.deploy(form);
-                }
-            } catch (Exception e) {
-                logger.error("部署{}:({})失败", form.getName(), form.getRemark(), e);
-            }
-        });
+        deployScheduler.deployAll(createQuery().where(Form.Property.using, 1).listNoPaging());
     }
 
     @Override
     @Transactional(rollbackFor = Throwable.class)
     @Caching(evict = {
-            @CacheEvict(value = {CACHE_KEY + ".deploy"}, key = "'deploy.'+target.selectByPk(#formId).getName()+'.html'"),
             @CacheEvict(value = {CACHE_KEY + ".deploy"}, key = "'deploy.'+target.selectByPk(#formId).getName()"),
             @CacheEvict(value = {CACHE_KEY}, key = "'using.'+target.selectByPk(#formId).getName()"),
             @CacheEvict(value = {CACHE_KEY}, key = "'deploy.'+target.selectByPk(#formId).getName()+'.version'")
@@ -192,12 +193,15 @@ public class FormServiceImpl extends AbstractServiceImpl<Form, String> implement
         history.setChangeBefore("{}");
         history.setChangeAfter(JSON.toJSONString(old));
         historyService.insert(history);
+        //预先渲染发布版本的html
+        htmlCache.render(old);
+        evictDeployedHtml(old.getName());
+        if (deployEventBus != null) deployEventBus.publishDeploy(old.getName(), old.getRevision());
     }
 
     @Override
     @Transactional(rollbackFor = Throwable.class)
     @Caching(evict = {
-            @CacheEvict(value = {CACHE_KEY + ".deploy"}, key = "'deploy.'+target.selectByPk(#formId).getName()+'.html'"),
             @CacheEvict(value = {CACHE_KEY + ".deploy"}, key = "'deploy.'+target.selectByPk(#formId).getName()"),
             @CacheEvict(value = {CACHE_KEY}, key = "'using.'+target.selectByPk(#formId).getName()"),
             @CacheEvict(value = {CACHE_KEY}, key = "'deploy.'+target.selectByPk(#formId).getName()+'.version'")
@@ -208,14 +212,71 @@ public class FormServiceImpl extends AbstractServiceImpl<Form, String> implement
         dynamicFormService.unDeploy(old);
         old.setUsing(false);
         createUpdate(old).includes(Property.using).where(Property.id, old.getId()).exec();
+        evictDeployedHtml(old.getName());
+        if (deployEventBus != null) deployEventBus.publishUnDeploy(old.getName(), old.getRevision());
     }
 
     @Override
-    @Cacheable(value = CACHE_KEY + ".deploy", key = "'deploy.'+#name+'.html'")
-    public String createDeployHtml(String name) {
+    @Caching(evict = {
+            @CacheEvict(value = {CACHE_KEY + ".deploy"}, key = "'deploy.'+#name"),
+            @CacheEvict(value = {CACHE_KEY}, key = "'using.'+#name"),
+            @CacheEvict(value = {CACHE_KEY}, key = "'deploy.'+#name+'.version'")
+    })
+    public int reloadDeployed(String name) {
         History history = historyService.selectLastHistoryByType("form.deploy." + name);
-        assertNotNull(history, "表单不存在");
-        return formParser.parseHtml(JSON.parseObject(history.getChangeAfter(), Form.class));
+        assertNotNull(history, "表单不存在或未部署");
+        Form deployed = JSON.parseObject(history.getChangeAfter(), Form.class);
+        RDBTableMetaData metaData = dynamicFormService.parseMeta(deployed);
+        metaData.setProperty("version", deployed.getRevision());
+        dynamicFormService.reloadTable(metaData);
+        evictDeployedHtml(name);
+        return deployed.getRevision();
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = {CACHE_KEY + ".deploy"}, key = "'deploy.'+#name"),
+            @CacheEvict(value = {CACHE_KEY}, key = "'using.'+#name"),
+            @CacheEvict(value = {CACHE_KEY}, key = "'deploy.'+#name+'.version'")
+    })
+    public void unloadDeployed(String name) {
+        Form form = new Form();
+        form.setName(name);
+        dynamicFormService.unDeploy(form);
+        evictDeployedHtml(name);
+    }
+
+    /**
+     * 清除已发布表单的html缓存,在事务中时事务结束后再次清除,避免事务提交前被其他请求重新缓存为旧的版本
+     *
+     * @param name 表单名称
+     * @since 2.2
+     */
+    protected void evictDeployedHtml(String name) {
+        htmlCache.evictDeployed(name);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    htmlCache.evictDeployed(name);
+                }
+            });
+        }
+    }
+
+    @Override
+    public String createDeployHtml(String name) {
+        return renderDeployHtml(name).getHtml();
+    }
+
+    @Override
+    public FormHtml renderDeployHtml(String name) {
+        //与selectDeployed不同,不要求表单正在使用,取最近一次发布的版本
+        return htmlCache.getDeployed(name, () -> {
+            History history = historyService.selectLastHistoryByType("form.deploy." + name);
+            assertNotNull(history, "表单不存在");
+            return JSON.parseObject(history.getChangeAfter(), Form.class);
+        });
     }
 
     @Override
@@ -230,9 +291,14 @@ public class FormServiceImpl extends AbstractServiceImpl<Form, String> implement
 
     @Override
     public String createViewHtml(String formId) {
+        return renderViewHtml(formId).getHtml();
+    }
+
+    @Override
+    public FormHtml renderViewHtml(String formId) {
         Form form = this.selectByPk(formId);
         assertNotNull(form, "表单不存在");
-        return formParser.parseHtml(form);
+        return htmlCache.get(form);
     }
 
     @Override
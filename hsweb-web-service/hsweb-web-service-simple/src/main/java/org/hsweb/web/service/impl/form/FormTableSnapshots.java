@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import org.hsweb.ezorm.rdb.RDBTable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 已发布表单的表结构快照.发布,卸载表单时复制并替换整个快照(copy-on-write),
+ * 读取时只需一次volatile读,无需加锁,读取到的要么是发布前的表结构,要么是发布后的表结构.
+ * 快照中的{@link RDBTable}发布后不应再被修改,表结构变更时应创建新的表结构并重新发布.
+ * 发布时同时为表单创建触发器的基础变量作用域{@link TriggerScope},执行触发器时无需再复制基础变量,
+ * 以及数据字典缓存{@link FormOptionDictionary}.
+ *
+ * @author zhouhao
+ * @see DynamicFormServiceImpl
+ * @since 2.2
+ */
+public class FormTableSnapshots {
+
+    private volatile Map<String, Snapshot> snapshots = Collections.emptyMap();
+
+    private long version;
+
+    //根据表创建触发器基础变量
+    private final Function<RDBTable, Map<String, Object>> scopeBuilder;
+
+    //每个字段最多缓存的数据字典值数量
+    private volatile int optionCacheSize = 10000;
+
+    public FormTableSnapshots() {
+        this(table -> Collections.singletonMap("table", table));
+    }
+
+    /**
+     * @param scopeBuilder 触发器基础变量构造器,每次发布表单时调用一次
+     */
+    public FormTableSnapshots(Function<RDBTable, Map<String, Object>> scopeBuilder) {
+        this.scopeBuilder = scopeBuilder;
+    }
+
+    /**
+     * 获取表单的表结构快照
+     *
+     * @param name 表单名称
+     * @return 快照, 未发布时返回null
+     */
+    public Snapshot get(String name) {
+        return snapshots.get(name);
+    }
+
+    /**
+     * 发布表结构,替换已有的快照
+     *
+     * @param name  表单名称
+     * @param table 表
+     * @return 新的快照
+     */
+    public synchronized Snapshot publish(String name, RDBTable table) {
+        Snapshot snapshot = new Snapshot(table, new TriggerScope(scopeBuilder.apply(table)),
+                FormOptionDictionary.install(table.getMeta(), optionCacheSize), ++version);
+        Map<String, Snapshot> copy = new HashMap<>(snapshots);
+        copy.put(name, snapshot);
+        snapshots = Collections.unmodifiableMap(copy);
+        return snapshot;
+    }
+
+    /**
+     * 表单未发布时发布表结构,已发布时返回已有的快照
+     *
+     * @param name  表单名称
+     * @param table 表
+     * @return 快照
+     */
+    public synchronized Snapshot publishIfAbsent(String name, RDBTable table) {
+        Snapshot snapshot = snapshots.get(name);
+        return snapshot != null ? snapshot : publish(name, table);
+    }
+
+    public void setOptionCacheSize(int optionCacheSize) {
+        this.optionCacheSize = optionCacheSize;
+    }
+
+    public synchronized void remove(String name) {
+        if (!snapshots.containsKey(name)) return;
+        Map<String, Snapshot> copy = new HashMap<>(snapshots);
+        copy.remove(name);
+        version++;
+        snapshots = Collections.unmodifiableMap(copy);
+    }
+
+    public static class Snapshot {
+        private final RDBTable table;
+
+        private final String primaryKeyName;
+
+        private final TriggerScope triggerScope;
+
+        private final FormOptionDictionary optionDictionary;
+
+        private final long version;
+
+        Snapshot(RDBTable table, TriggerScope triggerScope, FormOptionDictionary optionDictionary, long version) {
+            this.table = table;
+            this.triggerScope = triggerScope;
+            this.optionDictionary = optionDictionary;
+            this.primaryKeyName = String.valueOf(table.getMeta().getProperty("primaryKey", "u_id"));
+            this.version = version;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> RDBTable<T> getTable() {
+            return table;
+        }
+
+        public String getPrimaryKeyName() {
+            return primaryKeyName;
+        }
+
+        /**
+         * @return 触发器变量作用域
+         */
+        public TriggerScope getTriggerScope() {
+            return triggerScope;
+        }
+
+        /**
+         * @return 当前发布版本的数据字典缓存
+         */
+        public FormOptionDictionary getOptionDictionary() {
+            return optionDictionary;
+        }
+
+        /**
+         * @return 快照版本号, 每次发布或者卸载表单时递增
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import java.util.*;
+
+/**
+ * 表单触发器的变量作用域.基础变量(如表达式作用域中的bean,database,table)在表单发布时创建一次并且不可修改,
+ * 每次执行触发器时通过{@link #newContext()}创建一个只保存本次调用变量的上下文,
+ * 读取变量时先从本次调用的变量中获取,不存在时再从基础变量中获取,无需复制基础变量.
+ * <pre>
+ *     Map&lt;String, Object&gt; var = scope.newContext();
+ *     var.put("data", data);
+ *     metaData.on("export.import.each", var);
+ * </pre>
+ *
+ * @author zhouhao
+ * @see FormTableSnapshots
+ * @since 2.2
+ */
+public class TriggerScope {
+
+    private final Map<String, Object> base;
+
+    public TriggerScope(Map<String, Object> base) {
+        this.base = Collections.unmodifiableMap(new HashMap<>(base));
+    }
+
+    /**
+     * @return 基础变量, 不可修改
+     */
+    public Map<String, Object> getBase() {
+        return base;
+    }
+
+    /**
+     * 创建触发器的执行上下文,上下文中的修改不会影响基础变量
+     *
+     * @return 执行上下文
+     */
+    public Map<String, Object> newContext() {
+        return new Context(base);
+    }
+
+    static class Context extends AbstractMap<String, Object> {
+        private final Map<String, Object> base;
+
+        private final Map<String, Object> overlay = new HashMap<>();
+
+        //在本次调用中被删除的基础变量
+        private Set<Object> removed;
+
+        Context(Map<String, Object> base) {
+            this.base = base;
+        }
+
+        private boolean hidden(Object key) {
+            return removed != null && removed.contains(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object value = overlay.get(key);
+            if (value != null || overlay.containsKey(key)) return value;
+            return hidden(key) ? null : base.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return overlay.containsKey(key) || (!hidden(key) && base.containsKey(key));
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object old = get(key);
+            if (removed != null) removed.remove(key);
+            overlay.put(key, value);
+            return old;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            Object old = get(key);
+            overlay.remove(key);
+            if (base.containsKey(key)) {
+                if (removed == null) removed = new HashSet<>();
+                removed.add(key);
+            }
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            overlay.clear();
+            removed = new HashSet<>(base.keySet());
+        }
+
+        @Override
+        public int size() {
+            int size = overlay.size();
+            for (String key : base.keySet()) {
+                if (!hidden(key) && !overlay.containsKey(key)) size++;
+            }
+            return size;
+        }
+
+        /**
+         * 合并后的变量,仅在需要遍历变量时创建
+         */
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> merged = new HashMap<>();
+            base.forEach((key, value) -> {
+                if (!hidden(key)) merged.put(key, value);
+            });
+            merged.putAll(overlay);
+            return Collections.unmodifiableMap(merged).entrySet();
+        }
+    }
+}
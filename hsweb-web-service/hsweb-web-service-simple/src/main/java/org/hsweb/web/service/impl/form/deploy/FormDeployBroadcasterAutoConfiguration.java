@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form.deploy;
+
+import org.hsweb.web.service.form.FormDeployBroadcaster;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import javax.annotation.Resource;
+
+/**
+ * 存在RedisTemplate时,使用redis发布订阅在集群中广播表单发布事件
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+@Configuration
+@ConditionalOnBean(RedisTemplate.class)
+@ConditionalOnMissingBean(FormDeployBroadcaster.class)
+public class FormDeployBroadcasterAutoConfiguration {
+
+    @Resource
+    private RedisTemplate redisTemplate;
+
+    @Bean
+    public RedisFormDeployBroadcaster redisFormDeployBroadcaster() {
+        return new RedisFormDeployBroadcaster(redisTemplate);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer formDeployListenerContainer(RedisFormDeployBroadcaster broadcaster) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisTemplate.getConnectionFactory());
+        container.addMessageListener(broadcaster, new ChannelTopic(RedisFormDeployBroadcaster.CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form.deploy;
+
+import org.hsweb.web.bean.po.form.Form;
+import org.hsweb.web.service.form.FormDeployBroadcaster;
+import org.hsweb.web.service.form.FormDeployEvent;
+import org.hsweb.web.service.form.FormDeployMonitor;
+import org.hsweb.web.service.form.FormDeployStatus;
+import org.hsweb.web.service.form.FormService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 表单发布事件总线.当前节点发布,取消发布表单并提交事务后,通过{@link FormDeployBroadcaster}通知集群中的其他节点,
+ * 其他节点收到事件后只重新加载对应表单的表结构和验证器,无需重启.
+ * 节点加载完成后广播{@link FormDeployEvent.Type#applied}事件,每个节点都会记录集群中各节点的发布状态和延迟.
+ *
+ * @author zhouhao
+ * @see FormService#reloadDeployed(String)
+ * @since 2.2
+ */
+@Component
+public class FormDeployEventBus implements FormDeployMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(FormDeployEventBus.class);
+
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Autowired(required = false)
+    private FormDeployBroadcaster broadcaster;
+
+    @Autowired
+    @Lazy
+    private FormService formService;
+
+    //节点->表单名称->发布状态
+    private final ConcurrentMap<String, ConcurrentMap<String, FormDeployStatus>> status = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (broadcaster == null) broadcaster = new LocalFormDeployBroadcaster();
+        broadcaster.subscribe(this::onEvent);
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void publishDeploy(String formName, int version) {
+        publish(new FormDeployEvent(FormDeployEvent.Type.deploy, formName, version, nodeId));
+    }
+
+    public void publishUnDeploy(String formName, int version) {
+        publish(new FormDeployEvent(FormDeployEvent.Type.unDeploy, formName, version, nodeId));
+    }
+
+    @Override
+    public Map<String, List<FormDeployStatus>> getStatus() {
+        Map<String, List<FormDeployStatus>> result = new TreeMap<>();
+        status.forEach((node, forms) -> result.put(node, new ArrayList<>(forms.values())));
+        return result;
+    }
+
+    /**
+     * 在事务提交后广播事件,保证其他节点能读取到已提交的发布记录
+     */
+    protected void publish(FormDeployEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    doPublish(event);
+                }
+            });
+        } else {
+            doPublish(event);
+        }
+    }
+
+    protected void doPublish(FormDeployEvent event) {
+        //当前节点已经完成了发布
+        record(nodeId, event, System.currentTimeMillis(), null);
+        try {
+            broadcaster.broadcast(event);
+        } catch (RuntimeException e) {
+            logger.error("广播表单发布事件[{}]失败,其他节点需要重启后才能加载新的表结构", event, e);
+        }
+    }
+
+    protected void onEvent(FormDeployEvent event) {
+        if (event.getType() == FormDeployEvent.Type.applied) {
+            if (!nodeId.equals(event.getNodeId())) {
+                record(event.getNodeId(), event, event.getApplyTime(), event.getMessage());
+            }
+            return;
+        }
+        if (nodeId.equals(event.getNodeId())) return;
+        String message = apply(event);
+        long applyTime = System.currentTimeMillis();
+        record(nodeId, event, applyTime, message);
+        FormDeployEvent applied = new FormDeployEvent(FormDeployEvent.Type.applied, event.getFormName(), event.getVersion(), nodeId);
+        applied.setPublishTime(event.getPublishTime());
+        applied.setApplyTime(applyTime);
+        applied.setMessage(message);
+        try {
+            broadcaster.broadcast(applied);
+        } catch (RuntimeException e) {
+            logger.warn("广播表单发布状态失败", e);
+        }
+    }
+
+    /**
+     * 在当前节点加载或者卸载表单.各节点的时钟不一致,广播也不保证顺序,因此不根据事件的发布时间判断先后,
+     * 而是以数据库中已提交的发布状态为准:表单正在使用时加载最近一次发布的版本,否则卸载.
+     * 同一个节点的事件依次处理,事件乱序到达时,最后处理的事件总能读取到最新提交的发布状态
+     *
+     * @return 失败原因, 成功时返回null
+     */
+    protected synchronized String apply(FormDeployEvent event) {
+        try {
+            Form using = formService.createQuery()
+                    .where(Form.Property.using, 1).and().is(Form.Property.name, event.getFormName())
+                    .single();
+            if (using != null) {
+                int version = formService.reloadDeployed(event.getFormName());
+                if (version != event.getVersion()) {
+                    logger.info("表单[{}]已加载最新发布的版本[{}],事件中的版本为[{}]", event.getFormName(), version, event.getVersion());
+                }
+            } else {
+                formService.unloadDeployed(event.getFormName());
+            }
+            logger.info("已加载其他节点[{}]发布的表单[{}],版本:{}", event.getNodeId(), event.getFormName(), event.getVersion());
+            return null;
+        } catch (Exception e) {
+            logger.error("加载其他节点发布的表单[{}]失败", event.getFormName(), e);
+            return String.valueOf(e.getMessage());
+        }
+    }
+
+    protected FormDeployStatus getStatus(String node, String formName) {
+        Map<String, FormDeployStatus> forms = status.get(node);
+        return forms == null ? null : forms.get(formName);
+    }
+
+    protected void record(String node, FormDeployEvent event, long applyTime, String message) {
+        status.computeIfAbsent(node, key -> new ConcurrentHashMap<>())
+                .put(event.getFormName(), new FormDeployStatus(node, event, applyTime, message));
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form.deploy;
+
+import com.alibaba.fastjson.JSON;
+import org.hsweb.ezorm.rdb.meta.RDBTableMetaData;
+import org.hsweb.web.bean.po.form.Form;
+import org.hsweb.web.bean.po.history.History;
+import org.hsweb.web.service.form.DynamicFormService;
+import org.hsweb.web.service.form.FormService;
+import org.hsweb.web.service.history.HistoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动时发布表单的调度器,支持两种模式(hsweb.form.deploy.mode):
+ * <ul>
+ * <li>eager(默认):在有界线程池中并行解析表单(发布记录json,html,触发器脚本),再依次加载表结构.
+ * 没有发布记录,需要执行DDL的表单延后到其他表单加载完成后再发布</li>
+ * <li>lazy:启动时只记录需要发布的表单,在首次使用表单时再加载</li>
+ * </ul>
+ * 每个表单的加载耗时会输出到日志,并可通过{@link #getDeployTimes()}获取.
+ *
+ * @author zhouhao
+ * @see FormService#tryDeployAll()
+ * @since 2.2
+ */
+@Component
+public class FormDeployScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FormDeployScheduler.class);
+
+    public enum Mode {
+        eager, lazy
+    }
+
+    @Value("${hsweb.form.deploy.mode:eager}")
+    private Mode mode = Mode.eager;
+
+    @Value("${hsweb.form.deploy.threads:0}")
+    private int threads;
+
+    @Autowired
+    @Lazy
+    private DynamicFormService dynamicFormService;
+
+    @Autowired
+    private HistoryService historyService;
+
+    //lazy模式下等待加载的表单,表单名称->表单
+    private final ConcurrentMap<String, Form> pending = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> loading = new ConcurrentHashMap<>();
+
+    //表单名称->加载耗时(毫秒)
+    private final ConcurrentMap<String, Long> deployTimes = new ConcurrentHashMap<>();
+
+    /**
+     * 发布所有正在使用的表单
+     *
+     * @param forms 正在使用的表单
+     */
+    public void deployAll(List<Form> forms) {
+        long startTime = System.currentTimeMillis();
+        if (mode == Mode.lazy) {
+            forms.forEach(form -> pending.put(form.getName(), form));
+            logger.info("{}个表单将在首次使用时加载", forms.size());
+            return;
+        }
+        int poolSize = Math.max(1, Math.min(forms.size(), threads > 0 ? threads : Runtime.getRuntime().availableProcessors()));
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "form-deploy-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<Prepared>> futures = new ArrayList<>(forms.size());
+        try {
+            forms.forEach(form -> futures.add(executor.submit(() -> prepare(form.getName()))));
+            List<Form> deferred = new ArrayList<>();
+            for (int i = 0; i < forms.size(); i++) {
+                Form form = forms.get(i);
+                try {
+                    Prepared prepared = futures.get(i).get();
+                    if (prepared == null) {
+                        deferred.add(form);
+                        continue;
+                    }
+                    long time = System.currentTimeMillis();
+                    dynamicFormService.reloadTable(prepared.metaData);
+                    recordTime(form.getName(), prepared.parseTime + System.currentTimeMillis() - time);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    logger.error("部署{}:({})失败", form.getName(), form.getRemark(), e instanceof ExecutionException ? e.getCause() : e);
+                }
+            }
+            //需要执行DDL的表单
+            for (Form form : deferred) {
+                long time = System.currentTimeMillis();
+                try {
+                    dynamicFormService.deploy(form);
+                    recordTime(form.getName(), System.currentTimeMillis() - time);
+                } catch (Exception e) {
+                    logger.error("部署{}:({})失败", form.getName(), form.getRemark(), e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("部署{}个表单完成,耗时{}ms,线程数:{},最慢的表单:{}", forms.size(),
+                System.currentTimeMillis() - startTime, poolSize, getSlowest(10));
+    }
+
+    /**
+     * 加载lazy模式下尚未加载的表单,同一个表单同时只会加载一次.
+     * 与eager模式相同,没有发布记录的表单直接发布(需要执行DDL)
+     *
+     * @param name 表单名称
+     * @return 是否为等待加载的表单
+     */
+    public boolean materialize(String name) {
+        if (!pending.containsKey(name)) return false;
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> exists = loading.putIfAbsent(name, future);
+        if (exists != null) {
+            try {
+                exists.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+            return true;
+        }
+        try {
+            Form form = pending.get(name);
+            if (form != null) {
+                long time = System.currentTimeMillis();
+                Prepared prepared = prepare(name);
+                if (prepared != null) {
+                    dynamicFormService.reloadTable(prepared.metaData);
+                } else {
+                    try {
+                        dynamicFormService.deploy(form);
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                pending.remove(name);
+                recordTime(name, System.currentTimeMillis() - time);
+            }
+            future.complete(null);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(name, future);
+        }
+        return true;
+    }
+
+    /**
+     * 表单已被发布或者取消发布,不再需要延迟加载
+     *
+     * @param name 表单名称
+     */
+    public void cancel(String name) {
+        pending.remove(name);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return 等待加载的表单
+     */
+    public Set<String> getPending() {
+        return Collections.unmodifiableSet(pending.keySet());
+    }
+
+    /**
+     * @return 表单名称->加载耗时(毫秒)
+     */
+    public Map<String, Long> getDeployTimes() {
+        return Collections.unmodifiableMap(deployTimes);
+    }
+
+    /**
+     * 读取发布记录并解析表单,可以并行执行
+     *
+     * @return 解析结果, 没有发布记录时返回null
+     */
+    protected Prepared prepare(String name) {
+        long time = System.currentTimeMillis();
+        History history = historyService.selectLastHistoryByType("form.deploy." + name);
+        if (history == null) return null;
+        Form deployed = JSON.parseObject(history.getChangeAfter(), Form.class);
+        RDBTableMetaData metaData = dynamicFormService.parseMeta(deployed);
+        metaData.setProperty("version", deployed.getRevision());
+        return new Prepared(metaData, System.currentTimeMillis() - time);
+    }
+
+    protected void recordTime(String name, long time) {
+        deployTimes.put(name, time);
+        logger.debug("部署表单[{}]耗时{}ms", name, time);
+    }
+
+    protected Map<String, Long> getSlowest(int size) {
+        Map<String, Long> slowest = new LinkedHashMap<>();
+        deployTimes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(size)
+                .forEach(entry -> slowest.put(entry.getKey(), entry.getValue()));
+        return slowest;
+    }
+
+    static class Prepared {
+        final RDBTableMetaData metaData;
+
+        final long parseTime;
+
+        Prepared(RDBTableMetaData metaData, long parseTime) {
+            this.metaData = metaData;
+            this.parseTime = parseTime;
+        }
+    }
+}
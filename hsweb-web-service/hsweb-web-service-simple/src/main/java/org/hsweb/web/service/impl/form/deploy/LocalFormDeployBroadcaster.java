@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form.deploy;
+
+import org.hsweb.web.service.form.FormDeployBroadcaster;
+import org.hsweb.web.service.form.FormDeployEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 仅在当前jvm中广播的表单发布事件广播器,在当前线程中依次通知所有监听器.
+ * 用于单节点部署,或者在测试中模拟多个节点
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public class LocalFormDeployBroadcaster implements FormDeployBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalFormDeployBroadcaster.class);
+
+    private final List<Consumer<FormDeployEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void broadcast(FormDeployEvent event) {
+        for (Consumer<FormDeployEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                logger.error("处理表单发布事件[{}]失败", event, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<FormDeployEvent> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form.deploy;
+
+import com.alibaba.fastjson.JSON;
+import org.hsweb.web.service.form.FormDeployBroadcaster;
+import org.hsweb.web.service.form.FormDeployEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 基于redis发布订阅的表单发布事件广播器,事件以json格式发布到{@link #CHANNEL},
+ * 不使用RedisTemplate的序列化配置.需要注册到{@link org.springframework.data.redis.listener.RedisMessageListenerContainer}中才能接收事件
+ *
+ * @author zhouhao
+ * @see FormDeployBroadcasterAutoConfiguration
+ * @since 2.2
+ */
+public class RedisFormDeployBroadcaster implements FormDeployBroadcaster, MessageListener {
+
+    public static final String CHANNEL = "hsweb.form.deploy";
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisFormDeployBroadcaster.class);
+
+    private static final byte[] channel = CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate redisTemplate;
+
+    private final List<Consumer<FormDeployEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisFormDeployBroadcaster(RedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void broadcast(FormDeployEvent event) {
+        byte[] body = JSON.toJSONString(event).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+    }
+
+    @Override
+    public void subscribe(Consumer<FormDeployEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        FormDeployEvent event;
+        try {
+            event = JSON.parseObject(new String(message.getBody(), StandardCharsets.UTF_8), FormDeployEvent.class);
+        } catch (RuntimeException e) {
+            logger.warn("无法解析表单发布事件:{}", new String(message.getBody(), StandardCharsets.UTF_8), e);
+            return;
+        }
+        for (Consumer<FormDeployEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                logger.error("处理表单发布事件[{}]失败", event, e);
+            }
+        }
+    }
+}
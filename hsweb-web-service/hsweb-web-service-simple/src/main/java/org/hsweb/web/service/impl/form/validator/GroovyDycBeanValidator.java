@@ -1,56 +1,105 @@
 package org.hsweb.web.service.impl.form.validator;
 
 import org.apache.commons.beanutils.BeanMap;
-import org.apache.commons.beanutils.BeanUtils;
+import org.apache.commons.beanutils.ConvertUtils;
 import org.hsweb.ezorm.core.Validator;
 import org.hsweb.ezorm.rdb.exception.ValidationException;
+import org.hsweb.web.bean.accessor.BeanAccessor;
 import org.hsweb.web.bean.validator.ValidateResults;
 import org.hsweb.web.core.exception.BusinessException;
-import org.springframework.util.ReflectionUtils;
 import org.hsweb.expands.script.engine.DynamicScriptEngine;
 import org.hsweb.expands.script.engine.DynamicScriptEngineFactory;
+import org.springframework.util.ClassUtils;
 
 import javax.validation.ConstraintViolation;
-import java.lang.reflect.Field;
+import javax.validation.metadata.PropertyDescriptor;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * 基于Groovy动态Bean对象验证
- * 原理，通过调用groovy脚本获取一个已编译的动态bean实例，然后进行赋值后验证
+ * 原理，通过调用groovy脚本获取一个已编译的动态bean实例，然后进行赋值后验证.
+ * 创建验证器时获取编译后的类,并缓存每个属性的setter,类型以及需要验证的属性,验证时不再执行脚本和查找属性.
  * Created by 浩 on 2015-12-24 0024.
  */
 public class GroovyDycBeanValidator implements Validator {
 
     protected static DynamicScriptEngine engine = DynamicScriptEngineFactory.getEngine("groovy");
 
-    private String                     className;
-    private javax.validation.Validator hibernateValidator;
+    private final Class<?>                   targetClass;
+    private final javax.validation.Validator hibernateValidator;
 
+    //属性名->setter,setter会将值转换为属性的类型
+    private final Map<String, BiConsumer<Object, Object>> setters;
+
+    //配置了验证规则的属性
+    private final Set<String> constrainedProperties;
 
     public GroovyDycBeanValidator(String className, javax.validation.Validator hibernateValidator) {
-        this.className = className;
+        this(getTargetClass(className), hibernateValidator);
+    }
+
+    /**
+     * @param targetClass        动态生成的bean类型
+     * @param hibernateValidator hibernate-validator
+     * @since 2.2
+     */
+    public GroovyDycBeanValidator(Class<?> targetClass, javax.validation.Validator hibernateValidator) {
+        this.targetClass = targetClass;
         this.hibernateValidator = hibernateValidator;
+        BeanAccessor<?> accessor = BeanAccessor.of(targetClass);
+        Map<String, BiConsumer<Object, Object>> setters = new HashMap<>();
+        try {
+            for (java.beans.PropertyDescriptor descriptor : Introspector.getBeanInfo(targetClass).getPropertyDescriptors()) {
+                @SuppressWarnings("unchecked")
+                BiConsumer<Object, Object> setter = (BiConsumer) accessor.setter(descriptor.getName());
+                if (setter == null) continue;
+                Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(descriptor.getPropertyType());
+                setters.put(descriptor.getName(), (bean, value) -> {
+                    if (value != null && !type.isInstance(value)) value = ConvertUtils.convert(value, type);
+                    setter.accept(bean, value);
+                });
+            }
+        } catch (IntrospectionException e) {
+            throw new BusinessException("创建动态表单验证器失败!", e, 500);
+        }
+        this.setters = setters;
+        Set<String> constrainedProperties = new HashSet<>();
+        for (PropertyDescriptor descriptor : hibernateValidator.getConstraintsForClass(targetClass).getConstrainedProperties()) {
+            constrainedProperties.add(descriptor.getPropertyName());
+        }
+        this.constrainedProperties = constrainedProperties;
+    }
+
+    protected static Class<?> getTargetClass(String className) {
+        try {
+            return (Class) engine.execute(className, new HashMap<>()).getIfSuccess();
+        } catch (Exception e) {
+            throw new BusinessException("获取动态表单验证器失败!", e, 500);
+        }
     }
 
     public boolean validateMap(Map<Object, Object> data, Operation operation) {
         ValidateResults results = new ValidateResults();
         try {
-            Class validatorTargetClass = (Class) engine.execute(className, new HashMap<>()).getIfSuccess();
-            Object validatorTarget = validatorTargetClass.newInstance();
             Set<ConstraintViolation<Object>> result = new LinkedHashSet<>();
             if (operation == Operation.INSERT) {
+                Object validatorTarget = targetClass.newInstance();
                 data.forEach((key, value) -> {
+                    BiConsumer<Object, Object> setter = setters.get(key);
+                    if (setter == null) return;
                     try {
-                        BeanUtils.setProperty(validatorTarget, (String) key, value);
+                        setter.accept(validatorTarget, value);
                     } catch (Exception e) {
                     }
                 });
                 result.addAll(hibernateValidator.validate(validatorTarget));
             } else
                 data.forEach((key, value) -> {
-                    Field field = ReflectionUtils.findField(validatorTargetClass, (String) key);
-                    if (field != null)
-                        result.addAll(hibernateValidator.validateValue(validatorTargetClass, (String) key, value));
+                    if (constrainedProperties.contains(key))
+                        result.addAll(hibernateValidator.validateValue((Class) targetClass, (String) key, value));
                 });
             if (result.size() > 0) {
                 for (ConstraintViolation<Object> violation : result) {
@@ -17,6 +17,7 @@ import org.hsweb.expands.script.engine.DynamicScriptEngineFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class GroovyDycBeanValidatorFactory implements ValidatorFactory {
@@ -24,7 +25,8 @@ public class GroovyDycBeanValidatorFactory implements ValidatorFactory {
     @Autowired
     private javax.validation.Validator hibernateValidator;
 
-    private Map<String, Validator> base = new HashMap<>();
+    //表名->已编译的验证器,表结构(发布版本)未变化时直接使用,不再重新编译脚本
+    private final Map<String, CompiledValidator> base = new ConcurrentHashMap<>();
 
     private static final Map<Class, String> simpleType = new HashMap<>();
 
@@ -83,7 +85,10 @@ public class GroovyDycBeanValidatorFactory implements ValidatorFactory {
                     .append(fieldMetaData.getName()).append(";\n\n");
         }
         //没有配置验证器
-        if (!hasValidator) return null;
+        if (!hasValidator) {
+            base.remove(metaData.getName());
+            return null;
+        }
         for (ColumnMetaData fieldMetaData : metaData.getColumns()) {
             String typeName = simpleType.get(fieldMetaData.getJavaType());
             if (typeName == null) typeName = fieldMetaData.getJavaType().getName();
@@ -103,15 +108,32 @@ public class GroovyDycBeanValidatorFactory implements ValidatorFactory {
                     .append("\n}\n\n");
         }
         script.append("}");
-        try {
-            engine.compile(className, script.toString());
-        } catch (Exception e) {
-            throw new BusinessException("创建动态表单验证器失败!", e, 500);
+        String scriptText = script.toString();
+        CompiledValidator compiled = base.get(metaData.getName());
+        if (compiled != null && compiled.script.equals(scriptText)) return compiled.validator;
+        synchronized (this) {
+            compiled = base.get(metaData.getName());
+            if (compiled != null && compiled.script.equals(scriptText)) return compiled.validator;
+            try {
+                engine.compile(className, scriptText);
+            } catch (Exception e) {
+                throw new BusinessException("创建动态表单验证器失败!", e, 500);
+            }
+            GroovyDycBeanValidator validator = new GroovyDycBeanValidator(className, hibernateValidator);
+            base.put(metaData.getName(), new CompiledValidator(scriptText, validator));
+            return validator;
         }
-        GroovyDycBeanValidator validator = new GroovyDycBeanValidator(className, hibernateValidator);
-        base.put(metaData.getName(), validator);
-        return validator;
     }
 
+    static class CompiledValidator {
+        final String script;
+
+        final GroovyDycBeanValidator validator;
+
+        CompiledValidator(String script, GroovyDycBeanValidator validator) {
+            this.script = script;
+            this.validator = validator;
+        }
+    }
 
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form.validator;
+
+import org.hsweb.ezorm.core.param.Term;
+import org.hsweb.ezorm.core.param.TermType;
+import org.hsweb.ezorm.rdb.RDBTable;
+import org.hsweb.ezorm.rdb.meta.RDBColumnMetaData;
+import org.hsweb.ezorm.rdb.meta.RDBTableMetaData;
+import org.hsweb.web.bean.common.QueryParam;
+import org.hsweb.web.service.form.DynamicFormDataValidator;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 根据唯一字段查找重复数据的验证器,批量查找时每批数据只执行一次IN查询(按第一个唯一字段),
+ * 多个唯一字段时再在内存中匹配其余字段.
+ * <pre>
+ *     &#64;Component
+ *     public class UserCodeValidator extends UniqueColumnsDataValidator {
+ *         protected List&lt;String&gt; getUniqueColumns(RDBTable table) {
+ *             return "user_info".equals(table.getMeta().getName()) ? Arrays.asList("code") : null;
+ *         }
+ *     }
+ * </pre>
+ *
+ * @author zhouhao
+ * @since 2.2
+ */
+public abstract class UniqueColumnsDataValidator implements DynamicFormDataValidator {
+
+    /**
+     * 每次IN查询的最大参数数量,oracle中IN最多1000个参数
+     */
+    protected int maxInSize = 500;
+
+    /**
+     * 获取表的唯一字段
+     *
+     * @param table 表
+     * @return 唯一字段名称, 为空时不验证此表
+     */
+    protected abstract List<String> getUniqueColumns(RDBTable table);
+
+    @Override
+    public String getRepeatDataId(RDBTable table, Map<String, Object> data) {
+        return getRepeatDataIds(table, Collections.singletonList(data)).get(0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> getRepeatDataIds(RDBTable table, List<Map<String, Object>> dataList) {
+        List<String> ids = new ArrayList<>(Collections.nCopies(dataList.size(), null));
+        List<String> uniqueColumns = getUniqueColumns(table);
+        if (uniqueColumns == null || uniqueColumns.isEmpty()) return ids;
+        RDBTableMetaData metaData = table.getMeta();
+        List<RDBColumnMetaData> columns = uniqueColumns.stream().map(metaData::findColumn).collect(Collectors.toList());
+        if (columns.contains(null)) {
+            throw new IllegalArgumentException("表[" + metaData.getName() + "]中不存在唯一字段:" + uniqueColumns);
+        }
+        String primaryKeyName = metaData.getProperty("primaryKey", "u_id").toString();
+        //唯一字段的值->数据下标
+        Map<List<String>, List<Integer>> keys = new LinkedHashMap<>();
+        for (int i = 0; i < dataList.size(); i++) {
+            List<String> key = createKey(columns, dataList.get(i));
+            if (key != null) keys.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        if (keys.isEmpty()) return ids;
+        List<Object> values = keys.values().stream()
+                .map(indexes -> getValue(columns.get(0), dataList.get(indexes.get(0))))
+                .distinct()
+                .collect(Collectors.toList());
+        for (int from = 0; from < values.size(); from += maxInSize) {
+            Term term = new Term();
+            term.setColumn(columns.get(0).getName());
+            term.setTermType(TermType.in);
+            term.setValue(new ArrayList<>(values.subList(from, Math.min(values.size(), from + maxInSize))));
+            QueryParam param = new QueryParam().noPaging();
+            param.setTerms(new ArrayList<>(Collections.singletonList(term)));
+            List<Map<String, Object>> exists;
+            try {
+                exists = table.createQuery().setParam(param).list();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            for (Map<String, Object> row : exists) {
+                List<Integer> indexes = keys.get(createKey(columns, row));
+                Object id = getValue(metaData.findColumn(primaryKeyName), row);
+                if (indexes == null || id == null) continue;
+                indexes.forEach(index -> ids.set(index, String.valueOf(id)));
+            }
+        }
+        return ids;
+    }
+
+    protected List<String> createKey(List<RDBColumnMetaData> columns, Map<String, Object> data) {
+        List<String> key = new ArrayList<>(columns.size());
+        for (RDBColumnMetaData column : columns) {
+            Object value = getValue(column, data);
+            if (value == null) return null;
+            key.add(String.valueOf(value));
+        }
+        return key;
+    }
+
+    protected Object getValue(RDBColumnMetaData column, Map<String, Object> data) {
+        if (column == null) return null;
+        Object value = data.get(column.getAlias());
+        return value != null ? value : data.get(column.getName());
+    }
+}
@@ -12,6 +12,7 @@ import org.hsweb.web.core.utils.RandomUtil;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -42,11 +43,7 @@ public class RoleServiceImpl extends AbstractServiceImpl<Role, String> implement
         List<RoleModule> roleModule = data.getModules();
         if (roleModule != null && roleModule.size() > 0) {
             //保存角色模块关联
-            for (RoleModule module : roleModule) {
-                module.setId(RandomUtil.randomChar(6));
-                module.setRoleId(data.getId());
-                roleModuleMapper.insert(new InsertParam<>(module));
-            }
+            insertRoleModules(data);
         }
         return id;
     }
@@ -59,12 +56,18 @@ public class RoleServiceImpl extends AbstractServiceImpl<Role, String> implement
             //先删除所有roleModule
             roleModuleMapper.deleteByRoleId(data.getId());
             //保存角色模块关联
-            for (RoleModule module : roleModule) {
-                module.setId(RandomUtil.randomChar(6));
-                module.setRoleId(data.getId());
-                roleModuleMapper.insert(new InsertParam<>(module));
-            }
+            insertRoleModules(data);
         }
         return l;
     }
+
+    protected void insertRoleModules(Role data) {
+        List<InsertParam<RoleModule>> params = new ArrayList<>(data.getModules().size());
+        for (RoleModule module : data.getModules()) {
+            module.setId(RandomUtil.randomChar(6));
+            module.setRoleId(data.getId());
+            params.add(new InsertParam<>(module));
+        }
+        roleModuleMapper.insertBatch(params);
+    }
 }
@@ -2,6 +2,7 @@ package org.hsweb.web.service.impl.user;
 
 import org.hsweb.commons.MD5;
 import org.hsweb.web.bean.common.InsertParam;
+import org.hsweb.web.bean.common.QueryParam;
 import org.hsweb.web.bean.po.module.Module;
 import org.hsweb.web.bean.po.role.UserRole;
 import org.hsweb.web.bean.po.user.User;
@@ -61,15 +62,21 @@ public class UserServiceImpl extends AbstractServiceImpl<User, String> implement
         String id = data.getId();
         //添加角色关联
         if (data.getUserRoles() != null) {
-            for (UserRole userRole : data.getUserRoles()) {
-                userRole.setId(RandomUtil.randomChar());
-                userRole.setUserId(data.getId());
-                userRoleMapper.insert(new InsertParam<>(userRole));
-            }
+            insertUserRoles(data);
         }
         return id;
     }
 
+    protected void insertUserRoles(User data) {
+        List<InsertParam<UserRole>> params = new ArrayList<>(data.getUserRoles().size());
+        for (UserRole userRole : data.getUserRoles()) {
+            userRole.setId(RandomUtil.randomChar());
+            userRole.setUserId(data.getId());
+            params.add(new InsertParam<>(userRole));
+        }
+        if (!params.isEmpty()) userRoleMapper.insertBatch(params);
+    }
+
     @Override
     public int update(User data) {
         tryValidPo(data);
@@ -86,22 +93,17 @@ public class UserServiceImpl extends AbstractServiceImpl<User, String> implement
         if (data.getUserRoles() != null) {
             //删除所有
             userRoleMapper.deleteByUserId(data.getId());
-            for (UserRole userRole : data.getUserRoles()) {
-                userRole.setId(RandomUtil.randomChar());
-                userRole.setUserId(data.getId());
-                userRoleMapper.insert(new InsertParam<>(userRole));
-            }
+            insertUserRoles(data);
         }
         return i;
     }
 
     @Override
     public void initAdminUser(User user) {
-        List<Module> modules = moduleService.createQuery().orderByAsc(Module.Property.sortIndex).listNoPaging();
+        QueryParam param = new QueryParam();
+        param.orderBy(Module.Property.sortIndex).asc();
         Map<Module, Set<String>> roleInfo = new LinkedHashMap<>();
-        for (Module module : modules) {
-            roleInfo.put(module, new LinkedHashSet<>(module.getOptionalMap().keySet()));
-        }
+        moduleService.stream(param, module -> roleInfo.put(module, new LinkedHashSet<>(module.getOptionalMap().keySet())));
         user.setRoleInfo(roleInfo);
     }
 
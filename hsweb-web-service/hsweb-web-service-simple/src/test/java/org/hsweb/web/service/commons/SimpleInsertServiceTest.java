@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hsweb.web.service.commons;
+
+import org.hsweb.web.bean.common.InsertParam;
+import org.hsweb.web.bean.po.config.Config;
+import org.hsweb.web.dao.InsertMapper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author zhouhao
+ */
+public class SimpleInsertServiceTest {
+
+    InsertMapper<Config> mapper;
+
+    List<Config> inserted;
+
+    SimpleInsertService<Config, String> service;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        mapper = Mockito.mock(InsertMapper.class);
+        inserted = new ArrayList<>();
+        service = new SimpleInsertService<Config, String>() {
+            @Override
+            public InsertMapper<Config> getInsertMapper() {
+                return mapper;
+            }
+
+            @Override
+            public void tryValidPo(Config data) {
+            }
+
+            @Override
+            public Class<String> getPKType() {
+                return String.class;
+            }
+
+            @Override
+            public int getInsertBatchSize() {
+                return 2;
+            }
+
+            @Override
+            public String insert(Config data) {
+                //模拟重写了单条添加逻辑的服务类
+                inserted.add(data);
+                return SimpleInsertService.super.insert(data);
+            }
+        };
+    }
+
+    private List<Config> createData(int size) {
+        List<Config> data = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            data.add(new Config());
+        }
+        return data;
+    }
+
+    @Test
+    public void insertList() {
+        List<Config> data = createData(3);
+        List<String> ids = service.insert(data);
+        Assert.assertEquals(data, inserted);
+        Assert.assertEquals(3, ids.size());
+        verify(mapper, times(3)).insert(any(InsertParam.class));
+        verify(mapper, never()).insertBatch(any(List.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void insertBatch() {
+        List<Config> data = createData(5);
+        List<String> ids = service.insertBatch(data);
+        Assert.assertTrue(inserted.isEmpty());
+        Assert.assertEquals(5, ids.size());
+        for (int i = 0; i < data.size(); i++) {
+            Assert.assertNotNull(ids.get(i));
+            Assert.assertEquals(data.get(i).getId(), ids.get(i));
+        }
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(mapper, times(3)).insertBatch(captor.capture());
+        Assert.assertEquals(2, captor.getAllValues().get(0).size());
+        Assert.assertEquals(2, captor.getAllValues().get(1).size());
+        Assert.assertEquals(1, captor.getAllValues().get(2).size());
+        verify(mapper, never()).insert(any(InsertParam.class));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.commons;
+
+import org.hsweb.web.bean.common.QueryParam;
+import org.hsweb.web.bean.po.config.Config;
+import org.hsweb.web.dao.Cursor;
+import org.hsweb.web.dao.QueryMapper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author zhouhao
+ */
+public class SimpleQueryServiceTest {
+
+    QueryMapper<Config, String> mapper;
+
+    SimpleQueryService<Config, String> service;
+
+    List<Config> data = Arrays.asList(new Config(), new Config());
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        mapper = Mockito.mock(QueryMapper.class);
+        when(mapper.select(any(QueryParam.class))).thenReturn(data);
+        service = () -> mapper;
+    }
+
+    private QueryParam createParam() {
+        QueryParam param = new QueryParam();
+        param.where("name", "test");
+        param.includes("id", "name");
+        param.doPaging(1, 10);
+        return param;
+    }
+
+    @Test
+    public void streamWithoutExecutor() {
+        QueryParam param = createParam();
+        List<Config> result = new ArrayList<>();
+        service.stream(param, result::add);
+        Assert.assertEquals(data, result);
+        Assert.assertTrue(param.isPaging());
+
+        ArgumentCaptor<QueryParam> captor = ArgumentCaptor.forClass(QueryParam.class);
+        verify(mapper).select(captor.capture());
+        QueryParam used = captor.getValue();
+        Assert.assertNotSame(param, used);
+        Assert.assertFalse(used.isPaging());
+        Assert.assertEquals(1, used.getTerms().size());
+        Assert.assertEquals(param.getIncludes(), used.getIncludes());
+    }
+
+    @Test
+    public void cursorWithoutExecutor() {
+        QueryParam param = createParam();
+        List<Config> result = new ArrayList<>();
+        try (Cursor<Config> cursor = service.cursor(param)) {
+            Assert.assertTrue(cursor.isOpen());
+            Assert.assertFalse(cursor.isConsumed());
+            cursor.forEach(result::add);
+            Assert.assertTrue(cursor.isConsumed());
+        }
+        Assert.assertEquals(data, result);
+        Assert.assertTrue(param.isPaging());
+        verify(mapper, never()).select(param);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import org.hsweb.web.bean.po.form.Form;
+import org.hsweb.web.service.form.FormHtml;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author zhouhao
+ */
+public class FormHtmlCacheTest {
+
+    FormHtmlCache cache = new FormHtmlCache(form -> "<form>" + form.getName() + form.getRevision() + "</form>");
+
+    private Form createForm(int revision) {
+        Form form = new Form();
+        form.setId("test");
+        form.setName("test");
+        form.setRevision(revision);
+        return form;
+    }
+
+    @Test
+    public void testGet() {
+        FormHtml html = cache.get(createForm(1));
+        Assert.assertSame(html, cache.get(createForm(1)));
+        //修订版本变化时重新渲染
+        FormHtml newHtml = cache.get(createForm(2));
+        Assert.assertNotSame(html, newHtml);
+        Assert.assertEquals("<form>test2</form>", newHtml.getHtml());
+        Assert.assertNotEquals(html.getEtag(), newHtml.getEtag());
+    }
+
+    @Test
+    public void testGetDeployed() {
+        FormHtml html = cache.getDeployed("test", () -> createForm(1));
+        Assert.assertSame(html, cache.getDeployed("test", () -> {
+            throw new AssertionError("已缓存时不应加载");
+        }));
+        cache.evictDeployed("test");
+        Assert.assertEquals(2, cache.getDeployed("test", () -> createForm(2)).getRevision());
+    }
+
+    @Test
+    public void testEvictWhileLoading() {
+        //加载旧版本期间表单被重新发布
+        FormHtml stale = cache.getDeployed("test", () -> {
+            Form form = createForm(1);
+            cache.evictDeployed("test");
+            return form;
+        });
+        Assert.assertEquals(1, stale.getRevision());
+        //旧版本不应放入缓存
+        Assert.assertEquals(2, cache.getDeployed("test", () -> createForm(2)).getRevision());
+    }
+}
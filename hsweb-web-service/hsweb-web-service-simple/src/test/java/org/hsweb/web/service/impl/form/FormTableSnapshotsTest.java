@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import org.hsweb.ezorm.rdb.RDBTable;
+import org.hsweb.ezorm.rdb.meta.RDBTableMetaData;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author zhouhao
+ */
+public class FormTableSnapshotsTest {
+
+    private RDBTable createTable(String name) {
+        RDBTableMetaData metaData = new RDBTableMetaData();
+        metaData.setName(name);
+        metaData.setProperty("primaryKey", "id");
+        RDBTable table = Mockito.mock(RDBTable.class);
+        Mockito.when(table.getMeta()).thenReturn(metaData);
+        return table;
+    }
+
+    @Test
+    public void testPublish() {
+        AtomicInteger scopeCount = new AtomicInteger();
+        FormTableSnapshots snapshots = new FormTableSnapshots(table -> {
+            scopeCount.incrementAndGet();
+            return Collections.singletonMap("table", table);
+        });
+        Assert.assertNull(snapshots.get("test"));
+        RDBTable table = createTable("test");
+        FormTableSnapshots.Snapshot snapshot = snapshots.publish("test", table);
+        Assert.assertSame(snapshot, snapshots.get("test"));
+        Assert.assertSame(table, snapshot.getTable());
+        Assert.assertEquals("id", snapshot.getPrimaryKeyName());
+        Assert.assertSame(table, snapshot.getTriggerScope().getBase().get("table"));
+        Assert.assertNotNull(snapshot.getOptionDictionary());
+        //每次发布只创建一次基础变量
+        Assert.assertEquals(1, scopeCount.get());
+
+        //重新发布时替换快照,已获取的快照不受影响
+        RDBTable newTable = createTable("test");
+        FormTableSnapshots.Snapshot newSnapshot = snapshots.publish("test", newTable);
+        Assert.assertSame(newSnapshot, snapshots.get("test"));
+        Assert.assertSame(table, snapshot.getTable());
+        Assert.assertTrue(newSnapshot.getVersion() > snapshot.getVersion());
+        Assert.assertEquals(2, scopeCount.get());
+    }
+
+    @Test
+    public void testPublishIfAbsent() {
+        FormTableSnapshots snapshots = new FormTableSnapshots();
+        FormTableSnapshots.Snapshot snapshot = snapshots.publishIfAbsent("test", createTable("test"));
+        Assert.assertSame(snapshot, snapshots.publishIfAbsent("test", createTable("test")));
+    }
+
+    @Test
+    public void testRemove() {
+        FormTableSnapshots snapshots = new FormTableSnapshots();
+        FormTableSnapshots.Snapshot snapshot = snapshots.publish("test", createTable("test"));
+        snapshots.publish("other", createTable("other"));
+        snapshots.remove("test");
+        Assert.assertNull(snapshots.get("test"));
+        Assert.assertNotNull(snapshots.get("other"));
+        //卸载后重新发布的版本号大于卸载前的版本号
+        Assert.assertTrue(snapshots.publish("test", createTable("test")).getVersion() > snapshot.getVersion() + 1);
+        snapshots.remove("notExists");
+    }
+}
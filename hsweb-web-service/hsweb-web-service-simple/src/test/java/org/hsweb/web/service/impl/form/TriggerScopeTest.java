@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2016 http://hsweb.me
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hsweb.web.service.impl.form;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author zhouhao
+ */
+public class TriggerScopeTest {
+
+    private TriggerScope createScope() {
+        Map<String, Object> base = new HashMap<>();
+        base.put("database", "db");
+        base.put("table", "tb");
+        return new TriggerScope(base);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testBaseUnmodifiable() {
+        createScope().getBase().put("data", 1);
+    }
+
+    @Test
+    public void testContext() {
+        TriggerScope scope = createScope();
+        Map<String, Object> var = scope.newContext();
+        Assert.assertEquals("db", var.get("database"));
+        Assert.assertEquals(2, var.size());
+
+        var.put("data", 1);
+        Assert.assertEquals(1, var.get("data"));
+        Assert.assertEquals(3, var.size());
+        //覆盖基础变量
+        Assert.assertEquals("tb", var.put("table", "other"));
+        Assert.assertEquals("other", var.get("table"));
+        Assert.assertEquals(3, var.size());
+        //值为null的变量
+        var.put("nullValue", null);
+        Assert.assertTrue(var.containsKey("nullValue"));
+        Assert.assertNull(var.get("nullValue"));
+
+        //基础变量不受影响,其他上下文不受影响
+        Assert.assertEquals("tb", scope.getBase().get("table"));
+        Assert.assertFalse(scope.getBase().containsKey("data"));
+        Map<String, Object> other = scope.newContext();
+        Assert.assertEquals("tb", other.get("table"));
+        Assert.assertFalse(other.containsKey("data"));
+    }
+
+    @Test
+    public void testRemove() {
+        TriggerScope scope = createScope();
+        Map<String, Object> var = scope.newContext();
+        var.put("table", "other");
+        Assert.assertEquals("other", var.remove("table"));
+        //被删除的基础变量在本次调用中不可见
+        Assert.assertFalse(var.containsKey("table"));
+        Assert.assertNull(var.get("table"));
+        Assert.assertEquals(1, var.size());
+        Assert.assertFalse(var.entrySet().stream().anyMatch(e -> e.getKey().equals("table")));
+        //重新设置后可见
+        var.put("table", "new");
+        Assert.assertEquals("new", var.get("table"));
+        Assert.assertEquals("tb", scope.getBase().get("table"));
+    }
+
+    @Test
+    public void testClear() {
+        TriggerScope scope = createScope();
+        Map<String, Object> var = scope.newContext();
+        var.put("data", 1);
+        var.clear();
+        Assert.assertTrue(var.isEmpty());
+        Assert.assertNull(var.get("database"));
+        Assert.assertEquals(2, scope.newContext().size());
+    }
+
+    @Test
+    public void testEntrySet() {
+        Map<String, Object> var = createScope().newContext();
+        var.put("table", "other");
+        var.put("data", 1);
+        Map<String, Object> copy = new HashMap<>(var);
+        Assert.assertEquals(3, copy.size());
+        Assert.assertEquals("other", copy.get("table"));
+        Assert.assertEquals("db", copy.get("database"));
+        Assert.assertEquals(1, copy.get("data"));
+    }
+}
@@ -30,6 +30,9 @@ def modules = [
         , [u_id: 'query-plan', name: '查询方案', uri: '', icon: 'icon-table-multiple', parent_id: 'others', remark: '', status: 1, optional: '[{"id":"R","text":"查询","checked":true},{"id":"C","text":"新增","checked":true},{"id":"U","text":"修改","checked":true},{"id":"D","text":"删除","checked":false}]', sort_index: 602]
         , [u_id: 'monitor-cache', name: '缓存监控', uri: 'admin/system-monitor/cache.html', icon: 'icon-monitor', parent_id: 'sys-monitor', remark: '', status: 1, optional: '[{"id":"M","text":"菜单可见","checked":true},{"id":"R","text":"查询","checked":true},{"id":"C","text":"新增","checked":true},{"id":"U","text":"修改","checked":true},{"id":"D","text":"删除","checked":false}]', sort_index: 502]
         , [u_id: 'quartz', name: '定时任务', uri: 'admin/quartz/list.html', icon: '', parent_id: 'sys-monitor', remark: '', status: 1, optional: '[{"id":"enable"},{"id":"disable"},{"id":"history","text":"历史记录"},{"id":"M","text":"菜单可见","checked":true},{"id":"R","text":"查询","checked":true},{"id":"C","text":"新增","checked":true},{"id":"U","text":"修改","checked":true},{"id":"D","text":"删除","checked":false}]', sort_index: 503]
+        , [u_id: 'monitor-sql', name: 'SQL监控', uri: '', icon: '', parent_id: 'sys-monitor', remark: '', status: 1, optional: '[{"id":"R","text":"查询","checked":true},{"id":"D","text":"删除","checked":false}]', sort_index: 504]
+        , [u_id: 'monitor-form-deploy', name: '表单发布监控', uri: '', icon: '', parent_id: 'sys-monitor', remark: '', status: 1, optional: '[{"id":"R","text":"查询","checked":true}]', sort_index: 505]
+        , [u_id: 'monitor-form-query', name: '表单查询监控', uri: '', icon: '', parent_id: 'sys-monitor', remark: '', status: 1, optional: '[{"id":"R","text":"查询","checked":true},{"id":"D","text":"删除","checked":false}]', sort_index: 506]
 ];
 for (module in modules) {
     s_modules.createInsert().value(module).exec();